@@ -0,0 +1,97 @@
+-- =====================================================
+-- Adaptive Per-IP Poll Intervals
+-- =====================================================
+-- Opt-in per IP (adaptive = true). The Distributor lets the effective interval
+-- float between poll_interval (minimum) and max_poll_interval:
+--   - it doubles after a run of identical results (stable UP or stable DOWN)
+--   - it snaps back to poll_interval on any state change or packet loss on an UP host
+-- effective_interval is written back by the poller (write-behind / cluster claims)
+-- so the API can show it and a restart resumes where it left off.
+--
+-- Run after add_ping_results_table.sql and add_ips_notify_trigger.sql.
+
+ALTER TABLE ips ADD COLUMN IF NOT EXISTS adaptive BOOLEAN NOT NULL DEFAULT FALSE;
+ALTER TABLE ips ADD COLUMN IF NOT EXISTS max_poll_interval INTEGER
+    CHECK (max_poll_interval > 0 AND max_poll_interval <= 86400);
+ALTER TABLE ips ADD COLUMN IF NOT EXISTS effective_interval INTEGER
+    CHECK (effective_interval > 0);
+
+-- =====================================================
+-- ips_with_status: expose the adaptive settings
+-- =====================================================
+
+-- New columns are appended so CREATE OR REPLACE keeps working
+CREATE OR REPLACE VIEW ips_with_status AS
+SELECT
+    i.id,
+    i.ip,
+    i.poll_interval,
+    i.next_poll_time,
+    i.created_at,
+    i.updated_at,
+    COALESCE(pr.is_success, false) as latest_ping_success,
+    COALESCE(pr.packet_loss, 100) as latest_packet_loss,
+    COALESCE(pr.avg_rtt, -1) as latest_avg_rtt,
+    COALESCE(pr.pinged_at, i.created_at) as latest_pinged_at,
+    i.adaptive,
+    i.max_poll_interval,
+    COALESCE(i.effective_interval, i.poll_interval) as effective_interval
+FROM ips i
+LEFT JOIN LATERAL (
+    SELECT *
+    FROM ping_results pr
+    WHERE pr.ip_id = i.id
+    ORDER BY pr.pinged_at DESC
+    LIMIT 1
+) pr ON true;
+
+-- =====================================================
+-- NOTIFY payload: include the adaptive settings
+-- =====================================================
+
+-- Payload: {"op", "id", "ip", "pollInterval", "adaptive", "maxPollInterval"}
+CREATE OR REPLACE FUNCTION notify_ips_changed()
+RETURNS TRIGGER AS $$
+DECLARE
+    rec RECORD;
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        rec := OLD;
+    ELSE
+        rec := NEW;
+    END IF;
+
+    PERFORM pg_notify('ips_changed', json_build_object(
+        'op', TG_OP,
+        'id', rec.id,
+        'ip', rec.ip,
+        'pollInterval', rec.poll_interval,
+        'adaptive', rec.adaptive,
+        'maxPollInterval', rec.max_poll_interval
+    )::text);
+
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- effective_interval is written by the poller itself and deliberately NOT notified
+DROP TRIGGER IF EXISTS ips_notify_update ON ips;
+CREATE TRIGGER ips_notify_update
+    AFTER UPDATE OF ip, poll_interval, adaptive, max_poll_interval ON ips
+    FOR EACH ROW
+    WHEN (OLD.ip IS DISTINCT FROM NEW.ip
+        OR OLD.poll_interval IS DISTINCT FROM NEW.poll_interval
+        OR OLD.adaptive IS DISTINCT FROM NEW.adaptive
+        OR OLD.max_poll_interval IS DISTINCT FROM NEW.max_poll_interval)
+    EXECUTE FUNCTION notify_ips_changed();
+
+-- =====================================================
+-- Verification Queries
+-- =====================================================
+
+-- Enable adaptive polling for one IP (stretch up to 5 minutes)
+-- UPDATE ips SET adaptive = true, max_poll_interval = 300 WHERE id = 1;
+
+-- Configured vs effective interval
+-- SELECT id, ip, poll_interval, max_poll_interval, effective_interval
+-- FROM ips_with_status WHERE adaptive ORDER BY id;
@@ -0,0 +1,37 @@
+-- =====================================================
+-- Multi-Node Cluster: Node Membership + Partition Leases
+-- =====================================================
+-- Several urlPoller JVMs can share one database. The ips table is split into
+-- a fixed number of partitions (MOD(id, partition_count)); each node holds
+-- time-bounded leases on a fair share of them and only polls IPs in partitions
+-- it holds. Run with -Dcluster.enabled=true (same -Dcluster.partitions on all nodes).
+
+-- Node membership with heartbeats
+CREATE TABLE IF NOT EXISTS poller_nodes (
+    node_id      VARCHAR(128) PRIMARY KEY,
+    started_at   TIMESTAMP NOT NULL DEFAULT NOW(),
+    heartbeat_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX IF NOT EXISTS idx_poller_nodes_heartbeat ON poller_nodes(heartbeat_at);
+
+-- One row per partition; owner_node is NULL (or the lease expired) when unowned.
+-- Rows are created by the nodes on startup (INSERT ... ON CONFLICT DO NOTHING).
+CREATE TABLE IF NOT EXISTS poller_partitions (
+    partition_id     INTEGER PRIMARY KEY CHECK (partition_id >= 0),
+    owner_node       VARCHAR(128),
+    lease_expires_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX IF NOT EXISTS idx_poller_partitions_owner ON poller_partitions(owner_node);
+
+-- =====================================================
+-- Verification Queries
+-- =====================================================
+
+-- Live nodes
+-- SELECT * FROM poller_nodes WHERE heartbeat_at > NOW() - INTERVAL '10 seconds';
+
+-- Partitions per node
+-- SELECT owner_node, COUNT(*) FROM poller_partitions
+-- WHERE lease_expires_at > NOW() GROUP BY owner_node;
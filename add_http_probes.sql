@@ -0,0 +1,59 @@
+-- =====================================================
+-- HTTP(S) URL Probes
+-- =====================================================
+-- probe_type 'http': the ip column holds an absolute http:// or https:// URL
+-- that is fetched with one GET per cycle. A 2xx/3xx status is UP; the
+-- total latency is stored as the RTT. Status code and time to first byte
+-- are written to the CSV only.
+--
+-- Run after add_tcp_probes.sql.
+
+-- ip / ip_address were sized for IPv6 literals; URLs need more room.
+-- Both columns are used by ips_with_status, so the view is dropped and recreated.
+DROP VIEW IF EXISTS ips_with_status;
+
+ALTER TABLE ips ALTER COLUMN ip TYPE VARCHAR(2048);
+ALTER TABLE ping_results ALTER COLUMN ip_address TYPE VARCHAR(2048);
+
+-- Replaces the column check created by add_tcp_probes.sql
+ALTER TABLE ips DROP CONSTRAINT IF EXISTS ips_probe_type_check;
+ALTER TABLE ips ADD CONSTRAINT ips_probe_type_check
+    CHECK (probe_type IN ('icmp', 'tcp', 'http'));
+
+CREATE VIEW ips_with_status AS
+SELECT
+    i.id,
+    i.ip,
+    i.poll_interval,
+    i.next_poll_time,
+    i.created_at,
+    i.updated_at,
+    COALESCE(pr.is_success, false) as latest_ping_success,
+    COALESCE(pr.packet_loss, 100) as latest_packet_loss,
+    COALESCE(pr.avg_rtt, -1) as latest_avg_rtt,
+    COALESCE(pr.pinged_at, i.created_at) as latest_pinged_at,
+    i.adaptive,
+    i.max_poll_interval,
+    COALESCE(i.effective_interval, i.poll_interval) as effective_interval,
+    i.probe_type,
+    i.probe_port
+FROM ips i
+LEFT JOIN LATERAL (
+    SELECT *
+    FROM ping_results pr
+    WHERE pr.ip_id = i.id
+    ORDER BY pr.pinged_at DESC
+    LIMIT 1
+) pr ON true;
+
+-- =====================================================
+-- Verification Queries
+-- =====================================================
+
+-- Check a URL every 30 seconds
+-- INSERT INTO ips (ip, poll_interval, probe_type, next_poll_time)
+-- VALUES ('https://example.com/health', 30, 'http', NOW());
+
+-- URL targets and their latest status
+-- SELECT id, ip, latest_ping_success, latest_avg_rtt
+-- FROM ips_with_status WHERE probe_type = 'http' ORDER BY id;
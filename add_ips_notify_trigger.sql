@@ -0,0 +1,56 @@
+-- =====================================================
+-- LISTEN/NOTIFY Trigger for Event-Driven Scheduling
+-- =====================================================
+-- Every insert, delete, or change of ip / poll_interval on the ips table sends a
+-- NOTIFY on channel 'ips_changed'. The Distributor re-arms its timing wheel
+-- immediately, no matter whether the row was changed through the REST API,
+-- another urlPoller instance, or direct SQL.
+--
+-- Updates that only touch next_poll_time / updated_at (the poller's own
+-- write-behind persistence and cluster claims) are deliberately NOT notified.
+--
+-- Payload: {"op": "INSERT|UPDATE|DELETE", "id": 1, "ip": "8.8.8.8", "pollInterval": 5}
+
+CREATE OR REPLACE FUNCTION notify_ips_changed()
+RETURNS TRIGGER AS $$
+DECLARE
+    rec RECORD;
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        rec := OLD;
+    ELSE
+        rec := NEW;
+    END IF;
+
+    PERFORM pg_notify('ips_changed', json_build_object(
+        'op', TG_OP,
+        'id', rec.id,
+        'ip', rec.ip,
+        'pollInterval', rec.poll_interval
+    )::text);
+
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS ips_notify_insert_delete ON ips;
+CREATE TRIGGER ips_notify_insert_delete
+    AFTER INSERT OR DELETE ON ips
+    FOR EACH ROW
+    EXECUTE FUNCTION notify_ips_changed();
+
+DROP TRIGGER IF EXISTS ips_notify_update ON ips;
+CREATE TRIGGER ips_notify_update
+    AFTER UPDATE OF ip, poll_interval ON ips
+    FOR EACH ROW
+    WHEN (OLD.ip IS DISTINCT FROM NEW.ip OR OLD.poll_interval IS DISTINCT FROM NEW.poll_interval)
+    EXECUTE FUNCTION notify_ips_changed();
+
+-- =====================================================
+-- Verification
+-- =====================================================
+
+-- In one psql session:
+-- LISTEN ips_changed;
+-- In another:
+-- UPDATE ips SET poll_interval = 10 WHERE id = 1;
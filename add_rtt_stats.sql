@@ -0,0 +1,54 @@
+-- =====================================================
+-- Per-Packet RTT Statistics
+-- =====================================================
+-- With -Drtt.stats=true the probe engines keep the RTT of every packet of a
+-- cycle and report jitter (mean difference of consecutive RTTs) and the
+-- p50 / p95 / p99 RTT next to min / avg / max. The columns stay NULL for
+-- results without a reply or when the option is off.
+--
+-- Run after add_http_probes.sql.
+
+ALTER TABLE ping_results ADD COLUMN IF NOT EXISTS jitter NUMERIC(10,3);
+ALTER TABLE ping_results ADD COLUMN IF NOT EXISTS p50_rtt NUMERIC(10,3);
+ALTER TABLE ping_results ADD COLUMN IF NOT EXISTS p95_rtt NUMERIC(10,3);
+ALTER TABLE ping_results ADD COLUMN IF NOT EXISTS p99_rtt NUMERIC(10,3);
+
+-- New columns are appended, so the view can be replaced in place
+CREATE OR REPLACE VIEW ips_with_status AS
+SELECT
+    i.id,
+    i.ip,
+    i.poll_interval,
+    i.next_poll_time,
+    i.created_at,
+    i.updated_at,
+    COALESCE(pr.is_success, false) as latest_ping_success,
+    COALESCE(pr.packet_loss, 100) as latest_packet_loss,
+    COALESCE(pr.avg_rtt, -1) as latest_avg_rtt,
+    COALESCE(pr.pinged_at, i.created_at) as latest_pinged_at,
+    i.adaptive,
+    i.max_poll_interval,
+    COALESCE(i.effective_interval, i.poll_interval) as effective_interval,
+    i.probe_type,
+    i.probe_port,
+    pr.jitter as latest_jitter,
+    pr.p50_rtt as latest_p50_rtt,
+    pr.p95_rtt as latest_p95_rtt,
+    pr.p99_rtt as latest_p99_rtt
+FROM ips i
+LEFT JOIN LATERAL (
+    SELECT *
+    FROM ping_results pr
+    WHERE pr.ip_id = i.id
+    ORDER BY pr.pinged_at DESC
+    LIMIT 1
+) pr ON true;
+
+-- =====================================================
+-- Verification Queries
+-- =====================================================
+
+-- Targets with the most jitter in their latest result
+-- SELECT id, ip, latest_avg_rtt, latest_jitter, latest_p95_rtt
+-- FROM ips_with_status WHERE latest_jitter IS NOT NULL
+-- ORDER BY latest_jitter DESC LIMIT 20;
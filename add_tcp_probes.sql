@@ -0,0 +1,102 @@
+-- =====================================================
+-- TCP Connect Probes
+-- =====================================================
+-- Per IP probe type: 'icmp' (default, fping / native engine) or 'tcp'.
+-- A 'tcp' target is UP when a TCP handshake to probe_port completes; the
+-- connect time is stored as the RTT. Use it for hosts that drop ICMP.
+--
+-- Run after add_adaptive_polling.sql.
+
+ALTER TABLE ips ADD COLUMN IF NOT EXISTS probe_type VARCHAR(8) NOT NULL DEFAULT 'icmp'
+    CHECK (probe_type IN ('icmp', 'tcp'));
+ALTER TABLE ips ADD COLUMN IF NOT EXISTS probe_port INTEGER
+    CHECK (probe_port > 0 AND probe_port <= 65535);
+
+ALTER TABLE ips DROP CONSTRAINT IF EXISTS ips_tcp_port_required;
+ALTER TABLE ips ADD CONSTRAINT ips_tcp_port_required
+    CHECK (probe_type <> 'tcp' OR probe_port IS NOT NULL);
+
+-- =====================================================
+-- ips_with_status: expose the probe settings
+-- =====================================================
+
+-- New columns are appended so CREATE OR REPLACE keeps working
+CREATE OR REPLACE VIEW ips_with_status AS
+SELECT
+    i.id,
+    i.ip,
+    i.poll_interval,
+    i.next_poll_time,
+    i.created_at,
+    i.updated_at,
+    COALESCE(pr.is_success, false) as latest_ping_success,
+    COALESCE(pr.packet_loss, 100) as latest_packet_loss,
+    COALESCE(pr.avg_rtt, -1) as latest_avg_rtt,
+    COALESCE(pr.pinged_at, i.created_at) as latest_pinged_at,
+    i.adaptive,
+    i.max_poll_interval,
+    COALESCE(i.effective_interval, i.poll_interval) as effective_interval,
+    i.probe_type,
+    i.probe_port
+FROM ips i
+LEFT JOIN LATERAL (
+    SELECT *
+    FROM ping_results pr
+    WHERE pr.ip_id = i.id
+    ORDER BY pr.pinged_at DESC
+    LIMIT 1
+) pr ON true;
+
+-- =====================================================
+-- NOTIFY payload: include the probe settings
+-- =====================================================
+
+-- Payload: {"op", "id", "ip", "pollInterval", "adaptive", "maxPollInterval", "probeType", "probePort"}
+CREATE OR REPLACE FUNCTION notify_ips_changed()
+RETURNS TRIGGER AS $$
+DECLARE
+    rec RECORD;
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        rec := OLD;
+    ELSE
+        rec := NEW;
+    END IF;
+
+    PERFORM pg_notify('ips_changed', json_build_object(
+        'op', TG_OP,
+        'id', rec.id,
+        'ip', rec.ip,
+        'pollInterval', rec.poll_interval,
+        'adaptive', rec.adaptive,
+        'maxPollInterval', rec.max_poll_interval,
+        'probeType', rec.probe_type,
+        'probePort', rec.probe_port
+    )::text);
+
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS ips_notify_update ON ips;
+CREATE TRIGGER ips_notify_update
+    AFTER UPDATE OF ip, poll_interval, adaptive, max_poll_interval, probe_type, probe_port ON ips
+    FOR EACH ROW
+    WHEN (OLD.ip IS DISTINCT FROM NEW.ip
+        OR OLD.poll_interval IS DISTINCT FROM NEW.poll_interval
+        OR OLD.adaptive IS DISTINCT FROM NEW.adaptive
+        OR OLD.max_poll_interval IS DISTINCT FROM NEW.max_poll_interval
+        OR OLD.probe_type IS DISTINCT FROM NEW.probe_type
+        OR OLD.probe_port IS DISTINCT FROM NEW.probe_port)
+    EXECUTE FUNCTION notify_ips_changed();
+
+-- =====================================================
+-- Verification Queries
+-- =====================================================
+
+-- Check a web server by TCP port 443 instead of ICMP
+-- UPDATE ips SET probe_type = 'tcp', probe_port = 443 WHERE id = 1;
+
+-- Probe type per IP
+-- SELECT id, ip, probe_type, probe_port, latest_ping_success, latest_avg_rtt
+-- FROM ips_with_status ORDER BY id;
@@ -1,3 +1,3 @@
 #!/bin/bash
 CLASSPATH=$(./mvnw dependency:build-classpath -DincludeScope=runtime -Dmdep.outputFile=/dev/stdout 2>/dev/null)
-java -cp "target/classes:$CLASSPATH" com.practice.urlPoller.Main "$@"
+java --enable-preview --enable-native-access=ALL-UNNAMED -cp "target/classes:$CLASSPATH" com.practice.urlPoller.Main "$@"
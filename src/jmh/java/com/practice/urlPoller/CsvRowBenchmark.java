@@ -0,0 +1,48 @@
+package com.practice.urlPoller;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CSV rendering of one result (PingResultUtil.toCsvRow) for each result shape.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@State(Scope.Benchmark)
+public class CsvRowBenchmark
+{
+    private final PingResult up = PingResultUtil.createSuccessResult("192.168.1.1", 0.412, 0.538, 0.701, 0);
+    private final PingResult down = PingResultUtil.createUnreachableResult("192.168.1.2");
+    private final PingResult http = PingResultUtil.createHttpResult("https://example.com/health", 200, 41.7, 58.2);
+
+    @Benchmark
+    public String up()
+    {
+        return PingResultUtil.toCsvRow(up);
+    }
+
+    @Benchmark
+    public String down()
+    {
+        return PingResultUtil.toCsvRow(down);
+    }
+
+    @Benchmark
+    public String http()
+    {
+        return PingResultUtil.toCsvRow(http);
+    }
+
+}
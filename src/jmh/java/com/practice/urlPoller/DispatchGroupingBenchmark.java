@@ -0,0 +1,135 @@
+package com.practice.urlPoller;
+
+import com.practice.urlPoller.Constants.JsonFields;
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One dispatch cycle of the sharded Distributor: every target comes due on the same wheel tick,
+ * each shard expires its share from its own TimingWheel and groups it by probe type and interval
+ * (Distributor.DispatchGroups).
+ * <p>
+ * Targets are split like the Distributor does: partition = id % 256, shard = partition % shards.
+ * 10 poll intervals; 80% ICMP, 10% TCP, 10% HTTP targets.
+ * <p>
+ * - shard: one shard's cycle on its own (targets / shards targets) - per-shard dispatch cost
+ * - node: all shards at once, one thread per shard like one event loop per Distributor - the
+ *   node's cycle time; targets / score is the node's dispatch throughput
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class DispatchGroupingBenchmark
+{
+    private static final int[] INTERVALS = {5, 10, 15, 30, 60, 120, 300, 600, 1_800, 3_600};
+    private static final long START_MS = 1_700_000_000_000L;
+
+    @Param({"1", "2", "4", "8"})
+    private int shards;
+
+    @Param({"10000", "100000", "1000000"})
+    private int targets;
+
+    // Targets of each shard
+    private List<List<Distributor.ScheduledIP>> byShard;
+    private ExecutorService eventLoops;
+
+    @Setup
+    public void setup()
+    {
+        byShard = new ArrayList<>(shards);
+        for (var shard = 0; shard < shards; shard++)
+        {
+            byShard.add(new ArrayList<>(targets / shards + 1));
+        }
+        for (var i = 0; i < targets; i++)
+        {
+            var json = new JsonObject()
+                .put(JsonFields.ID, i)
+                .put(JsonFields.POLL_INTERVAL, INTERVALS[i / 10 % INTERVALS.length]);
+            switch (i % 10)
+            {
+                case 8 -> json.put(JsonFields.IP, "172." + (16 + (i >> 16 & 0xf)) + "." + (i >> 8 & 0xff) + "." + (i & 0xff))
+                    .put(JsonFields.PROBE_TYPE, TcpProbeEngine.PROBE_TYPE_TCP)
+                    .put(JsonFields.PROBE_PORT, 443);
+                case 9 -> json.put(JsonFields.IP, "https://host" + i + ".example.com/health")
+                    .put(JsonFields.PROBE_TYPE, HttpProbeEngine.PROBE_TYPE_HTTP);
+                default -> json.put(JsonFields.IP, "10." + (i >> 16 & 0xff) + "." + (i >> 8 & 0xff) + "." + (i & 0xff));
+            }
+            var partition = i % ClusterCoordinator.DEFAULT_PARTITION_COUNT;
+            byShard.get(partition % shards)
+                .add(Distributor.toScheduled(json, JsonFields.POLL_INTERVAL));
+        }
+        eventLoops = Executors.newFixedThreadPool(shards);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        eventLoops.shutdownNow();
+    }
+
+    @Benchmark
+    public Distributor.DispatchGroups shard()
+    {
+        return cycle(byShard.get(0));
+    }
+
+    @Benchmark
+    public int node() throws ExecutionException, InterruptedException
+    {
+        List<Future<Distributor.DispatchGroups>> cycles = new ArrayList<>(shards);
+        for (var shardTargets : byShard)
+        {
+            cycles.add(eventLoops.submit(() -> cycle(shardTargets)));
+        }
+        var buckets = 0;
+        for (var cycle : cycles)
+        {
+            buckets += cycle.get()
+                .buckets();
+        }
+        return buckets;
+    }
+
+    /**
+     * Wheel insert, expiry on the next tick and grouping of one shard's targets.
+     */
+    private static Distributor.DispatchGroups cycle(List<Distributor.ScheduledIP> shardTargets)
+    {
+        var wheel = new TimingWheel<Distributor.ScheduledIP>(Distributor.WHEEL_TICK_MS, Distributor.WHEEL_SIZE,
+                                                             Distributor.WHEEL_LEVELS, START_MS
+        );
+        for (var scheduled : shardTargets)
+        {
+            wheel.schedule(scheduled, START_MS + 1);
+        }
+        List<Distributor.ScheduledIP> due = new ArrayList<>(shardTargets.size());
+        wheel.advance(START_MS + Distributor.WHEEL_TICK_MS, due::add);
+        return Distributor.DispatchGroups.of(due);
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.practice.urlPoller;
+
+import io.vertx.core.Vertx;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.practice.urlPoller.Constants.Event.PROCESS_RESULTS;
+
+/**
+ * Publishing probe results on the event bus up to delivery in a consumer.
+ * <p>
+ * - single: one message per result (FpingWorker.publishResult, as TCP / HTTP probes do)
+ * - batch: one ResultBatch message for all of them (FpingWorker.publish, as an fping chunk does)
+ * <p>
+ * Each invocation publishes BATCH results and waits until the consumer (on an event loop, like
+ * FileWriter's) has seen every row - publishing alone only measures the enqueue.
+ * Score is per result.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@State(Scope.Benchmark)
+public class EventBusPublishBenchmark
+{
+    private static final int BATCH = 1_000;
+
+    private Vertx vertx;
+    private PingResult[] results;
+    private volatile CountDownLatch delivered;
+
+    @Setup
+    public void setup()
+    {
+        vertx = Vertx.vertx();
+        vertx.eventBus()
+            .registerDefaultCodec(ResultBatch.class, new ResultBatch.Codec());
+        vertx.eventBus()
+            .<ResultBatch>consumer(PROCESS_RESULTS, message -> {
+                var batch = message.body();
+                for (var i = 0; i < batch.size(); i++)
+                {
+                    delivered.countDown();
+                }
+            });
+
+        results = new PingResult[BATCH];
+        for (var i = 0; i < BATCH; i++)
+        {
+            var ip = "10.0." + (i >> 8) + "." + (i & 0xff);
+            results[i] = i % 10 == 9
+                ? PingResultUtil.createUnreachableResult(ip)
+                : PingResultUtil.createSuccessResult(ip, 0.4, 0.5, 0.7, 0);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception
+    {
+        vertx.close()
+            .toCompletionStage()
+            .toCompletableFuture()
+            .get(5, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void single() throws InterruptedException
+    {
+        delivered = new CountDownLatch(BATCH);
+        for (var result : results)
+        {
+            FpingWorker.publishResult(vertx, result);
+        }
+        delivered.await();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void batch() throws InterruptedException
+    {
+        delivered = new CountDownLatch(BATCH);
+        var batch = new ResultBatch(BATCH);
+        for (var result : results)
+        {
+            batch.add(result);
+        }
+        FpingWorker.publish(vertx, batch);
+        delivered.await();
+    }
+
+}
@@ -0,0 +1,186 @@
+package com.practice.urlPoller;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * fping output parsing, by number of output lines - FpingOutputParser against the regex parser it
+ * replaced (RegexFpingParser, the regex* methods).
+ * <p>
+ * - scan: summary lines read from the process bytes, fields only (no results) - the line parsing
+ *   itself; the baseline is BufferedReader.readLine + Matcher + parseInt / parseDouble
+ * - parse: complete -q output (one summary line per target) into results, FpingParser.parse
+ * - collect: per-probe lines of a running {@code fping -c 3} read by FpingParser.Collector
+ * <p>
+ * Every 10th target is down. Run with {@code -prof gc} for the allocation rate per line.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@State(Scope.Benchmark)
+public class FpingParserBenchmark
+{
+    private static final int COUNT = 3;
+
+    @Param({"1000", "10000", "100000"})
+    private int lines;
+
+    private String summaryOutput;
+    private byte[] summaryBytes;
+    private byte[] probeOutput;
+    private List<String> targets;
+    // Targets of the per-probe output (COUNT lines each)
+    private List<String> probed;
+
+    @Setup
+    public void setup()
+    {
+        var summaries = new StringBuilder(lines * 64);
+        targets = new ArrayList<>(lines);
+        for (var i = 0; i < lines; i++)
+        {
+            var target = "10." + (i >> 16 & 0xff) + "." + (i >> 8 & 0xff) + "." + (i & 0xff);
+            targets.add(target);
+            if (i % 10 == 9)
+            {
+                summaries.append(target).append(" : xmt/rcv/%loss = 1/0/100%\n");
+            } else
+            {
+                summaries.append(target).append(" : xmt/rcv/%loss = 1/1/0%, min/avg/max = 12.3/12.3/12.3\n");
+            }
+        }
+        summaryOutput = summaries.toString();
+        summaryBytes = summaryOutput.getBytes(StandardCharsets.US_ASCII);
+
+        // About the same line count, as the per-probe lines of COUNT probes per target
+        var probes = new StringBuilder(lines * 64);
+        for (var line = 0; line < lines / COUNT * COUNT; line++)
+        {
+            var probe = line % COUNT;
+            var target = targets.get(line / COUNT);
+            if (line / COUNT % 10 == 9)
+            {
+                probes.append(target).append(" : [").append(probe).append("], timed out (NaN avg, 100% loss)\n");
+            } else
+            {
+                probes.append(target).append(" : [").append(probe).append("], 64 bytes, 12.3 ms (12.3 avg, 0% loss)\n");
+            }
+        }
+        probeOutput = probes.toString().getBytes(StandardCharsets.US_ASCII);
+        probed = targets.subList(0, lines / COUNT);
+    }
+
+    @Benchmark
+    public void scan(Blackhole blackhole) throws IOException
+    {
+        var output = new FpingOutputParser(new ByteArrayInputStream(summaryBytes), targets);
+        while (output.next())
+        {
+            if (output.kind() == FpingOutputParser.SUMMARY)
+            {
+                blackhole.consume(output.target());
+                blackhole.consume(output.received());
+                blackhole.consume(output.lossPercent());
+                if (output.hasRtt())
+                {
+                    blackhole.consume(output.minRttMs());
+                    blackhole.consume(output.avgRttMs());
+                    blackhole.consume(output.maxRttMs());
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void regexScan(Blackhole blackhole) throws IOException
+    {
+        var reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(summaryBytes),
+                                                              StandardCharsets.US_ASCII
+        ));
+        String line;
+        while ((line = reader.readLine()) != null)
+        {
+            var matcher = RegexFpingParser.FPING_PATTERN.matcher(line);
+            if (matcher.find())
+            {
+                blackhole.consume(matcher.group(1));
+                blackhole.consume(Integer.parseInt(matcher.group(3)));
+                blackhole.consume(Integer.parseInt(matcher.group(4)));
+                if (matcher.group(5) != null)
+                {
+                    blackhole.consume(Double.parseDouble(matcher.group(5)));
+                    blackhole.consume(Double.parseDouble(matcher.group(6)));
+                    blackhole.consume(Double.parseDouble(matcher.group(7)));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public Map<String, PingResult> parse()
+    {
+        return FpingParser.parse(summaryOutput);
+    }
+
+    @Benchmark
+    public Map<String, PingResult> regexParse()
+    {
+        return RegexFpingParser.parse(summaryOutput);
+    }
+
+    @Benchmark
+    public void collect(Blackhole blackhole) throws IOException
+    {
+        var output = new FpingOutputParser(new ByteArrayInputStream(probeOutput), probed);
+        var collector = new FpingParser.Collector(output, COUNT);
+        while (output.next())
+        {
+            var result = collector.accept();
+            if (result != null)
+            {
+                blackhole.consume(result);
+            }
+        }
+    }
+
+    @Benchmark
+    public void regexCollect(Blackhole blackhole) throws IOException
+    {
+        var reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(probeOutput),
+                                                              StandardCharsets.US_ASCII
+        ));
+        var collector = new RegexFpingParser.Collector(COUNT);
+        String line;
+        while ((line = reader.readLine()) != null)
+        {
+            var result = collector.accept(line);
+            if (result != null)
+            {
+                blackhole.consume(result);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,156 @@
+package com.practice.urlPoller;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Baseline for FpingParserBenchmark: the regex parser FpingParser used before FpingOutputParser.
+ * <p>
+ * Same patterns and steps as before (String per line, Matcher, group substrings, parseDouble,
+ * parallel stream for parse); results are built as PingResult like today, so a benchmark pair
+ * differs only in the parsing. RTT statistics (-Drtt.stats) are left out.
+ */
+final class RegexFpingParser
+{
+    static final Pattern FPING_PATTERN = Pattern.compile(
+        "^\\s*(\\S+)\\s+:\\s+xmt/rcv/%loss\\s+=\\s+(\\d+)/(\\d+)/(\\d+)%(?:,\\s+min/avg/max\\s+=\\s+([\\d.]+)/([\\d.]+)/([\\d.]+))?"
+    );
+    private static final Pattern REPLY_PATTERN = Pattern.compile(
+        "^\\s*(\\S+)\\s+:\\s+\\[(\\d+)],\\s+\\d+\\s+bytes,\\s+([\\d.]+)\\s+ms"
+    );
+    private static final Pattern TIMED_OUT_PATTERN = Pattern.compile(
+        "^\\s*(\\S+)\\s+:\\s+\\[(\\d+)],\\s+timed out"
+    );
+
+    private RegexFpingParser()
+    {
+    }
+
+    static Map<String, PingResult> parse(String fpingOutput)
+    {
+        return fpingOutput.lines()
+            .parallel()
+            .map(String::strip)
+            .filter(line -> !line.isEmpty())
+            .filter(line -> FPING_PATTERN.matcher(line)
+                .find())
+            .map(RegexFpingParser::parseLine)
+            .filter(Objects::nonNull)
+            .collect(ConcurrentHashMap::new, (map, result) -> map.put(result.target(), result), ConcurrentHashMap::putAll);
+    }
+
+    static PingResult parseLine(String line)
+    {
+        var matcher = FPING_PATTERN.matcher(line);
+        if (!matcher.find())
+        {
+            return null;
+        }
+        try
+        {
+            var ip = matcher.group(1);
+            var packetsReceived = Integer.parseInt(matcher.group(3));
+            var packetLoss = Integer.parseInt(matcher.group(4));
+            if (packetsReceived > 0 && matcher.group(5) != null)
+            {
+                return PingResultUtil.createSuccessResult(ip, Double.parseDouble(matcher.group(5)),
+                                                          Double.parseDouble(matcher.group(6)),
+                                                          Double.parseDouble(matcher.group(7)), packetLoss
+                );
+            }
+            return PingResultUtil.createUnreachableResult(ip);
+        } catch (NumberFormatException e)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Per-probe lines of one running {@code fping -c N}, one String per line (BufferedReader.readLine).
+     */
+    static final class Collector
+    {
+        private final int count;
+        private final Map<String, Progress> progressByIp = new HashMap<>();
+        private final Set<String> completed = new HashSet<>();
+
+        Collector(int count)
+        {
+            this.count = count;
+        }
+
+        PingResult accept(String line)
+        {
+            var reply = REPLY_PATTERN.matcher(line);
+            if (reply.find())
+            {
+                return record(reply.group(1), Double.parseDouble(reply.group(3)));
+            }
+            var timedOut = TIMED_OUT_PATTERN.matcher(line);
+            if (timedOut.find())
+            {
+                return record(timedOut.group(1), -1);
+            }
+            if (FPING_PATTERN.matcher(line)
+                .find())
+            {
+                var result = parseLine(line.strip());
+                if (result != null && completed.add(result.target()))
+                {
+                    progressByIp.remove(result.target());
+                    return result;
+                }
+            }
+            return null;
+        }
+
+        private PingResult record(String ip, double rttMs)
+        {
+            if (completed.contains(ip))
+            {
+                return null;
+            }
+            var progress = progressByIp.computeIfAbsent(ip, k -> new Progress());
+            progress.add(rttMs);
+            if (progress.outcomes < count)
+            {
+                return null;
+            }
+            progressByIp.remove(ip);
+            completed.add(ip);
+            return progress.received == 0
+                ? PingResultUtil.createUnreachableResult(ip)
+                : PingResultUtil.createSuccessResult(ip, progress.minRtt, progress.sumRtt / progress.received,
+                                                     progress.maxRtt, (count - progress.received) * 100 / count
+                );
+        }
+    }
+
+    private static final class Progress
+    {
+        private int outcomes;
+        private int received;
+        private double minRtt = Double.MAX_VALUE;
+        private double maxRtt;
+        private double sumRtt;
+
+        private void add(double rttMs)
+        {
+            outcomes++;
+            if (rttMs < 0)
+            {
+                return;
+            }
+            received++;
+            minRtt = Math.min(minRtt, rttMs);
+            maxRtt = Math.max(maxRtt, rttMs);
+            sumRtt += rttMs;
+        }
+    }
+
+}
@@ -0,0 +1,57 @@
+package com.practice.urlPoller;
+
+/**
+ * Picks the number of targets per fping process from measured chunk durations.
+ * <p>
+ * Feedback loop (AIMD-style):
+ * - chunk ran longer than the target duration or timed out: shrink by 25%
+ * - full-size chunk finished well below the target duration: grow by 25%
+ * <p>
+ * The target duration stays below the worker's process timeout, so a large interval
+ * group ends up as several bounded processes instead of one that gets killed.
+ * <p>
+ * Thread-safe - chunks complete concurrently on the fping worker pool.
+ */
+public class ChunkSizer
+{
+    private final int minSize;
+    private final int maxSize;
+    private final long targetDurationMs;
+    private int chunkSize;
+
+    public ChunkSizer(int initialSize, int minSize, int maxSize, long targetDurationMs)
+    {
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.targetDurationMs = targetDurationMs;
+        this.chunkSize = Math.max(minSize, Math.min(initialSize, maxSize));
+    }
+
+    /**
+     * @return current number of targets per chunk
+     */
+    public synchronized int chunkSize()
+    {
+        return chunkSize;
+    }
+
+    /**
+     * Feed back the outcome of one chunk.
+     *
+     * @param size       number of targets in the chunk
+     * @param durationMs wall time of the fping process
+     * @param timedOut   true if the process was killed at the timeout
+     */
+    public synchronized void record(int size, long durationMs, boolean timedOut)
+    {
+        if (timedOut || durationMs > targetDurationMs)
+        {
+            chunkSize = Math.max(minSize, Math.min(chunkSize, size) * 3 / 4);
+        } else if (size >= chunkSize && durationMs < targetDurationMs * 3 / 4)
+        {
+            // Only full chunks say anything about whether a bigger one would still fit
+            chunkSize = Math.min(maxSize, Math.max(chunkSize + 1, chunkSize * 5 / 4));
+        }
+    }
+
+}
@@ -0,0 +1,201 @@
+package com.practice.urlPoller;
+
+import com.practice.urlPoller.DB.PostgresClient;
+import io.vertx.core.Future;
+import io.vertx.core.VerticleBase;
+import io.vertx.core.json.JsonArray;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static com.practice.urlPoller.Constants.Event.PARTITIONS_CHANGED;
+import static com.practice.urlPoller.Constants.Event.PARTITIONS_GET;
+
+/**
+ * Lease-based partition ownership for running several urlPoller JVMs against one database.
+ * <p>
+ * Every heartbeat (default 3s) this node:
+ * 1. Refreshes its row in poller_nodes
+ * 2. Renews the leases it holds in poller_partitions
+ * 3. Computes its fair share: ceil(partitions / live nodes)
+ * 4. Releases excess partitions (a node joined) or claims free / expired ones
+ *    (a node left or died) with FOR UPDATE SKIP LOCKED
+ * 5. Publishes PARTITIONS_CHANGED to the local Distributor shards if the set changed
+ * <p>
+ * If the database cannot be reached for a full lease TTL, all partitions are dropped
+ * locally - another node may legitimately own them by then.
+ */
+public class ClusterCoordinator extends VerticleBase
+{
+    public static final String CLUSTER_ENABLED = "cluster.enabled";
+    public static final String CLUSTER_NODE_ID = "cluster.node.id";
+    public static final String CLUSTER_PARTITIONS = "cluster.partitions";
+    public static final int DEFAULT_PARTITION_COUNT = 256;
+    private static final Logger logger = LoggerFactory.getLogger(ClusterCoordinator.class);
+    private static final long HEARTBEAT_INTERVAL_MS = 3_000;
+    private static final long LEASE_TTL_MS = 10_000;
+    private final String nodeId;
+    private final int partitionCount;
+    private Set<Integer> owned = new TreeSet<>();
+    private long lastRenewMs;
+    private boolean heartbeatRunning;
+    private PostgresClient dbClient;
+
+    public ClusterCoordinator(String nodeId, int partitionCount)
+    {
+        this.nodeId = nodeId;
+        this.partitionCount = partitionCount;
+    }
+
+    /**
+     * Default node id: hostname + pid, unique per JVM on one machine.
+     */
+    public static String defaultNodeId()
+    {
+        String host;
+        try
+        {
+            host = java.net.InetAddress.getLocalHost()
+                .getHostName();
+        } catch (java.net.UnknownHostException e)
+        {
+            host = "localhost";
+        }
+        return host + "-" + ProcessHandle.current()
+            .pid();
+    }
+
+    @Override
+    public Future<?> start()
+    {
+        logger.info("Starting ClusterCoordinator: node={}, partitions={}, leaseTtl={}ms",
+                    nodeId, partitionCount, LEASE_TTL_MS
+        );
+
+        dbClient = new PostgresClient(vertx);
+        lastRenewMs = System.currentTimeMillis();
+
+        // Distributor shards ask for the current assignment when they start
+        vertx.eventBus()
+            .<Void>localConsumer(PARTITIONS_GET, msg -> msg.reply(toJson(owned)));
+
+        Metrics.gauge("cluster.partitions.owned", () -> owned.size());
+
+        vertx.setPeriodic(HEARTBEAT_INTERVAL_MS, id -> heartbeat());
+
+        return dbClient.ensurePartitions(partitionCount)
+            .compose(v -> dbClient.heartbeat(nodeId))
+            .onSuccess(v -> heartbeat())
+            .recover(err -> {
+                // Keep running - heartbeats retry until the database is reachable
+                logger.error("Initial cluster registration failed, retrying on next heartbeat", err);
+                return Future.succeededFuture();
+            });
+    }
+
+    @Override
+    public Future<?> stop()
+    {
+        logger.info("Releasing {} partitions for node={}", owned.size(), nodeId);
+        return dbClient.releasePartitions(nodeId, owned)
+            .compose(v -> dbClient.removeNode(nodeId))
+            .recover(err -> Future.succeededFuture());
+    }
+
+    /**
+     * One membership / rebalance round. Skipped if the previous round is still running.
+     */
+    private void heartbeat()
+    {
+        if (heartbeatRunning)
+        {
+            return;
+        }
+        heartbeatRunning = true;
+
+        dbClient.heartbeat(nodeId)
+            .compose(v -> dbClient.renewLeases(nodeId, LEASE_TTL_MS))
+            .compose(renewed -> {
+                lastRenewMs = System.currentTimeMillis();
+                var held = new TreeSet<>(renewed);
+                return dbClient.countLiveNodes(LEASE_TTL_MS)
+                    .compose(live -> rebalance(held, Math.max(1, live)));
+            })
+            .onSuccess(this::updateOwned)
+            .onFailure(err -> {
+                logger.error("Cluster heartbeat failed: node={}", nodeId, err);
+                if (!owned.isEmpty() && System.currentTimeMillis() - lastRenewMs >= LEASE_TTL_MS)
+                {
+                    logger.warn("Leases expired without renewal, dropping {} partitions", owned.size());
+                    updateOwned(new TreeSet<>());
+                }
+            })
+            .onComplete(ar -> heartbeatRunning = false);
+    }
+
+    /**
+     * Move towards a fair share of ceil(partitions / live nodes).
+     */
+    private Future<Set<Integer>> rebalance(TreeSet<Integer> held, int liveNodes)
+    {
+        var fairShare = (partitionCount + liveNodes - 1) / liveNodes;
+
+        if (held.size() > fairShare)
+        {
+            // A node joined - hand back the highest partitions
+            List<Integer> excess = new ArrayList<>();
+            var iterator = held.descendingIterator();
+            while (held.size() - excess.size() > fairShare && iterator.hasNext())
+            {
+                excess.add(iterator.next());
+            }
+            excess.forEach(held::remove);
+            logger.info("Rebalance: releasing {} partitions (live nodes={}, fair share={})",
+                        excess.size(), liveNodes, fairShare
+            );
+            // Stop polling them locally before another node can claim them
+            updateOwned(held);
+            return dbClient.releasePartitions(nodeId, excess)
+                .map(v -> held);
+        }
+
+        if (held.size() < fairShare)
+        {
+            return dbClient.claimPartitions(nodeId, fairShare - held.size(), LEASE_TTL_MS)
+                .map(claimed -> {
+                    if (!claimed.isEmpty())
+                    {
+                        logger.info("Rebalance: claimed {} partitions (live nodes={}, fair share={})",
+                                    claimed.size(), liveNodes, fairShare
+                        );
+                    }
+                    held.addAll(claimed);
+                    return held;
+                });
+        }
+
+        return Future.succeededFuture(held);
+    }
+
+    private void updateOwned(Set<Integer> partitions)
+    {
+        if (partitions.equals(owned))
+        {
+            return;
+        }
+        owned = new TreeSet<>(partitions);
+        logger.info("Partition assignment changed: node={}, owned={}", nodeId, owned.size());
+        vertx.eventBus()
+            .publish(PARTITIONS_CHANGED, toJson(owned));
+    }
+
+    private static JsonArray toJson(Set<Integer> partitions)
+    {
+        return new JsonArray(new ArrayList<>(partitions));
+    }
+
+}
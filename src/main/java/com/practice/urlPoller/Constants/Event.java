@@ -3,12 +3,21 @@ package com.practice.urlPoller.Constants;
 public class Event
 {
 
-    public static final String PROCESS_SUCCEEDED = "process.succeeded";
-    public static final String PROCESS_FAILED = "process.failed";
+    // Probe results, one ResultBatch per message
+    public static final String PROCESS_RESULTS = "process.results";
+    // Segment log storage: target name -> CSV history of the target (SegmentLogWriter)
+    public static final String STATS_EXPORT = "stats.export";
 
     // API Event Constants (for database operations)
     public static final String IP_ADDED = "ip.added";
     public static final String IP_UPDATED = "ip.updated";
     public static final String IP_DELETED = "ip.deleted";
+    // Row changes from Postgres LISTEN/NOTIFY (any source), and resync after reconnect
+    public static final String IP_CHANGED = "ip.changed";
+    public static final String IP_RESYNC = "ip.resync";
+
+    // Cluster Event Constants (partition leases, see ClusterCoordinator)
+    public static final String PARTITIONS_CHANGED = "cluster.partitions.changed";
+    public static final String PARTITIONS_GET = "cluster.partitions.get";
 
 }
@@ -4,9 +4,11 @@ public class JsonFields
 {
 
   public static final String DATA = "data";
-  public static final String FILE_NAME = "file.name";
-  public static final String EXIT_CODE = "exit.code";
   public static final String POLL_INTERVAL = "poll.interval";
+  public static final String ADAPTIVE = "adaptive";
+  public static final String MAX_POLL_INTERVAL = "maxPollInterval";
+  public static final String PROBE_TYPE = "probeType";
+  public static final String PROBE_PORT = "probePort";
     public static final String IP = "ip";
     public static final String STATUS = "status";
     public static final String MESSAGE = "message";
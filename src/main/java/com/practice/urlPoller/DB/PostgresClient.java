@@ -1,23 +1,34 @@
 package com.practice.urlPoller.DB;
 
 import io.vertx.core.Future;
+import io.vertx.core.Handler;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonObject;
 import io.vertx.pgclient.PgBuilder;
 import io.vertx.pgclient.PgConnectOptions;
 import io.vertx.pgclient.impl.PgPoolOptions;
+import io.vertx.pgclient.pubsub.PgSubscriber;
 import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.RowSet;
 import io.vertx.sqlclient.SqlClient;
 import io.vertx.sqlclient.Tuple;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
 import com.practice.urlPoller.Constants.JsonFields;
+import com.practice.urlPoller.PingResult;
+import com.practice.urlPoller.RttStats;
 
 public class PostgresClient
 {
@@ -26,17 +37,15 @@ public class PostgresClient
     public static final String LOCALHOST = "localhost";
     public static final String POSTGRES = "postgres";
     public static final String POSTGRES_PASS = "postgres";
+    public static final String IPS_CHANGED_CHANNEL = "ips_changed";
+    private static final long LISTEN_RETRY_DELAY_MS = 1_000;
     private static final Logger LOG = LoggerFactory.getLogger(PostgresClient.class);
     private final SqlClient client;
 
     public PostgresClient(Vertx vertx)
     {
         this.client = PgBuilder.client()
-            .connectingTo(new PgConnectOptions().setPort(5432)
-                              .setHost(LOCALHOST)
-                              .setDatabase(POSTGRES)
-                              .setUser(POSTGRES)
-                              .setPassword(POSTGRES_PASS))
+            .connectingTo(connectOptions())
             .with(new PgPoolOptions().setName(DB_NAME)
                       .setMaxSize(2))
             .using(vertx)
@@ -51,23 +60,85 @@ public class PostgresClient
             .onFailure(err -> LOG.error("PostgreSQL connection failed", err));
     }
 
+    private static PgConnectOptions connectOptions()
+    {
+        return new PgConnectOptions().setPort(5432)
+            .setHost(LOCALHOST)
+            .setDatabase(POSTGRES)
+            .setUser(POSTGRES)
+            .setPassword(POSTGRES_PASS);
+    }
+
+    /**
+     * LISTEN on the ips_changed channel (see add_ips_notify_trigger.sql) on a dedicated connection.
+     * Reconnects forever; {@code onResubscribe} runs after every reconnect because notifications
+     * sent while disconnected are lost.
+     *
+     * @param vertx         Vert.x instance
+     * @param onChange      receives each notification payload as JsonObject (op, id, ip, pollInterval)
+     * @param onResubscribe called when LISTEN is re-established after a connection loss
+     * @return the subscriber (close it on shutdown)
+     */
+    public static PgSubscriber listenForIPChanges(Vertx vertx, Handler<JsonObject> onChange, Runnable onResubscribe)
+    {
+        var subscriber = PgSubscriber.subscriber(vertx, connectOptions())
+            .reconnectPolicy(retries -> LISTEN_RETRY_DELAY_MS);
+        var subscriptions = new AtomicInteger();
+
+        subscriber.channel(IPS_CHANGED_CHANNEL)
+            .subscribeHandler(v -> {
+                LOG.info("LISTEN {} established", IPS_CHANGED_CHANNEL);
+                if (subscriptions.getAndIncrement() > 0)
+                {
+                    onResubscribe.run();
+                }
+            })
+            .handler(payload -> {
+                try
+                {
+                    onChange.handle(new JsonObject(payload));
+                } catch (RuntimeException e)
+                {
+                    LOG.warn("Ignoring malformed {} payload: {}", IPS_CHANGED_CHANNEL, payload);
+                }
+            });
+
+        connectSubscriber(vertx, subscriber);
+        return subscriber;
+    }
+
+    private static void connectSubscriber(Vertx vertx, PgSubscriber subscriber)
+    {
+        subscriber.connect()
+            .onFailure(err -> {
+                LOG.warn("LISTEN connection failed, retrying in {}ms: {}", LISTEN_RETRY_DELAY_MS, err.getMessage());
+                vertx.setTimer(LISTEN_RETRY_DELAY_MS, id -> connectSubscriber(vertx, subscriber));
+            });
+    }
+
     /**
      * Add a new IP with timestamp-based polling
      *
-     * @param ip           IP address
-     * @param pollInterval Polling interval in seconds
-     * @return Future with JsonObject containing id, ip, pollInterval
+     * @param ip              IP address
+     * @param pollInterval    Polling interval in seconds (minimum interval in adaptive mode)
+     * @param adaptive        let the effective interval stretch for stable IPs (see add_adaptive_polling.sql)
+     * @param maxPollInterval upper bound of the effective interval in seconds, null for the default
+     * @param probeType       "icmp" or "tcp" (see add_tcp_probes.sql)
+     * @param probePort       TCP port for "tcp" probes, null otherwise
+     * @return Future with JsonObject containing id, ip, pollInterval, adaptive, maxPollInterval, probeType, probePort
      */
-    public Future<JsonObject> addIP(String ip, int pollInterval)
+    public Future<JsonObject> addIP(String ip, int pollInterval, boolean adaptive, Integer maxPollInterval,
+                                    String probeType, Integer probePort)
     {
-        LOG.debug("Adding IP: ip={}, pollInterval={}s", ip, pollInterval);
+        LOG.debug("Adding IP: ip={}, pollInterval={}s, adaptive={}, probe={}", ip, pollInterval, adaptive, probeType);
 
-        var sql = "INSERT INTO ips (ip, poll_interval, next_poll_time) " +
-            "VALUES ($1, $2, NOW() + ($3 || ' seconds')::INTERVAL) " +
+        // Due immediately - the first poll should not wait a whole interval
+        var sql = "INSERT INTO ips (ip, poll_interval, adaptive, max_poll_interval, probe_type, probe_port, next_poll_time) " +
+            "VALUES ($1, $2, $3, $4, $5, $6, NOW()) " +
             "RETURNING id";
 
         return client.preparedQuery(sql)
-            .execute(Tuple.of(ip, pollInterval, String.valueOf(pollInterval)))
+            .execute(Tuple.of(ip, pollInterval, adaptive, maxPollInterval, probeType, probePort))
             .map(rows -> {
                 int id = rows.iterator()
                     .next()
@@ -76,7 +147,11 @@ public class PostgresClient
                 return new JsonObject()
                     .put(JsonFields.ID, id)
                     .put(JsonFields.IP, ip)
-                    .put(JsonFields.POLL_INTERVAL, pollInterval);
+                    .put(JsonFields.POLL_INTERVAL, pollInterval)
+                    .put(JsonFields.ADAPTIVE, adaptive)
+                    .put(JsonFields.MAX_POLL_INTERVAL, maxPollInterval)
+                    .put(JsonFields.PROBE_TYPE, probeType)
+                    .put(JsonFields.PROBE_PORT, probePort);
             })
             .onFailure(err -> LOG.error("Failed to add IP: {}", ip, err));
     }
@@ -155,6 +230,81 @@ public class PostgresClient
             .onFailure(err -> LOG.error("Failed to get IPs due for poll", err));
     }
 
+    /**
+     * Load every IP of a set of partitions for the in-memory scheduler
+     * (once at startup, and again whenever a partition is acquired)
+     * <p>
+     * The remaining delay is computed by PostgreSQL so the result does not depend
+     * on the DB session timezone or clock skew between the DB host and this JVM.
+     *
+     * @param partitionCount total number of partitions; an IP belongs to partition id % partitionCount
+     * @param partitions     partitions to load
+     * @return Future with list of JsonObjects with "id", "ip", "pollInterval", "adaptive", "maxPollInterval",
+     * "effectiveInterval", "probeType", "probePort" and "dueInMs" (negative if overdue)
+     */
+    public Future<List<JsonObject>> getAllIPsForScheduling(int partitionCount, Collection<Integer> partitions)
+    {
+        if (partitions.isEmpty())
+        {
+            return Future.succeededFuture(List.of());
+        }
+
+        var sql = "SELECT id, ip, poll_interval, adaptive, max_poll_interval, effective_interval, probe_type, probe_port, " +
+            "(EXTRACT(EPOCH FROM (next_poll_time - NOW())) * 1000)::BIGINT AS due_in_ms " +
+            "FROM ips WHERE MOD(id, $1) = ANY($2)";
+
+        return client.preparedQuery(sql)
+            .execute(Tuple.tuple()
+                         .addInteger(partitionCount)
+                         .addArrayOfInteger(partitions.toArray(new Integer[0])))
+            .map(rows -> StreamSupport.stream(rows.spliterator(), false)
+                .map(row -> new JsonObject()
+                    .put("id", row.getInteger("id"))
+                    .put("ip", row.getString("ip"))
+                    .put("pollInterval", row.getInteger("poll_interval"))
+                    .put("adaptive", row.getBoolean("adaptive"))
+                    .put("maxPollInterval", row.getInteger("max_poll_interval"))
+                    .put("effectiveInterval", row.getInteger("effective_interval"))
+                    .put("probeType", row.getString("probe_type"))
+                    .put("probePort", row.getInteger("probe_port"))
+                    .put("dueInMs", row.getLong("due_in_ms")))
+                .collect(Collectors.toList()))
+            .onSuccess(ips -> LOG.debug("Loaded {} IPs for scheduling", ips.size()))
+            .onFailure(err -> LOG.error("Failed to load IPs for scheduling", err));
+    }
+
+    /**
+     * Write-behind persistence of the in-memory schedule
+     * Sets next_poll_time = NOW() + delay and the effective interval for each IP in a single batch.
+     *
+     * @param entries List of JsonObjects with "id", "dueInMs" (milliseconds until the next poll)
+     *                and "effectiveInterval" (seconds)
+     * @return Future<Void>
+     */
+    public Future<Void> batchPersistNextPollTimes(List<JsonObject> entries)
+    {
+        if (entries.isEmpty())
+        {
+            return Future.succeededFuture();
+        }
+
+        var sql = "UPDATE ips " +
+            "SET next_poll_time = NOW() + ($1 || ' milliseconds')::INTERVAL, effective_interval = $2 " +
+            "WHERE id = $3";
+
+        var batch = entries.stream()
+            .map(entry -> Tuple.of(String.valueOf(entry.getLong("dueInMs")), entry.getInteger("effectiveInterval"),
+                                   entry.getInteger("id")
+            ))
+            .collect(Collectors.toList());
+
+        return client.preparedQuery(sql)
+            .executeBatch(batch)
+            .<Void>mapEmpty()
+            .onSuccess(v -> LOG.debug("Persisted next_poll_time for {} IPs", entries.size()))
+            .onFailure(err -> LOG.error("Failed to persist next_poll_time for {} IPs", entries.size(), err));
+    }
+
     /**
      * Batch update next_poll_time for multiple IPs (high performance)
      *
@@ -195,26 +345,37 @@ public class PostgresClient
     }
 
     /**
-     * Update an IP's details (IP address and/or poll interval)
+     * Update an IP's details (IP address, poll interval, adaptive and probe settings).
+     * The effective interval is reset to the new poll interval.
      *
-     * @param id           IP record ID
-     * @param ip           New IP address
-     * @param pollInterval New polling interval in seconds
-     * @return Future with JsonObject containing updated id, ip, pollInterval
+     * @param id              IP record ID
+     * @param ip              New IP address
+     * @param pollInterval    New polling interval in seconds
+     * @param adaptive        let the effective interval stretch for stable IPs
+     * @param maxPollInterval upper bound of the effective interval in seconds, null for the default
+     * @param probeType       "icmp" or "tcp"
+     * @param probePort       TCP port for "tcp" probes, null otherwise
+     * @return Future with JsonObject containing updated id, ip, pollInterval, adaptive, maxPollInterval, probeType,
+     * probePort
      */
-    public Future<JsonObject> updateIP(int id, String ip, int pollInterval)
+    public Future<JsonObject> updateIP(int id, String ip, int pollInterval, boolean adaptive, Integer maxPollInterval,
+                                       String probeType, Integer probePort)
     {
-        LOG.debug("Updating IP: id={}, ip={}, pollInterval={}s", id, ip, pollInterval);
+        LOG.debug("Updating IP: id={}, ip={}, pollInterval={}s, adaptive={}", id, ip, pollInterval, adaptive);
 
         Promise<JsonObject> promise = Promise.promise();
         var sql = "UPDATE ips " +
             "SET ip = $1, poll_interval = $2, " +
-            "next_poll_time = NOW() + ($3 || ' seconds')::INTERVAL " +
+            "next_poll_time = NOW() + ($3 || ' seconds')::INTERVAL, " +
+            "adaptive = $5, max_poll_interval = $6, effective_interval = NULL, " +
+            "probe_type = $7, probe_port = $8 " +
             "WHERE id = $4 " +
-            "RETURNING id, ip, poll_interval";
+            "RETURNING id, ip, poll_interval, adaptive, max_poll_interval, probe_type, probe_port";
 
         client.preparedQuery(sql)
-            .execute(Tuple.of(ip, pollInterval, String.valueOf(pollInterval), id))
+            .execute(Tuple.of(ip, pollInterval, String.valueOf(pollInterval), id, adaptive, maxPollInterval, probeType,
+                              probePort
+            ))
             .onComplete(ar -> {
                 if (ar.succeeded())
                 {
@@ -222,7 +383,11 @@ public class PostgresClient
                     var data = new JsonObject()
                         .put(JsonFields.ID, row.getInteger("id"))
                         .put(JsonFields.IP, row.getString("ip"))
-                        .put(JsonFields.POLL_INTERVAL, row.getInteger("poll_interval"));
+                        .put(JsonFields.POLL_INTERVAL, row.getInteger("poll_interval"))
+                        .put(JsonFields.ADAPTIVE, row.getBoolean("adaptive"))
+                        .put(JsonFields.MAX_POLL_INTERVAL, row.getInteger("max_poll_interval"))
+                        .put(JsonFields.PROBE_TYPE, row.getString("probe_type"))
+                        .put(JsonFields.PROBE_PORT, row.getInteger("probe_port"));
                     LOG.info("IP updated: id={}, ip={}, pollInterval={}s", id, ip, pollInterval);
                     promise.complete(data);
                 } else
@@ -287,6 +452,11 @@ public class PostgresClient
             .put("id", row.getInteger("id"))
             .put("ip", row.getString("ip"))
             .put("pollInterval", row.getInteger("poll_interval"))
+            .put("adaptive", row.getBoolean("adaptive"))
+            .put("maxPollInterval", row.getInteger("max_poll_interval"))
+            .put("effectiveInterval", row.getInteger("effective_interval") != null ? row.getInteger("effective_interval") : row.getInteger("poll_interval"))
+            .put("probeType", row.getString("probe_type"))
+            .put("probePort", row.getInteger("probe_port"))
             .put("nextPollTime", row.getLocalDateTime("next_poll_time")
                 .toString()
             )
@@ -310,6 +480,11 @@ public class PostgresClient
             .put("id", row.getInteger("id"))
             .put("ip", row.getString("ip"))
             .put("pollInterval", row.getInteger("poll_interval"))
+            .put("adaptive", row.getBoolean("adaptive"))
+            .put("maxPollInterval", row.getInteger("max_poll_interval"))
+            .put("effectiveInterval", row.getInteger("effective_interval") != null ? row.getInteger("effective_interval") : row.getInteger("poll_interval"))
+            .put("probeType", row.getString("probe_type"))
+            .put("probePort", row.getInteger("probe_port"))
             .put("nextPollTime", row.getLocalDateTime("next_poll_time")
                 .toString()
             )
@@ -324,7 +499,12 @@ public class PostgresClient
             .put("latestAvgRtt", row.getDouble("latest_avg_rtt") != null ? row.getDouble("latest_avg_rtt") : -1.0)
             .put("latestPingedAt", row.getLocalDateTime("latest_pinged_at")
                 .toString()
-            );
+            )
+            // NULL unless the latest result carried RTT stats (add_rtt_stats.sql)
+            .put("latestJitter", row.getDouble("latest_jitter"))
+            .put("latestP50Rtt", row.getDouble("latest_p50_rtt"))
+            .put("latestP95Rtt", row.getDouble("latest_p95_rtt"))
+            .put("latestP99Rtt", row.getDouble("latest_p99_rtt"));
     }
 
     // =====================================================
@@ -377,29 +557,244 @@ public class PostgresClient
      * Store ping result for an IP
      *
      * @param ipId IP record ID
-     * @param ipAddress IP address string
-     * @param pingResult JsonObject containing ping result data
+     * @param pingResult ping result; its target is stored as ip_address
      * @return Future<Void>
      */
-    public Future<Void> storePingResult(int ipId, String ipAddress, JsonObject pingResult)
+    public Future<Void> storePingResult(int ipId, PingResult pingResult)
     {
-        LOG.debug("Storing ping result: ipId={}, success={}", ipId, pingResult.getBoolean("isSuccess", false));
-
-        var sql = "INSERT INTO ping_results (ip_id, ip_address, is_success, packet_loss, min_rtt, avg_rtt, max_rtt) " +
-            "VALUES ($1, $2, $3, $4, $5, $6, $7)";
-
-        var isSuccess = pingResult.getBoolean("isSuccess", false);
-        var packetLoss = pingResult.getInteger("packetLoss", 100);
-        var minRtt = pingResult.getDouble("minRtt", -1.0);
-        var avgRtt = pingResult.getDouble("avgRtt", -1.0);
-        var maxRtt = pingResult.getDouble("maxRtt", -1.0);
+        LOG.debug("Storing ping result: ipId={}, status={}", ipId, pingResult.status());
+
+        var sql = "INSERT INTO ping_results (ip_id, ip_address, is_success, packet_loss, min_rtt, avg_rtt, max_rtt, " +
+            "jitter, p50_rtt, p95_rtt, p99_rtt) " +
+            "VALUES ($1, $2, $3, $4, $5, $6, $7, $8, $9, $10, $11)";
+
+        var tuple = Tuple.tuple()
+            .addInteger(ipId)
+            .addString(pingResult.target())
+            .addBoolean(pingResult.isUp())
+            .addInteger(pingResult.packetLoss())
+            .addDouble(pingResult.minRtt())
+            .addDouble(pingResult.avgRtt())
+            .addDouble(pingResult.maxRtt());
+        if (pingResult.hasRttStats())
+        {
+            var sorted = RttStats.sortedReceived(pingResult.rtts());
+            tuple.addDouble(pingResult.jitterMs())
+                .addDouble(RttStats.percentile(sorted, 50))
+                .addDouble(RttStats.percentile(sorted, 95))
+                .addDouble(RttStats.percentile(sorted, 99));
+        } else
+        {
+            // Without -Drtt.stats=true or without a reply -> NULL
+            tuple.addDouble(null)
+                .addDouble(null)
+                .addDouble(null)
+                .addDouble(null);
+        }
 
         return client.preparedQuery(sql)
-            .execute(Tuple.of(ipId, ipAddress, isSuccess, packetLoss, minRtt, avgRtt, maxRtt))
+            .execute(tuple)
             .mapEmpty()
-            .onSuccess(v -> LOG.debug("Ping result stored: ipId={}, success={}", ipId, isSuccess))
+            .onSuccess(v -> LOG.debug("Ping result stored: ipId={}, status={}", ipId, pingResult.status()))
             .onFailure(err -> LOG.error("Failed to store ping result: ipId={}", ipId, err))
             .mapEmpty();
     }
 
+    // =====================================================
+    // CLUSTER Operations (see add_cluster_leases.sql)
+    // =====================================================
+
+    /**
+     * Make sure one poller_partitions row exists per partition (idempotent)
+     *
+     * @param partitionCount total number of partitions
+     * @return Future<Void>
+     */
+    public Future<Void> ensurePartitions(int partitionCount)
+    {
+        var sql = "INSERT INTO poller_partitions (partition_id) " +
+            "SELECT generate_series(0, $1 - 1) " +
+            "ON CONFLICT (partition_id) DO NOTHING";
+
+        return client.preparedQuery(sql)
+            .execute(Tuple.of(partitionCount))
+            .<Void>mapEmpty()
+            .onFailure(err -> LOG.error("Failed to create {} partitions", partitionCount, err));
+    }
+
+    /**
+     * Register / refresh this node's heartbeat
+     *
+     * @param nodeId unique node identifier
+     * @return Future<Void>
+     */
+    public Future<Void> heartbeat(String nodeId)
+    {
+        var sql = "INSERT INTO poller_nodes (node_id) VALUES ($1) " +
+            "ON CONFLICT (node_id) DO UPDATE SET heartbeat_at = NOW()";
+
+        return client.preparedQuery(sql)
+            .execute(Tuple.of(nodeId))
+            .<Void>mapEmpty()
+            .onFailure(err -> LOG.error("Heartbeat failed: node={}", nodeId, err));
+    }
+
+    /**
+     * Count nodes whose heartbeat is younger than the lease TTL
+     *
+     * @param leaseTtlMs lease time-to-live in milliseconds
+     * @return Future with number of live nodes
+     */
+    public Future<Integer> countLiveNodes(long leaseTtlMs)
+    {
+        var sql = "SELECT COUNT(*) AS live FROM poller_nodes " +
+            "WHERE heartbeat_at > NOW() - ($1 || ' milliseconds')::INTERVAL";
+
+        return client.preparedQuery(sql)
+            .execute(Tuple.of(String.valueOf(leaseTtlMs)))
+            .map(rows -> rows.iterator()
+                .next()
+                .getLong("live")
+                .intValue());
+    }
+
+    /**
+     * Extend every lease this node currently holds
+     *
+     * @param nodeId     unique node identifier
+     * @param leaseTtlMs new lease duration from NOW()
+     * @return Future with the partitions still held by this node
+     */
+    public Future<List<Integer>> renewLeases(String nodeId, long leaseTtlMs)
+    {
+        var sql = "UPDATE poller_partitions " +
+            "SET lease_expires_at = NOW() + ($2 || ' milliseconds')::INTERVAL " +
+            "WHERE owner_node = $1 AND lease_expires_at > NOW() " +
+            "RETURNING partition_id";
+
+        return client.preparedQuery(sql)
+            .execute(Tuple.of(nodeId, String.valueOf(leaseTtlMs)))
+            .map(this::partitionIds);
+    }
+
+    /**
+     * Claim up to {@code limit} unowned or expired partitions.
+     * SKIP LOCKED lets several nodes claim concurrently without blocking or double-claiming.
+     *
+     * @return Future with the newly claimed partitions
+     */
+    public Future<List<Integer>> claimPartitions(String nodeId, int limit, long leaseTtlMs)
+    {
+        var sql = "UPDATE poller_partitions " +
+            "SET owner_node = $1, lease_expires_at = NOW() + ($3 || ' milliseconds')::INTERVAL " +
+            "WHERE partition_id IN (" +
+            "  SELECT partition_id FROM poller_partitions " +
+            "  WHERE owner_node IS NULL OR lease_expires_at <= NOW() " +
+            "  ORDER BY partition_id LIMIT $2 " +
+            "  FOR UPDATE SKIP LOCKED" +
+            ") RETURNING partition_id";
+
+        return client.preparedQuery(sql)
+            .execute(Tuple.of(nodeId, limit, String.valueOf(leaseTtlMs)))
+            .map(this::partitionIds);
+    }
+
+    /**
+     * Give up leases so other nodes can claim them (rebalance / shutdown)
+     *
+     * @return Future<Void>
+     */
+    public Future<Void> releasePartitions(String nodeId, Collection<Integer> partitions)
+    {
+        if (partitions.isEmpty())
+        {
+            return Future.succeededFuture();
+        }
+
+        var sql = "UPDATE poller_partitions SET owner_node = NULL, lease_expires_at = NOW() " +
+            "WHERE owner_node = $1 AND partition_id = ANY($2)";
+
+        return client.preparedQuery(sql)
+            .execute(Tuple.tuple()
+                         .addString(nodeId)
+                         .addArrayOfInteger(partitions.toArray(new Integer[0])))
+            .<Void>mapEmpty()
+            .onFailure(err -> LOG.error("Failed to release partitions {} for node={}", partitions, nodeId, err));
+    }
+
+    /**
+     * Remove a node from the membership table (graceful shutdown)
+     *
+     * @return Future<Void>
+     */
+    public Future<Void> removeNode(String nodeId)
+    {
+        return client.preparedQuery("DELETE FROM poller_nodes WHERE node_id = $1")
+            .execute(Tuple.of(nodeId))
+            .mapEmpty();
+    }
+
+    /**
+     * Atomically claim due IPs for dispatch on this node.
+     * <p>
+     * A row is only returned if its partition lease is held by this node and not expired,
+     * and if it was last claimed at least half an interval ago (last claim = next_poll_time -
+     * stored effective interval, which tolerates phase-spread deadlines and adaptive intervals
+     * snapping back). FOR UPDATE SKIP LOCKED plus advancing next_poll_time in the same statement
+     * guarantees a row is never handed to two nodes, even during a partition hand-over.
+     *
+     * @param intervalById   IP ids the local timing wheel considers due -> effective interval in seconds
+     * @param partitionCount total number of partitions
+     * @param nodeId         this node
+     * @return Future with the subset of ids this node may ping now
+     */
+    public Future<Set<Integer>> claimDueIPs(Map<Integer, Integer> intervalById, int partitionCount, String nodeId)
+    {
+        if (intervalById.isEmpty())
+        {
+            return Future.succeededFuture(Set.of());
+        }
+
+        var sql = "WITH req AS (" +
+            "  SELECT * FROM UNNEST($1::INTEGER[], $4::INTEGER[]) AS r(id, interval_s)" +
+            "), due AS (" +
+            "  SELECT i.id, req.interval_s FROM ips i " +
+            "  JOIN req ON req.id = i.id " +
+            "  JOIN poller_partitions p ON p.partition_id = MOD(i.id, $2) " +
+            "  WHERE p.owner_node = $3 AND p.lease_expires_at > NOW() " +
+            "    AND i.next_poll_time - COALESCE(i.effective_interval, i.poll_interval) * INTERVAL '1 second' " +
+            "        <= NOW() - req.interval_s * INTERVAL '500 milliseconds' " +
+            "  FOR UPDATE OF i SKIP LOCKED" +
+            ") " +
+            "UPDATE ips SET next_poll_time = NOW() + due.interval_s * INTERVAL '1 second', " +
+            "effective_interval = due.interval_s " +
+            "FROM due WHERE ips.id = due.id " +
+            "RETURNING ips.id";
+
+        var ids = new Integer[intervalById.size()];
+        var intervals = new Integer[intervalById.size()];
+        var i = 0;
+        for (var entry : intervalById.entrySet())
+        {
+            ids[i] = entry.getKey();
+            intervals[i++] = entry.getValue();
+        }
+
+        return client.preparedQuery(sql)
+            .execute(Tuple.of(ids, partitionCount, nodeId, intervals))
+            .map(rows -> {
+                Set<Integer> claimed = new HashSet<>(rows.size());
+                rows.forEach(row -> claimed.add(row.getInteger("id")));
+                return claimed;
+            })
+            .onFailure(err -> LOG.error("Failed to claim {} due IPs for node={}", intervalById.size(), nodeId, err));
+    }
+
+    private List<Integer> partitionIds(RowSet<Row> rows)
+    {
+        var ids = new ArrayList<Integer>(rows.size());
+        rows.forEach(row -> ids.add(row.getInteger("partition_id")));
+        return ids;
+    }
+
 }
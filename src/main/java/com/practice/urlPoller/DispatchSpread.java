@@ -0,0 +1,82 @@
+package com.practice.urlPoller;
+
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Sliding-window histogram of dispatches per second, used to show how evenly
+ * probe load is spread over time.
+ * <p>
+ * A perfectly flat schedule has coefficientOfVariation = 0 and peakToMean = 1.
+ * <p>
+ * Thread-safe: written from the Distributor event loop, read from the REST API.
+ */
+public class DispatchSpread
+{
+    private final int windowSec;
+    private final long[] counts;
+    private final long[] seconds;
+
+    public DispatchSpread(int windowSec)
+    {
+        this.windowSec = windowSec;
+        this.counts = new long[windowSec];
+        this.seconds = new long[windowSec];
+    }
+
+    /**
+     * Record {@code dispatched} targets at {@code nowMs}.
+     */
+    public synchronized void record(long nowMs, int dispatched)
+    {
+        var second = nowMs / 1000;
+        var idx = (int) (second % windowSec);
+        if (seconds[idx] != second)
+        {
+            seconds[idx] = second;
+            counts[idx] = 0;
+        }
+        counts[idx] += dispatched;
+    }
+
+    /**
+     * Summary over the last {@code windowSec} complete seconds (the current second is excluded).
+     */
+    public synchronized JsonObject snapshot()
+    {
+        var current = System.currentTimeMillis() / 1000;
+        long total = 0;
+        long min = Long.MAX_VALUE;
+        long max = 0;
+        var samples = new long[windowSec];
+
+        for (var i = 0; i < windowSec; i++)
+        {
+            var second = current - windowSec + i;
+            var idx = (int) (second % windowSec);
+            var count = seconds[idx] == second ? counts[idx] : 0;
+            samples[i] = count;
+            total += count;
+            min = Math.min(min, count);
+            max = Math.max(max, count);
+        }
+
+        var mean = (double) total / windowSec;
+        var variance = 0.0;
+        for (var count : samples)
+        {
+            variance += (count - mean) * (count - mean);
+        }
+        var stdDev = Math.sqrt(variance / windowSec);
+
+        return new JsonObject()
+            .put("windowSec", windowSec)
+            .put("total", total)
+            .put("meanPerSec", mean)
+            .put("minPerSec", min)
+            .put("maxPerSec", max)
+            .put("stdDev", stdDev)
+            .put("coefficientOfVariation", mean > 0 ? stdDev / mean : 0.0)
+            .put("peakToMean", mean > 0 ? max / mean : 0.0);
+    }
+
+}
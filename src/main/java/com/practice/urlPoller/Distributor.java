@@ -1,164 +1,1118 @@
 package com.practice.urlPoller;
 
 
+import com.practice.urlPoller.Constants.JsonFields;
 import com.practice.urlPoller.DB.PostgresClient;
 import io.vertx.core.Future;
 import io.vertx.core.VerticleBase;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
 
 import static com.practice.urlPoller.Constants.Event.*;
 
 /**
- * Database-First Distributor
+ * Timing-Wheel Distributor
  * <p>
- * Replaces HashMap countdown with PostgreSQL timestamp-based polling.
- * Queries database every 5 seconds for IPs where next_poll_time <= NOW().
+ * Loads every IP from PostgreSQL once at startup into an in-memory hierarchical
+ * timing wheel and fires batches at their exact due time (100ms resolution).
  * <p>
  * Architecture:
- * - No in-memory state (all data in PostgreSQL)
- * - Clock-based scheduling (no drift)
- * - Crash-safe (state persists in DB)
- * - Immediate API changes (< 5s delay)
+ * - In-memory schedule (TimingWheel), no per-tick DB queries
+ * - Event-driven wakeups: one one-shot timer armed for the earliest deadline, nothing runs while idle
+ * - Clock-based scheduling (next due = previous due + interval, no drift)
+ * - API changes applied immediately via IP_ADDED / IP_UPDATED / IP_DELETED events
+ * - Changes from other instances or direct SQL arrive via Postgres NOTIFY (IP_CHANGED)
+ * - Crash-safe: next_poll_time is persisted write-behind in batches
+ * <p>
+ * Dispatch modes (-Ddispatch.mode):
+ * - aligned (default): IPs fire at their stored next_poll_time, overdue IPs on the next tick
+ * - spread: each IP gets a stable phase offset inside its interval (hash of id mod interval),
+ *   and overdue IPs are spread over a catch-up window (-Ddispatch.catchup.window.ms),
+ *   so probe load is roughly flat per second instead of one burst per interval bucket
+ * <p>
+ * Sharding: Main deploys one instance per core. IPs are split into fixed partitions
+ * ({@code id % partitionCount}) and each instance owns the partitions with
+ * {@code partition % shardCount == shard} (deployment config). It loads only those rows and
+ * ignores API events for other shards, so grouping and dispatch run in parallel
+ * on separate event loops.
+ * <p>
+ * Cluster mode (-Dcluster.enabled=true): only partitions leased to this node by the
+ * ClusterCoordinator are loaded, partitions are loaded / dropped as leases move, and every
+ * due batch is claimed in the database (FOR UPDATE SKIP LOCKED) before it is pinged,
+ * so no IP is pinged by two nodes.
+ * <p>
+ * Adaptive intervals (opt-in per IP, ips.adaptive): the effective interval doubles after
+ * a run of identical results (stable UP or stable DOWN), up to max_poll_interval, and snaps
+ * back to poll_interval on any state change or packet loss on an UP host.
+ * <p>
+ * Persistent probe mode (-Dfping.mode=persistent): the wheel is not used. Each shard keeps one
+ * long-running FpingStream per interval group that pings on its own and streams per-target
+ * summaries; the process is restarted only when the group's target set changes (debounced).
+ * Phase spread, adaptive intervals and cluster claims do not apply in this mode.
+ * <p>
+ * Probe types (per IP, ips.probe_type): 'icmp' targets go to fping / the native ICMP engine,
+ * 'tcp' targets to a TcpProbeEngine (non-blocking connects on this shard's event loop) and
+ * 'http' targets (URLs) to an HttpProbeEngine (pooled keep-alive / HTTP/2 client of this shard).
+ * Batches are grouped by probe type and interval; TCP and HTTP targets always use the timing wheel.
+ * <p>
+ * Hostname ICMP targets are resolved by this shard's DnsCache (TTL-aware, refreshed in the
+ * background) before the batch starts, so fping never blocks on name resolution.
+ * The persistent fping streams still resolve on their own, once per process start.
+ * <p>
+ * Overload: every dispatched IP is tracked in an InFlightRegistry until its batch completes.
+ * An IP that comes due while its previous probe is still running (slow fping, queued
+ * worker pool) is skipped for that cycle instead of stacking another fping process on top.
  */
 public class Distributor extends VerticleBase
 {
+    public static final String DISPATCH_MODE = "dispatch.mode";
+    public static final String DISPATCH_MODE_SPREAD = "spread";
+    public static final String CATCHUP_WINDOW_MS = "dispatch.catchup.window.ms";
+    public static final String FPING_MODE = "fping.mode";
+    public static final String FPING_MODE_PERSISTENT = "persistent";
+    // Deployment config keys
+    public static final String SHARD = "shard";
+    public static final String SHARD_COUNT = "shardCount";
+    public static final String PARTITION_COUNT = "partitionCount";
+    public static final String NODE_ID = "nodeId";
     private static final Logger logger = LoggerFactory.getLogger(Distributor.class);
-    // Polling configuration
-    private static final int POLLING_CHECK_INTERVAL_SEC = 5;
-    private static final long POLLING_CHECK_INTERVAL_MS = POLLING_CHECK_INTERVAL_SEC * 1000L;
+    private static final long DEFAULT_CATCHUP_WINDOW_MS = 30_000;
+    // Per-second dispatch histogram window for the spread metrics
+    private static final int SPREAD_WINDOW_SEC = 60;
+    // Timing wheel geometry: 100ms ticks, 64 slots/level, 3 levels (~7h horizon)
+    static final long WHEEL_TICK_MS = 100;
+    static final int WHEEL_SIZE = 64;
+    static final int WHEEL_LEVELS = 3;
+    // Write-behind persistence of next_poll_time
+    private static final long PERSIST_FLUSH_INTERVAL_MS = 5_000;
+    // Retry delay if the initial schedule load fails (e.g. DB not up yet)
+    private static final long LOAD_RETRY_DELAY_MS = 5_000;
+    // Cluster mode: safety-net re-read of owned partitions (changes normally arrive via NOTIFY)
+    private static final long CLUSTER_RESYNC_INTERVAL_MS = 300_000;
+    // A batch still in flight after this long is assumed lost (worker max execute time is 10s + queueing)
+    private static final long MAX_IN_FLIGHT_MS = 60_000;
+    // Dispatches fired later than this after their deadline are counted as late
+    private static final long LATE_THRESHOLD_MS = 1_000;
+    // Adaptive mode: identical results in a row before the interval doubles
+    private static final int ADAPTIVE_STABLE_CYCLES = 3;
+    // Adaptive mode: max_poll_interval default (x poll_interval) when not set
+    private static final int ADAPTIVE_DEFAULT_MAX_FACTOR = 12;
+    // Persistent probe mode: collect target changes this long before restarting fping
+    private static final long STREAM_SYNC_DEBOUNCE_MS = 1_000;
+    // In-memory schedule
+    private final Map<Integer, ScheduledIP> scheduledById = new HashMap<>();
+    // Partitions this shard is responsible for
+    private final Set<Integer> ownedPartitions = new HashSet<>();
+    // IPs whose next deadline / effective interval is waiting to be persisted
+    private final Map<Integer, ScheduledIP> pendingPersist = new HashMap<>();
+    // Shared by all shards so the histogram shows the spread of the whole node
+    private static final DispatchSpread dispatchSpread = new DispatchSpread(SPREAD_WINDOW_SEC);
+    private final LongAdder dispatchedCounter = Metrics.counter("distributor.dispatched");
+    private final LongAdder catchUpCounter = Metrics.counter("distributor.catchup.spread");
+    private final LongAdder claimRejectedCounter = Metrics.counter("distributor.claim.rejected");
+    private final LongAdder inFlightSkippedCounter = Metrics.counter("distributor.inflight.skipped");
+    private final LongAdder lateCounter = Metrics.counter("distributor.dispatch.late");
+    private final LongAdder adaptiveStretchedCounter = Metrics.counter("distributor.adaptive.stretched");
+    private final LongAdder adaptiveResetCounter = Metrics.counter("distributor.adaptive.reset");
+    // IPs currently being probed by this shard
+    private final InFlightRegistry inFlight = new InFlightRegistry(MAX_IN_FLIGHT_MS);
+    // Persistent probe mode: poll interval -> long-running fping, and groups waiting for a restart
+    private final Map<Integer, FpingStream> streams = new HashMap<>();
+    private final Set<Integer> dirtyStreams = new HashSet<>();
+    private long streamSyncTimerId = -1;
+    private boolean persistentProbes;
+    // In-JVM ICMP engine (-Dprobe.engine=native), null when probing with fping
+    private IcmpEngine icmpEngine;
+    // TCP connect and HTTP probes of this shard
+    private TcpProbeEngine tcpEngine;
+    private HttpProbeEngine httpEngine;
+    // Hostname -> address for ICMP targets (-Ddns.cache.enabled, default on), null when disabled
+    private DnsCache dnsCache;
+    private int shard;
+    private int shardCount;
+    private int partitionCount;
+    // Cluster node id, null when running stand-alone
+    private String nodeId;
+    private boolean phaseSpread;
+    private long catchUpWindowMs;
+    private TimingWheel<ScheduledIP> wheel;
+    // One-shot wakeup timer for the earliest deadline in the wheel
+    private long wakeupTimerId = -1;
+    private long wakeupAtMs = Long.MAX_VALUE;
     // Database client
     private PostgresClient dbClient;
 
     @Override
     public Future<?> start()
     {
-        logger.info("Starting Distributor (database-first mode)...");
+        shard = config().getInteger(SHARD, 0);
+        shardCount = config().getInteger(SHARD_COUNT, 1);
+        partitionCount = config().getInteger(PARTITION_COUNT, ClusterCoordinator.DEFAULT_PARTITION_COUNT);
+        nodeId = config().getString(NODE_ID);
+        logger.info("Starting Distributor shard {}/{} (timing-wheel mode)...", shard, shardCount);
 
-        // Initialize PostgreSQL client
+        // Initialize PostgreSQL client (one per shard)
         dbClient = new PostgresClient(vertx);
+        wheel = new TimingWheel<>(WHEEL_TICK_MS, WHEEL_SIZE, WHEEL_LEVELS, System.currentTimeMillis());
+
+        phaseSpread = DISPATCH_MODE_SPREAD.equalsIgnoreCase(System.getProperty(DISPATCH_MODE, ""));
+        catchUpWindowMs = Math.max(WHEEL_TICK_MS, Long.getLong(CATCHUP_WINDOW_MS, DEFAULT_CATCHUP_WINDOW_MS));
+        persistentProbes = FPING_MODE_PERSISTENT.equalsIgnoreCase(System.getProperty(FPING_MODE, ""));
+        if (IcmpEngine.PROBE_ENGINE_NATIVE.equalsIgnoreCase(System.getProperty(IcmpEngine.PROBE_ENGINE, "")))
+        {
+            icmpEngine = IcmpEngine.shared(vertx);
+            if (icmpEngine == null)
+            {
+                // -Dfping.mode still applies to the fping fallback
+                logger.warn("Native ICMP engine unavailable, falling back to fping");
+            } else
+            {
+                persistentProbes = false;
+            }
+        }
+        tcpEngine = new TcpProbeEngine(vertx);
+        httpEngine = new HttpProbeEngine(vertx);
+        if (Boolean.parseBoolean(System.getProperty(DnsCache.ENABLED, "true")))
+        {
+            dnsCache = new DnsCache(vertx);
+            Metrics.gauge("dns.cache.entries.shard-" + shard, () -> dnsCache.size());
+        }
+        Metrics.gauge("distributor.dispatch.spread", dispatchSpread::snapshot);
+        Metrics.gauge("distributor.scheduled.shard-" + shard, () -> scheduledById.size());
+        Metrics.gauge("distributor.inflight.shard-" + shard, () -> inFlight.inFlight());
+        Metrics.gauge("fping.streams.shard-" + shard, () -> streams.size());
+        Metrics.gauge("tcp.probe.connecting.shard-" + shard, () -> tcpEngine.connecting());
+        Metrics.gauge("http.probe.inflight.shard-" + shard, () -> httpEngine.inFlight());
 
-        // Setup event listeners for API operations (logging only)
+        // Apply API operations to the in-memory schedule
         setupEventListeners();
 
-        // Start main polling timer (queries DB every 5 seconds)
-        vertx.setPeriodic(POLLING_CHECK_INTERVAL_MS, id -> pollDueIPs());
+        // The wheel is driven by a one-shot timer re-armed in arm() / tick()
+        vertx.setPeriodic(PERSIST_FLUSH_INTERVAL_MS, id -> flushPendingPersist());
+
+        if (isClustered())
+        {
+            // Partitions arrive from the ClusterCoordinator as leases are acquired
+            vertx.eventBus()
+                .<JsonArray>localConsumer(PARTITIONS_CHANGED, msg -> onPartitionsChanged(msg.body()));
+            vertx.eventBus()
+                .<JsonArray>request(PARTITIONS_GET, null)
+                .onSuccess(msg -> onPartitionsChanged(msg.body()))
+                .onFailure(err -> logger.error("Failed to get initial partition assignment", err));
+            vertx.setPeriodic(CLUSTER_RESYNC_INTERVAL_MS, id -> loadPartitions(new HashSet<>(ownedPartitions)));
+        } else
+        {
+            for (var partition = 0; partition < partitionCount; partition++)
+            {
+                if (partition % shardCount == shard)
+                {
+                    ownedPartitions.add(partition);
+                }
+            }
+            loadPartitions(new HashSet<>(ownedPartitions));
+        }
 
         logger.info("Distributor started successfully");
-        logger.info("   - Polling interval: {}s", POLLING_CHECK_INTERVAL_SEC);
-        logger.info("   - Query: SELECT * FROM ips WHERE next_poll_time <= NOW()");
+        logger.info("   - Wheel tick: {}ms, slots: {}, levels: {} (one-shot next-due timer)", WHEEL_TICK_MS, WHEEL_SIZE, WHEEL_LEVELS);
+        logger.info("   - Persist flush interval: {}ms", PERSIST_FLUSH_INTERVAL_MS);
+        logger.info("   - Partitions: {} total, cluster node: {}", partitionCount, isClustered() ? nodeId : "stand-alone");
+        logger.info("   - Probe mode: {}", icmpEngine != null ? "native ICMP engine"
+            : persistentProbes ? "persistent fping per interval group" : "batch per due tick");
+        logger.info("   - Dispatch mode: {}{}", phaseSpread ? "spread" : "aligned",
+                    phaseSpread ? " (catch-up window " + catchUpWindowMs + "ms)" : ""
+        );
 
         return Future.succeededFuture();
     }
 
+    @Override
+    public Future<?> stop()
+    {
+        streams.values()
+            .forEach(FpingStream::close);
+        streams.clear();
+        tcpEngine.close();
+        httpEngine.close();
+        if (dnsCache != null)
+        {
+            dnsCache.close();
+        }
+
+        // Persist whatever the wheel advanced since the last flush
+        return flushPendingPersist();
+    }
+
+    /**
+     * Load (or re-sync) every IP of the given partitions from the database into the wheel.
+     * Unchanged IPs keep their current deadline; IPs that disappeared from the database
+     * are dropped. Retries until the database is reachable.
+     */
+    private void loadPartitions(Set<Integer> partitions)
+    {
+        partitions.retainAll(ownedPartitions);
+        if (partitions.isEmpty())
+        {
+            return;
+        }
+
+        var loadStartMs = System.currentTimeMillis();
+        dbClient.getAllIPsForScheduling(partitionCount, partitions)
+            .onSuccess(ips -> {
+                var now = System.currentTimeMillis();
+                Set<Integer> seen = new HashSet<>(ips.size());
+
+                ips.forEach(json -> {
+                    var id = json.getInteger("id");
+                    if (!owns(id))
+                    {
+                        return;
+                    }
+                    seen.add(id);
+
+                    var candidate = toScheduled(json, "pollInterval");
+                    var existing = scheduledById.get(id);
+                    if (existing != null && existing.sameConfig(candidate))
+                    {
+                        return;
+                    }
+                    // Resume a stretched interval after a restart / partition hand-over
+                    candidate.restoreEffectiveInterval(json.getInteger("effectiveInterval"));
+                    schedule(candidate, now + json.getLong("dueInMs"), now);
+                });
+
+                // Drop IPs deleted behind our back (ignore ones added by events while the query ran)
+                var removed = scheduledById.values()
+                    .stream()
+                    .filter(scheduled -> partitions.contains(partitionOf(scheduled.id)))
+                    .filter(scheduled -> !seen.contains(scheduled.id) && scheduled.scheduledAtMs < loadStartMs)
+                    .map(scheduled -> scheduled.id)
+                    .toList();
+                removed.forEach(this::delete);
+
+                logger.info("Schedule loaded: {} IPs from {} partitions, {} removed, {} IPs in timing wheel (shard {}/{})",
+                            seen.size(), partitions.size(), removed.size(), scheduledById.size(), shard, shardCount
+                );
+            })
+            .onFailure(err -> {
+                logger.error("Failed to load schedule, retrying in {}ms", LOAD_RETRY_DELAY_MS, err);
+                vertx.setTimer(LOAD_RETRY_DELAY_MS, id -> loadPartitions(partitions));
+            });
+    }
+
+    /**
+     * Apply a new partition assignment from the ClusterCoordinator.
+     */
+    private void onPartitionsChanged(JsonArray nodePartitions)
+    {
+        Set<Integer> mine = new HashSet<>();
+        for (var i = 0; i < nodePartitions.size(); i++)
+        {
+            var partition = nodePartitions.getInteger(i);
+            if (partition % shardCount == shard)
+            {
+                mine.add(partition);
+            }
+        }
+
+        Set<Integer> lost = new HashSet<>(ownedPartitions);
+        lost.removeAll(mine);
+        Set<Integer> gained = new HashSet<>(mine);
+        gained.removeAll(ownedPartitions);
+
+        ownedPartitions.clear();
+        ownedPartitions.addAll(mine);
+
+        if (!lost.isEmpty())
+        {
+            var dropped = scheduledById.keySet()
+                .stream()
+                .filter(id -> lost.contains(partitionOf(id)))
+                .toList();
+            dropped.forEach(this::unschedule);
+            logger.info("Shard {}: lost {} partitions, dropped {} IPs", shard, lost.size(), dropped.size());
+        }
+
+        if (!gained.isEmpty())
+        {
+            logger.info("Shard {}: gained {} partitions, loading IPs", shard, gained.size());
+            loadPartitions(gained);
+        }
+    }
+
     /**
-     * Setup event bus listeners for CRUD operations (informational only)
-     * Actual polling is driven by database timestamps, not events
+     * Setup event bus listeners for CRUD operations.
+     * Each event updates the in-memory schedule; the DB row was already written by the API.
+     * Events are published to every shard; each shard only applies its own IPs.
      */
     private void setupEventListeners()
     {
         vertx.eventBus()
             .<JsonObject>localConsumer(IP_ADDED, msg -> {
                                            var body = msg.body();
-                                           logger.info("New IP added: id={}, ip={}, pollInterval={}s",
-                                                       body.getInteger("id"),
-                                                       body.getString("ip"),
-                                                       body.getInteger("pollInterval")
+                                           var id = body.getInteger(JsonFields.ID);
+                                           if (!owns(id))
+                                           {
+                                               return;
+                                           }
+                                           var scheduled = toScheduled(body, JsonFields.POLL_INTERVAL);
+                                           logger.info("New IP added: id={}, ip={}, pollInterval={}s, adaptive={}",
+                                                       id, scheduled.ip, scheduled.pollInterval, scheduled.adaptive
                                            );
+                                           scheduleNow(scheduled);
                                        }
             );
 
         vertx.eventBus()
             .<JsonObject>localConsumer(IP_UPDATED, msg -> {
                                            var body = msg.body();
-                                           logger.info("IP updated: id={}, ip={}, pollInterval={}s",
-                                                       body.getInteger("id"),
-                                                       body.getString("ip"),
-                                                       body.getInteger("pollInterval")
+                                           var id = body.getInteger(JsonFields.ID);
+                                           if (!owns(id))
+                                           {
+                                               return;
+                                           }
+                                           var scheduled = toScheduled(body, JsonFields.POLL_INTERVAL);
+                                           logger.info("IP updated: id={}, ip={}, pollInterval={}s, adaptive={}",
+                                                       id, scheduled.ip, scheduled.pollInterval, scheduled.adaptive
                                            );
+                                           var now = System.currentTimeMillis();
+                                           schedule(scheduled, now + scheduled.pollInterval * 1000L, now);
                                        }
             );
 
         vertx.eventBus()
             .<JsonObject>localConsumer(IP_DELETED, msg -> {
-                                           var body = msg.body();
-                                           logger.info("IP deleted: id={}, ip={}",
-                                                       body.getInteger("id"),
-                                                       body.getString("ip")
-                                           );
+                                           var id = msg.body()
+                                               .getInteger(JsonFields.ID);
+                                           if (!owns(id))
+                                           {
+                                               return;
+                                           }
+                                           logger.info("IP deleted: id={}", id);
+                                           delete(id);
                                        }
             );
+
+        // Row changes from any source (this API, other instances, direct SQL) via LISTEN/NOTIFY.
+        // Changes already applied through the events above are recognised and ignored.
+        vertx.eventBus()
+            .<JsonObject>localConsumer(IP_CHANGED, msg -> onIPChanged(msg.body()));
+
+        // Notifications may have been missed while the LISTEN connection was down
+        vertx.eventBus()
+            .<Void>localConsumer(IP_RESYNC, msg -> loadPartitions(new HashSet<>(ownedPartitions)));
+    }
+
+    /**
+     * Apply a Postgres NOTIFY payload:
+     * {"op": "INSERT|UPDATE|DELETE", "id", "ip", "pollInterval", "adaptive", "maxPollInterval", "probeType", "probePort"}.
+     */
+    private void onIPChanged(JsonObject change)
+    {
+        var id = change.getInteger(JsonFields.ID);
+        if (id == null || !owns(id))
+        {
+            return;
+        }
+
+        var op = change.getString("op", "");
+        if ("DELETE".equals(op))
+        {
+            if (scheduledById.containsKey(id))
+            {
+                logger.info("IP deleted externally: id={}", id);
+                delete(id);
+            }
+            return;
+        }
+
+        var scheduled = toScheduled(change, "pollInterval");
+        var existing = scheduledById.get(id);
+        if (existing != null && existing.sameConfig(scheduled))
+        {
+            return;
+        }
+
+        logger.info("IP {} externally: id={}, ip={}, pollInterval={}s, adaptive={}",
+                    "INSERT".equals(op) ? "added" : "updated", id, scheduled.ip, scheduled.pollInterval, scheduled.adaptive
+        );
+        if ("INSERT".equals(op))
+        {
+            scheduleNow(scheduled);
+        } else
+        {
+            var now = System.currentTimeMillis();
+            schedule(scheduled, now + scheduled.pollInterval * 1000L, now);
+        }
+    }
+
+    /**
+     * Build a schedule entry from an API event, NOTIFY payload or load query row.
+     *
+     * @param intervalKey key of the poll interval (the API uses poll.interval, the database pollInterval)
+     */
+    static ScheduledIP toScheduled(JsonObject json, String intervalKey)
+    {
+        var pollInterval = json.getInteger(intervalKey);
+        var maxPollInterval = json.getInteger(JsonFields.MAX_POLL_INTERVAL);
+        var probeType = json.getString(JsonFields.PROBE_TYPE, TcpProbeEngine.PROBE_TYPE_ICMP);
+        return new ScheduledIP(json.getInteger(JsonFields.ID), json.getString(JsonFields.IP), pollInterval,
+                               json.getBoolean(JsonFields.ADAPTIVE, false),
+                               maxPollInterval != null ? maxPollInterval : pollInterval * ADAPTIVE_DEFAULT_MAX_FACTOR,
+                               probeType,
+                               TcpProbeEngine.PROBE_TYPE_TCP.equals(probeType) ? json.getInteger(JsonFields.PROBE_PORT, -1) : -1
+        );
+    }
+
+    /**
+     * @return true if this shard is responsible for the IP id (same rule as the load query)
+     */
+    private boolean owns(int id)
+    {
+        return ownedPartitions.contains(partitionOf(id));
+    }
+
+    private int partitionOf(int id)
+    {
+        return Math.floorMod(id, partitionCount);
+    }
+
+    private boolean isClustered()
+    {
+        return nodeId != null;
+    }
+
+    /**
+     * Insert or replace an IP in the wheel.
+     *
+     * @param dueMs when the IP is due according to the database / API (may be in the past)
+     */
+    private void schedule(ScheduledIP scheduled, long dueMs, long now)
+    {
+        unschedule(scheduled.id);
+
+        scheduledById.put(scheduled.id, scheduled);
+        if (persistentProbes && scheduled.isIcmp())
+        {
+            markStreamDirty(scheduled.pollInterval);
+            return;
+        }
+        arm(scheduled, phaseSpread ? firstSpreadDeadline(scheduled, dueMs, now) : dueMs);
+    }
+
+    /**
+     * Insert or replace an IP that should be polled right away (newly added IPs).
+     * Bypasses the spread-mode catch-up window; the next dispatch snaps it onto its phase.
+     */
+    private void scheduleNow(ScheduledIP scheduled)
+    {
+        unschedule(scheduled.id);
+
+        scheduledById.put(scheduled.id, scheduled);
+        if (persistentProbes && scheduled.isIcmp())
+        {
+            markStreamDirty(scheduled.pollInterval);
+            return;
+        }
+        arm(scheduled, System.currentTimeMillis());
+    }
+
+    /**
+     * First deadline in spread mode.
+     * Overdue IPs are spread over the catch-up window; others move onto their phase
+     * slot within the current interval (never later than one interval after dueMs).
+     */
+    private long firstSpreadDeadline(ScheduledIP scheduled, long dueMs, long now)
+    {
+        if (dueMs <= now)
+        {
+            catchUpCounter.increment();
+            return now + Math.floorMod(mix(scheduled.id), catchUpWindowMs);
+        }
+
+        var slot = nextPhaseSlot(scheduled, dueMs - scheduled.intervalMs());
+        return slot > now ? slot : nextPhaseSlot(scheduled, now);
+    }
+
+    /**
+     * Next deadline after a dispatch at {@code now}.
+     */
+    private long nextDeadline(ScheduledIP scheduled, long now)
+    {
+        if (phaseSpread)
+        {
+            // Snaps catch-up dispatches back onto the IP's phase
+            return nextPhaseSlot(scheduled, now);
+        }
+
+        // Keep the original cadence; skip missed cycles if we fell behind
+        var next = scheduled.deadlineMs + scheduled.intervalMs();
+        return next > now ? next : now + scheduled.intervalMs();
+    }
+
+    /**
+     * Smallest t > afterMs with (t - phase) divisible by the interval.
+     */
+    private long nextPhaseSlot(ScheduledIP scheduled, long afterMs)
+    {
+        var intervalMs = scheduled.intervalMs();
+        var phase = Math.floorMod(mix(scheduled.id), intervalMs);
+        return (Math.floorDiv(afterMs - phase, intervalMs) + 1) * intervalMs + phase;
+    }
+
+    /**
+     * Stable 64-bit mix of an IP id (Fibonacci hashing) so consecutive ids get unrelated phases.
+     */
+    private static long mix(int id)
+    {
+        var h = id * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    /**
+     * Take an IP out of the wheel (update, re-arm, partition loss). Its in-flight guard stays
+     * until the running batch releases it, so a re-scheduled IP is not probed twice at once.
+     */
+    private void unschedule(int id)
+    {
+        var existing = scheduledById.remove(id);
+        if (existing != null)
+        {
+            wheel.cancel(existing.timeout);
+            if (persistentProbes && existing.isIcmp())
+            {
+                markStreamDirty(existing.pollInterval);
+            }
+        }
+        pendingPersist.remove(id);
+    }
+
+    /**
+     * Drop a deleted IP, including its in-flight guard (a late release is ignored).
+     */
+    private void delete(int id)
+    {
+        unschedule(id);
+        inFlight.remove(id);
+    }
+
+    /**
+     * Persistent probe mode: the target set of an interval group changed.
+     */
+    private void markStreamDirty(int pollInterval)
+    {
+        dirtyStreams.add(pollInterval);
+        if (streamSyncTimerId == -1)
+        {
+            streamSyncTimerId = vertx.setTimer(STREAM_SYNC_DEBOUNCE_MS, id -> syncStreams());
+        }
+    }
+
+    /**
+     * Push the current ICMP target set of every changed interval group to its FpingStream.
+     * An unchanged set (e.g. delete + re-add) does not restart the process.
+     */
+    private void syncStreams()
+    {
+        streamSyncTimerId = -1;
+
+        Map<Integer, Set<String>> targetsByInterval = new HashMap<>();
+        dirtyStreams.forEach(interval -> targetsByInterval.put(interval, new HashSet<>()));
+        dirtyStreams.clear();
+        scheduledById.values()
+            .forEach(scheduled -> {
+                var targets = targetsByInterval.get(scheduled.pollInterval);
+                if (targets != null && scheduled.isIcmp())
+                {
+                    targets.add(scheduled.ip);
+                }
+            });
+
+        targetsByInterval.forEach((interval, targets) -> {
+            if (targets.isEmpty())
+            {
+                var stream = streams.remove(interval);
+                if (stream != null)
+                {
+                    stream.close();
+                }
+                return;
+            }
+            streams.computeIfAbsent(interval, k -> new FpingStream(vertx, k))
+                .update(targets);
+        });
+    }
+
+    /**
+     * Place an IP in the wheel at {@code deadlineMs}. Overdue IPs go to the next tick.
+     */
+    private void arm(ScheduledIP scheduled, long deadlineMs)
+    {
+        scheduled.deadlineMs = deadlineMs;
+        scheduled.timeout = wheel.schedule(scheduled, deadlineMs);
+        if (scheduled.timeout == null)
+        {
+            // Already due (e.g. overdue at startup) - fire on the next tick
+            scheduled.deadlineMs = System.currentTimeMillis() + WHEEL_TICK_MS;
+            scheduled.timeout = wheel.schedule(scheduled, scheduled.deadlineMs);
+        }
+        // The wheel fires on tick boundaries - wake up on the tick that holds the deadline
+        armWakeup(((scheduled.deadlineMs + WHEEL_TICK_MS - 1) / WHEEL_TICK_MS) * WHEEL_TICK_MS);
     }
 
     /**
-     * Core polling method - queries database for IPs due for polling
+     * Make sure the one-shot timer fires no later than {@code atMs}.
+     * Only ever moves the wakeup earlier; tick() re-arms for the next deadline.
+     */
+    private void armWakeup(long atMs)
+    {
+        if (atMs >= wakeupAtMs)
+        {
+            return;
+        }
+        if (wakeupTimerId >= 0)
+        {
+            vertx.cancelTimer(wakeupTimerId);
+        }
+        wakeupAtMs = atMs;
+        wakeupTimerId = vertx.setTimer(Math.max(1, atMs - System.currentTimeMillis()), id -> {
+            wakeupTimerId = -1;
+            wakeupAtMs = Long.MAX_VALUE;
+            tick();
+        });
+    }
+
+    /**
+     * Core scheduling step - runs when the wakeup timer fires for the earliest deadline
      * <p>
      * Flow:
-     * 1. Query DB: SELECT * FROM ips WHERE next_poll_time <= NOW()
-     * 2. Group IPs by poll interval (for batch efficiency)
-     * 3. Execute fping for each interval group
-     * 4. Update next_poll_time after successful ping
+     * 1. Advance wheel, collecting IPs whose deadline has passed
+     * 2. Re-arm each IP at deadline + interval (clock-based, no drift) or its next phase slot
+     * 3. Cluster mode: claim the due IPs in the database, dropping any this node may not ping
+     * 4. Dispatch (see {@link #dispatch})
      */
-    private void pollDueIPs()
+    private void tick()
     {
-        dbClient.getIPsDueForPoll()
-            .onSuccess(ips -> {
-                if (ips.isEmpty())
+        var now = System.currentTimeMillis();
+        List<ScheduledIP> due = new ArrayList<>();
+        wheel.advance(now, due::add);
+
+        // Sleep until the next deadline or cascade (re-arming due IPs below may move it earlier)
+        var nextExpiryMs = wheel.nextExpiryMs();
+        if (nextExpiryMs != Long.MAX_VALUE)
+        {
+            armWakeup(nextExpiryMs);
+        }
+
+        if (due.isEmpty())
+        {
+            return;
+        }
+
+        var maxLatenessMs = 0L;
+        List<ScheduledIP> ready = new ArrayList<>(due.size());
+        for (var scheduled : due)
+        {
+            var latenessMs = now - scheduled.deadlineMs;
+            arm(scheduled, nextDeadline(scheduled, now));
+
+            // Previous probe still running - skip this cycle, the next one is already armed
+            var generation = inFlight.tryAcquire(scheduled.id, now);
+            if (generation < 0)
+            {
+                inFlightSkippedCounter.increment();
+                continue;
+            }
+            scheduled.generation = generation;
+            maxLatenessMs = Math.max(maxLatenessMs, latenessMs);
+            if (latenessMs > LATE_THRESHOLD_MS)
+            {
+                lateCounter.increment();
+            }
+            ready.add(scheduled);
+        }
+
+        if (ready.size() < due.size())
+        {
+            logger.warn("Shard {}: skipped {} of {} due IPs still in flight", shard, due.size() - ready.size(), due.size());
+        }
+        if (ready.isEmpty())
+        {
+            return;
+        }
+
+        if (!isClustered())
+        {
+            dispatch(ready, now, maxLatenessMs);
+            return;
+        }
+
+        var lateness = maxLatenessMs;
+        Map<Integer, Integer> intervalById = new HashMap<>(ready.size());
+        ready.forEach(scheduled -> intervalById.put(scheduled.id, scheduled.effectiveInterval));
+        dbClient.claimDueIPs(intervalById, partitionCount, nodeId)
+            .onSuccess(claimed -> {
+                List<ScheduledIP> granted = new ArrayList<>(claimed.size());
+                for (var scheduled : ready)
                 {
-                    logger.trace("No IPs due for polling this cycle");
-                    return;
+                    if (claimed.contains(scheduled.id))
+                    {
+                        granted.add(scheduled);
+                    } else
+                    {
+                        inFlight.release(scheduled.id, scheduled.generation);
+                    }
                 }
+                claimRejectedCounter.add(ready.size() - granted.size());
+                if (!granted.isEmpty())
+                {
+                    dispatch(granted, now, lateness);
+                }
+            })
+            .onFailure(err -> {
+                logger.warn("Shard {}: skipping {} due IPs, claim failed", shard, ready.size());
+                ready.forEach(scheduled -> inFlight.release(scheduled.id, scheduled.generation));
+            });
+    }
 
-                logger.info("Found {} IPs due for polling", ips.size());
+    /**
+     * Ping a set of due IPs.
+     * <p>
+     * Flow:
+     * 1. Group IPs by probe type and poll interval (for batch efficiency)
+     * 2. Execute fping / the ICMP engine / TCP connects / HTTP requests for each group
+     * 3. Adapt the effective interval of adaptive IPs to the result
+     * 4. Queue next_poll_time for write-behind persistence after successful ping
+     *    (cluster mode: already advanced by the claim)
+     * 5. Release the IPs from the in-flight registry when the batch completes either way
+     */
+    private void dispatch(List<ScheduledIP> due, long now, long maxLatenessMs)
+    {
+        dispatchSpread.record(now, due.size());
+        dispatchedCounter.add(due.size());
 
-                // Group IPs by poll interval for efficient batch processing
-                Map<Integer, Set<String>> ipsByInterval = new HashMap<>();
-                Map<String, JsonObject> ipMetadata = new HashMap<>();
+        // Group IPs by probe type and poll interval for efficient batch processing
+        var groups = DispatchGroups.of(due);
+        var ipMetadata = groups.ipMetadata();
+        var generations = groups.generations();
 
-                ips.forEach(json -> {
-                    int interval = json.getInteger("pollInterval");
-                    var ip = json.getString("ip");
+        logger.info("Shard {}: dispatching {} due IPs in {} interval buckets (max lateness {}ms)",
+                    shard, due.size(), groups.buckets(), maxLatenessMs
+        );
 
-                    ipsByInterval.computeIfAbsent(interval, k -> new HashSet<>())
-                        .add(ip);
-                    ipMetadata.put(ip, json);
+        // Execute batch ping for each interval group
+        groups.ipsByInterval().forEach((interval, ipSet) -> {
+            logger.debug("Batch polling {} IPs with {}s interval", ipSet.size(), interval);
+            onBatchDone(probeIcmp(ipSet, interval), ipSet, interval, ipMetadata, generations);
+        });
+        groups.tcpPortsByInterval().forEach((interval, ports) -> {
+            logger.debug("TCP probing {} targets with {}s interval", ports.size(), interval);
+            onBatchDone(tcpEngine.probe(ports), ports.keySet(), interval, ipMetadata, generations);
+        });
+        groups.urlsByInterval().forEach((interval, urls) -> {
+            logger.debug("HTTP probing {} URLs with {}s interval", urls.size(), interval);
+            onBatchDone(httpEngine.probe(urls), urls, interval, ipMetadata, generations);
+        });
+    }
+
+    /**
+     * ICMP batch through fping or the native engine. Hostnames are resolved through the DNS cache
+     * first so the prober only sees addresses; results are mapped back to the target names.
+     * A hostname that does not resolve is published as DOWN without being probed.
+     */
+    private Future<Map<String, PingResult>> probeIcmp(Set<String> targets, int interval)
+    {
+        List<String> hostnames = dnsCache == null ? List.of() : targets.stream()
+            .filter(target -> !DnsCache.isIpLiteral(target))
+            .toList();
+        if (hostnames.isEmpty())
+        {
+            return icmpEngine != null ? icmpEngine.probe(targets) : FpingWorker.work(vertx, targets, interval);
+        }
+
+        return dnsCache.resolve(hostnames)
+            .compose(addressByHost -> {
+                // address -> target names, only for addresses that some hostname resolved to
+                Map<String, List<String>> aliases = new HashMap<>();
+                Set<String> addresses = new HashSet<>(targets.size());
+                for (var target : targets)
+                {
+                    var address = DnsCache.isIpLiteral(target) ? target : addressByHost.get(target);
+                    if (address == null)
+                    {
+                        logger.warn("[IP:{}] Hostname did not resolve, publishing ERROR", target);
+                        FpingWorker.publishMissingIp(vertx, target);
+                        continue;
+                    }
+                    addresses.add(address);
+                    if (!address.equals(target))
+                    {
+                        aliases.computeIfAbsent(address, k -> new ArrayList<>())
+                            .add(target);
+                    }
+                }
+                // An address listed both literally and behind a hostname is published under both
+                targets.stream()
+                    .filter(aliases::containsKey)
+                    .forEach(literal -> {
+                        var names = aliases.get(literal);
+                        if (!names.contains(literal))
+                        {
+                            names.add(literal);
+                        }
+                    });
+
+                var probe = icmpEngine != null
+                    ? icmpEngine.probe(addresses, aliases)
+                    : FpingWorker.work(vertx, addresses, interval, aliases);
+                return probe.map(byAddress -> {
+                    Map<String, PingResult> byTarget = new HashMap<>(targets.size());
+                    for (var target : targets)
+                    {
+                        var address = DnsCache.isIpLiteral(target) ? target : addressByHost.get(target);
+                        var result = address == null ? null : byAddress.get(address);
+                        if (result != null)
+                        {
+                            byTarget.put(target, result);
+                        }
+                    }
+                    return byTarget;
                 });
+            });
+    }
 
-                logger.debug("Grouped into {} interval buckets", ipsByInterval.size());
-
-                // Execute batch ping for each interval group
-                ipsByInterval.forEach((interval, ipSet) -> {
-                    logger.debug("Batch polling {} IPs with {}s interval", ipSet.size(), interval);
-
-                    FpingWorker.work(vertx, ipSet, interval)
-                        .onSuccess(results -> {
-                            logger.debug("Batch ping succeeded for {} IPs", ipSet.size());
-
-                            // Collect IPs to update (all successfully pinged IPs)
-                            var toUpdate = ipSet.stream()
-                                .map(ipMetadata::get)
-                                .toList();
-
-                            // Batch update next_poll_time in database
-                            dbClient.batchUpdateNextPollTimes(toUpdate)
-                                .onSuccess(v -> logger.debug("Updated next_poll_time for {} IPs", toUpdate.size()))
-                                .onFailure(err -> logger.error("Failed to update next_poll_time for {} IPs", toUpdate.size(), err));
-                        })
-                        .onFailure(err -> {
-                            logger.error("FpingWorker failed for {} IPs with {}s interval", ipSet.size(), interval, err);
-                            // Note: We do NOT update next_poll_time on failure
-                            // This allows retry on next polling cycle
-                        });
+    /**
+     * Apply the outcome of one probe batch to the schedule and release its IPs.
+     */
+    private void onBatchDone(Future<Map<String, PingResult>> batch, Set<String> ipSet, int interval,
+                             Map<String, ScheduledIP> ipMetadata, Map<String, Long> generations)
+    {
+        batch
+            .onSuccess(results -> {
+                logger.debug("Batch ping succeeded for {} IPs", ipSet.size());
+
+                var completedMs = System.currentTimeMillis();
+                ipSet.forEach(ip -> {
+                    var scheduled = ipMetadata.get(ip);
+                    if (scheduledById.get(scheduled.id) != scheduled)
+                    {
+                        // Removed or replaced while in flight
+                        return;
+                    }
+                    var result = results.get(ip);
+                    if (scheduled.adaptive && result != null)
+                    {
+                        adapt(scheduled, result, completedMs);
+                    }
+                    if (!isClustered())
+                    {
+                        // Queue the already-armed next deadline for persistence
+                        pendingPersist.put(scheduled.id, scheduled);
+                    }
                 });
             })
-            .onFailure(err -> logger.error("Failed to query IPs due for polling", err));
+            .onFailure(err -> {
+                logger.error("Probe batch failed for {} IPs with {}s interval", ipSet.size(), interval, err);
+                // Note: We do NOT persist next_poll_time on failure
+                // After a restart these IPs are picked up as overdue
+            })
+            .onComplete(ar -> ipSet.forEach(ip -> inFlight.release(ipMetadata.get(ip).id, generations.get(ip))));
     }
 
-}
+    /**
+     * Adaptive mode: stretch the interval of a stable IP, snap back on a state change or loss.
+     */
+    private void adapt(ScheduledIP scheduled, PingResult result, long now)
+    {
+        var up = result.isUp();
+        var lossSpike = up && result.packetLoss() > 0;
+        var stateChanged = scheduled.lastUp != null && scheduled.lastUp != up;
+        scheduled.lastUp = up;
+
+        if (stateChanged || lossSpike)
+        {
+            scheduled.stableCycles = 0;
+            if (scheduled.effectiveInterval == scheduled.pollInterval)
+            {
+                return;
+            }
+            adaptiveResetCounter.increment();
+            logger.debug("[IP:{}] {} - interval back to {}s", scheduled.ip,
+                         stateChanged ? "state changed" : "packet loss", scheduled.pollInterval
+            );
+            scheduled.effectiveInterval = scheduled.pollInterval;
+
+            // The next deadline was armed with the stretched interval - pull it in
+            var resetDeadline = phaseSpread ? nextPhaseSlot(scheduled, now) : now + scheduled.intervalMs();
+            if (resetDeadline < scheduled.deadlineMs)
+            {
+                wheel.cancel(scheduled.timeout);
+                arm(scheduled, resetDeadline);
+            }
+            return;
+        }
+
+        if (++scheduled.stableCycles >= ADAPTIVE_STABLE_CYCLES && scheduled.effectiveInterval < scheduled.maxPollInterval)
+        {
+            // Takes effect from the next deadline on
+            scheduled.stableCycles = 0;
+            scheduled.effectiveInterval = Math.min(scheduled.effectiveInterval * 2, scheduled.maxPollInterval);
+            adaptiveStretchedCounter.increment();
+            logger.debug("[IP:{}] stable {} - interval stretched to {}s", scheduled.ip, up ? "UP" : "DOWN",
+                         scheduled.effectiveInterval
+            );
+        }
+    }
+
+    /**
+     * Flush queued next_poll_time values to the database in one batch.
+     */
+    private Future<Void> flushPendingPersist()
+    {
+        if (pendingPersist.isEmpty())
+        {
+            return Future.succeededFuture();
+        }
+
+        var now = System.currentTimeMillis();
+        List<JsonObject> entries = new ArrayList<>(pendingPersist.size());
+        pendingPersist.values()
+            .forEach(scheduled -> entries.add(new JsonObject()
+                                                  .put("id", scheduled.id)
+                                                  .put("dueInMs", scheduled.deadlineMs - now)
+                                                  .put("effectiveInterval", scheduled.effectiveInterval)));
+        pendingPersist.clear();
 
+        return dbClient.batchPersistNextPollTimes(entries)
+            .onSuccess(v -> logger.debug("Persisted next_poll_time for {} IPs", entries.size()))
+            .onFailure(err -> logger.error("Failed to persist next_poll_time for {} IPs", entries.size(), err));
+    }
+
+    /**
+     * Due IPs of one dispatch, grouped by probe type and poll interval - one probe batch per group.
+     *
+     * @param ipMetadata  target -> schedule entry
+     * @param generations target -> generation captured at dispatch (the ScheduledIP may be replaced while in flight)
+     */
+    record DispatchGroups(Map<Integer, Set<String>> ipsByInterval,
+                          Map<Integer, Map<String, Integer>> tcpPortsByInterval,
+                          Map<Integer, Set<String>> urlsByInterval,
+                          Map<String, ScheduledIP> ipMetadata,
+                          Map<String, Long> generations)
+    {
+        static DispatchGroups of(List<ScheduledIP> due)
+        {
+            var groups = new DispatchGroups(new HashMap<>(), new HashMap<>(), new HashMap<>(),
+                                            HashMap.newHashMap(due.size()), HashMap.newHashMap(due.size())
+            );
+            for (var scheduled : due)
+            {
+                if (scheduled.isTcp())
+                {
+                    groups.tcpPortsByInterval.computeIfAbsent(scheduled.pollInterval, k -> new HashMap<>())
+                        .put(scheduled.ip, scheduled.probePort);
+                } else if (scheduled.isHttp())
+                {
+                    groups.urlsByInterval.computeIfAbsent(scheduled.pollInterval, k -> new HashSet<>())
+                        .add(scheduled.ip);
+                } else
+                {
+                    groups.ipsByInterval.computeIfAbsent(scheduled.pollInterval, k -> new HashSet<>())
+                        .add(scheduled.ip);
+                }
+                groups.ipMetadata.put(scheduled.ip, scheduled);
+                groups.generations.put(scheduled.ip, scheduled.generation);
+            }
+            return groups;
+        }
+
+        /**
+         * @return number of probe batches
+         */
+        int buckets()
+        {
+            return ipsByInterval.size() + tcpPortsByInterval.size() + urlsByInterval.size();
+        }
+    }
+
+    /**
+     * One IP in the in-memory schedule.
+     */
+    static final class ScheduledIP
+    {
+        private final int id;
+        private final String ip;
+        private final int pollInterval;
+        private final boolean adaptive;
+        private final int maxPollInterval;
+        // icmp / tcp / http, and the TCP connect port (-1 unless tcp)
+        private final String probeType;
+        private final int probePort;
+        private final long scheduledAtMs = System.currentTimeMillis();
+        private long deadlineMs;
+        // Adaptive mode: current interval in [pollInterval, maxPollInterval], last state, identical results in a row
+        private int effectiveInterval;
+        private Boolean lastUp;
+        private int stableCycles;
+        // In-flight generation of the current dispatch
+        private long generation;
+        private TimingWheel.Timeout<ScheduledIP> timeout;
+
+        private ScheduledIP(int id, String ip, int pollInterval, boolean adaptive, int maxPollInterval, String probeType,
+                            int probePort)
+        {
+            this.id = id;
+            this.ip = ip;
+            this.pollInterval = pollInterval;
+            this.adaptive = adaptive;
+            this.maxPollInterval = Math.max(pollInterval, maxPollInterval);
+            this.effectiveInterval = pollInterval;
+            this.probeType = probeType;
+            this.probePort = probePort;
+        }
+
+        private void restoreEffectiveInterval(Integer persisted)
+        {
+            if (adaptive && persisted != null)
+            {
+                effectiveInterval = Math.max(pollInterval, Math.min(persisted, maxPollInterval));
+            }
+        }
+
+        private boolean sameConfig(ScheduledIP other)
+        {
+            return ip.equals(other.ip) && pollInterval == other.pollInterval && adaptive == other.adaptive &&
+                maxPollInterval == other.maxPollInterval && probeType.equals(other.probeType) && probePort == other.probePort;
+        }
+
+        private boolean isIcmp()
+        {
+            return !isTcp() && !isHttp();
+        }
+
+        private boolean isTcp()
+        {
+            return TcpProbeEngine.PROBE_TYPE_TCP.equals(probeType) && probePort > 0;
+        }
+
+        private boolean isHttp()
+        {
+            return HttpProbeEngine.PROBE_TYPE_HTTP.equals(probeType);
+        }
+
+        private long intervalMs()
+        {
+            return effectiveInterval * 1000L;
+        }
+    }
+
+}
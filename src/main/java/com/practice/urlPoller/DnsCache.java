@@ -0,0 +1,350 @@
+package com.practice.urlPoller;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.MultiThreadIoEventLoopGroup;
+import io.netty.channel.nio.NioIoHandler;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.handler.codec.dns.DefaultDnsQuestion;
+import io.netty.handler.codec.dns.DnsRawRecord;
+import io.netty.handler.codec.dns.DnsRecord;
+import io.netty.handler.codec.dns.DnsRecordType;
+import io.netty.resolver.dns.DnsNameResolver;
+import io.netty.resolver.dns.DnsNameResolverBuilder;
+import io.netty.resolver.dns.DnsServerAddressStreamProviders;
+import io.netty.resolver.dns.NoopDnsCache;
+import io.netty.resolver.dns.SingletonDnsServerAddressStreamProvider;
+import io.netty.util.NetUtil;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Asynchronous, TTL-respecting cache of hostname -> address for ICMP targets.
+ * <p>
+ * fping resolves hostnames itself, serially and on every batch; with this cache the Distributor
+ * resolves them up front and hands fping / the native ICMP engine plain addresses, so batch
+ * duration no longer depends on resolver latency.
+ * <p>
+ * - lookups run on the Netty DNS resolver Vert.x is built on (the Vert.x DnsClient does not expose
+ *   record TTLs), on a Netty event loop thread of this cache's own - public Netty API only, no
+ *   Vert.x internals; answers are handed back to the owning shard's context; A first, AAAA if
+ *   there is no A record
+ * - entries live for the record TTL, clamped to [dns.cache.min.ttl.s, dns.cache.max.ttl.s];
+ *   failed lookups are cached for {@code NEGATIVE_TTL_MS}
+ * - a sweep re-resolves recently used entries in the background once 80% of their TTL is gone,
+ *   and drops entries unused for {@code IDLE_EVICT_MS}
+ * - concurrent misses for one host share one query
+ * <p>
+ * Name server: -Ddns.server=host[:port], default the platform resolver configuration.
+ * <p>
+ * NOT thread-safe - owned by one Distributor shard, all callbacks run on its event loop.
+ */
+public class DnsCache
+{
+    public static final String ENABLED = "dns.cache.enabled";
+    public static final String SERVER = "dns.server";
+    public static final String MIN_TTL_S = "dns.cache.min.ttl.s";
+    public static final String MAX_TTL_S = "dns.cache.max.ttl.s";
+    private static final Logger logger = LoggerFactory.getLogger(DnsCache.class);
+    private static final long DEFAULT_MIN_TTL_S = 5;
+    private static final long DEFAULT_MAX_TTL_S = 3_600;
+    private static final long NEGATIVE_TTL_MS = 30_000;
+    private static final long QUERY_TIMEOUT_MS = 2_000;
+    private static final long SWEEP_INTERVAL_MS = 1_000;
+    // Longest poll interval plus slack - entries not used for this long are dropped
+    private static final long IDLE_EVICT_MS = 2 * 3_600_000L;
+    private static final double REFRESH_AT_TTL_FRACTION = 0.8;
+    private static final int DNS_PORT = 53;
+    private static final LongAdder hitCounter = Metrics.counter("dns.cache.hits");
+    private static final LongAdder missCounter = Metrics.counter("dns.cache.misses");
+    private static final LongAdder refreshCounter = Metrics.counter("dns.cache.refreshes");
+    private static final LongAdder failureCounter = Metrics.counter("dns.cache.failures");
+    private final Vertx vertx;
+    private final Context context;
+    // One thread for the resolver's UDP channel; answers hop back to context
+    private final EventLoopGroup resolverLoop;
+    private final DnsNameResolver resolver;
+    private final long minTtlMs;
+    private final long maxTtlMs;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final long sweepTimerId;
+
+    /**
+     * Must be created on the owning verticle's context.
+     */
+    public DnsCache(Vertx vertx)
+    {
+        this.vertx = vertx;
+        this.context = vertx.getOrCreateContext();
+        this.minTtlMs = Math.max(1, Long.getLong(MIN_TTL_S, DEFAULT_MIN_TTL_S)) * 1000;
+        this.maxTtlMs = Math.max(minTtlMs, Long.getLong(MAX_TTL_S, DEFAULT_MAX_TTL_S) * 1000);
+
+        var server = System.getProperty(SERVER);
+        this.resolverLoop = new MultiThreadIoEventLoopGroup(1, new DefaultThreadFactory("dns-cache", true),
+                                                            NioIoHandler.newFactory()
+        );
+        var builder = new DnsNameResolverBuilder(resolverLoop.next())
+            .datagramChannelType(NioDatagramChannel.class)
+            // This class is the cache - every lookup and refresh must reach the name server
+            .resolveCache(NoopDnsCache.INSTANCE)
+            .queryTimeoutMillis(QUERY_TIMEOUT_MS)
+            .nameServerProvider(server == null
+                                    ? DnsServerAddressStreamProviders.platformDefault()
+                                    : new SingletonDnsServerAddressStreamProvider(toSocketAddress(server)));
+        this.resolver = builder.build();
+        this.sweepTimerId = vertx.setPeriodic(SWEEP_INTERVAL_MS, id -> sweep());
+    }
+
+    /**
+     * @return true if the target is an IPv4 / IPv6 literal and needs no lookup
+     */
+    public static boolean isIpLiteral(String target)
+    {
+        return NetUtil.isValidIpV4Address(target) || NetUtil.isValidIpV6Address(target);
+    }
+
+    /**
+     * Resolve hostnames. Completes immediately when every host is cached; otherwise once the
+     * missing lookups finish (bounded by the query timeout).
+     *
+     * @return host -> address; hosts that could not be resolved are absent
+     */
+    public Future<Map<String, String>> resolve(Collection<String> hosts)
+    {
+        var now = System.currentTimeMillis();
+        Map<String, String> resolved = new HashMap<>(hosts.size());
+        List<Future<Entry>> misses = new ArrayList<>();
+
+        for (var host : hosts)
+        {
+            var entry = entries.get(host);
+            if (entry != null && now < entry.expiresAtMs)
+            {
+                hitCounter.increment();
+                entry.lastUsedMs = now;
+                if (entry.address != null)
+                {
+                    resolved.put(host, entry.address);
+                }
+                continue;
+            }
+            missCounter.increment();
+            misses.add(lookup(host, now));
+        }
+
+        if (misses.isEmpty())
+        {
+            return Future.succeededFuture(resolved);
+        }
+        return Future.join(misses)
+            .transform(ar -> {
+                misses.forEach(miss -> {
+                    var entry = miss.result();
+                    if (entry != null && entry.address != null)
+                    {
+                        resolved.put(entry.host, entry.address);
+                    }
+                });
+                return Future.succeededFuture(resolved);
+            });
+    }
+
+    /**
+     * @return number of cached hosts
+     */
+    public int size()
+    {
+        return entries.size();
+    }
+
+    public void close()
+    {
+        vertx.cancelTimer(sweepTimerId);
+        resolver.close();
+        resolverLoop.shutdownGracefully(0, QUERY_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        entries.clear();
+    }
+
+    /**
+     * Query a host, sharing an already running query. The cached entry is replaced once it completes.
+     */
+    private Future<Entry> lookup(String host, long now)
+    {
+        var entry = entries.computeIfAbsent(host, Entry::new);
+        entry.lastUsedMs = now;
+        if (entry.pending != null)
+        {
+            return entry.pending;
+        }
+
+        entry.pending = query(host, DnsRecordType.A)
+            .recover(err -> query(host, DnsRecordType.AAAA))
+            .transform(ar -> {
+                entry.pending = null;
+                var completedMs = System.currentTimeMillis();
+                if (ar.succeeded())
+                {
+                    var answer = ar.result();
+                    entry.address = answer.address;
+                    entry.resolvedAtMs = completedMs;
+                    entry.expiresAtMs = completedMs + Math.max(minTtlMs, Math.min(answer.ttlMs, maxTtlMs));
+                } else
+                {
+                    failureCounter.increment();
+                    logger.warn("[IP:{}] DNS lookup failed: {}", host, ar.cause().getMessage());
+                    if (entry.address == null || completedMs >= entry.expiresAtMs)
+                    {
+                        // Negative entry - don't hammer the name server for a name that does not resolve
+                        entry.address = null;
+                        entry.resolvedAtMs = completedMs;
+                        entry.expiresAtMs = completedMs + NEGATIVE_TTL_MS;
+                    }
+                    // else: a refresh failed, keep serving the old address until it expires
+                }
+                return Future.succeededFuture(entry);
+            });
+        return entry.pending;
+    }
+
+    /**
+     * One question to the resolver; fails if the answer has no record of that type.
+     */
+    private Future<Answer> query(String host, DnsRecordType type)
+    {
+        Promise<Answer> promise = Promise.promise();
+        resolver.resolveAll(new DefaultDnsQuestion(host, type))
+            .addListener(future -> context.runOnContext(v -> {
+                if (!future.isSuccess())
+                {
+                    promise.fail(future.cause());
+                    return;
+                }
+                @SuppressWarnings("unchecked")
+                var records = (List<DnsRecord>) future.getNow();
+                try
+                {
+                    promise.complete(toAnswer(host, type, records));
+                } catch (UnknownHostException e)
+                {
+                    promise.fail(e);
+                } finally
+                {
+                    records.forEach(DnsCache::release);
+                }
+            }));
+        return promise.future();
+    }
+
+    /**
+     * First address of the requested type; TTL is the smallest TTL in the answer (CNAMEs included).
+     */
+    private static Answer toAnswer(String host, DnsRecordType type, List<DnsRecord> records) throws UnknownHostException
+    {
+        String address = null;
+        var ttlSeconds = Long.MAX_VALUE;
+        for (var record : records)
+        {
+            ttlSeconds = Math.min(ttlSeconds, record.timeToLive());
+            if (address == null && record.type() == type && record instanceof DnsRawRecord raw)
+            {
+                var content = raw.content();
+                var bytes = new byte[content.readableBytes()];
+                content.getBytes(content.readerIndex(), bytes);
+                address = InetAddress.getByAddress(host, bytes)
+                    .getHostAddress();
+            }
+        }
+        if (address == null)
+        {
+            throw new UnknownHostException("No " + type.name() + " record for " + host);
+        }
+        return new Answer(address, ttlSeconds * 1000);
+    }
+
+    private static void release(DnsRecord record)
+    {
+        if (record instanceof DnsRawRecord raw)
+        {
+            raw.release();
+        }
+    }
+
+    /**
+     * Refresh entries that are in use and close to expiry; drop idle ones.
+     */
+    private void sweep()
+    {
+        var now = System.currentTimeMillis();
+        List<String> refresh = new ArrayList<>();
+        var iterator = entries.values()
+            .iterator();
+        while (iterator.hasNext())
+        {
+            var entry = iterator.next();
+            if (entry.pending != null)
+            {
+                continue;
+            }
+            if (now - entry.lastUsedMs > IDLE_EVICT_MS)
+            {
+                iterator.remove();
+            } else if (entry.address != null &&
+                now >= entry.resolvedAtMs + (long) ((entry.expiresAtMs - entry.resolvedAtMs) * REFRESH_AT_TTL_FRACTION))
+            {
+                refresh.add(entry.host);
+            }
+        }
+
+        refresh.forEach(host -> {
+            refreshCounter.increment();
+            // A refresh must not count as a use, or entries would never go idle
+            lookup(host, entries.get(host).lastUsedMs);
+        });
+    }
+
+    private static InetSocketAddress toSocketAddress(String server)
+    {
+        var separator = server.lastIndexOf(':');
+        if (separator > 0 && server.indexOf(':') == separator)
+        {
+            return new InetSocketAddress(server.substring(0, separator), Integer.parseInt(server.substring(separator + 1)));
+        }
+        return new InetSocketAddress(server, DNS_PORT);
+    }
+
+    private record Answer(String address, long ttlMs)
+    {
+    }
+
+    private static final class Entry
+    {
+        private final String host;
+        // null while unresolved or for a negative entry
+        private String address;
+        private long resolvedAtMs;
+        private long expiresAtMs;
+        private long lastUsedMs;
+        private Future<Entry> pending;
+
+        private Entry(String host)
+        {
+            this.host = host;
+        }
+    }
+
+}
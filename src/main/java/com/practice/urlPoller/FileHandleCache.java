@@ -0,0 +1,267 @@
+package com.practice.urlPoller;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.AsyncFile;
+import io.vertx.core.file.OpenOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded LRU cache of open append-mode {@link AsyncFile} handles, keyed by file name.
+ * <p>
+ * Without it every CSV row costs open + write + flush + close on the file system's blocking pool;
+ * with it a target that is written every cycle keeps its file open and a row is a write + flush.
+ * <p>
+ * - at most -Dfilewriter.max.open handles; above that the least recently used idle one is closed
+ * - a sweep closes handles not written for -Dfilewriter.idle.ms (deleted IPs, long intervals)
+ * - a handle with writes in flight is never closed; the limit may be exceeded until they complete
+ * - writes to a file that is still opening are queued and issued in order once it is open
+ * <p>
+ * Writes to one handle complete in submission order (AsyncFile queues them), so rows of a target
+ * stay in order - unlike one open / close per row, where two opens of the same file could race.
+ * <p>
+ * NOT thread-safe - owned by the FileWriter verticle, all callbacks run on its event loop.
+ */
+public class FileHandleCache
+{
+    public static final String MAX_OPEN = "filewriter.max.open";
+    public static final String IDLE_MS = "filewriter.idle.ms";
+    private static final Logger logger = LoggerFactory.getLogger(FileHandleCache.class);
+    // Well below the usual 1024 fd soft limit, which sockets and fping pipes share
+    private static final int DEFAULT_MAX_OPEN = 512;
+    // Longer than common poll intervals, so hot targets keep their handle between cycles
+    private static final long DEFAULT_IDLE_MS = 300_000;
+    private static final long MAX_SWEEP_INTERVAL_MS = 10_000;
+    private static final LongAdder openedCounter = Metrics.counter("filewriter.files.opened");
+    private static final LongAdder closedCounter = Metrics.counter("filewriter.files.closed");
+    private static final LongAdder hitCounter = Metrics.counter("filewriter.handles.hits");
+    private static final LongAdder missCounter = Metrics.counter("filewriter.handles.misses");
+    private final Vertx vertx;
+    private final OpenOptions options;
+    private final int maxOpen;
+    private final long idleMs;
+    // Access order: eldest entry = least recently written
+    private final LinkedHashMap<String, Handle> handles = new LinkedHashMap<>(64, 0.75f, true);
+    private final long sweepTimerId;
+
+    /**
+     * Must be created on the owning verticle's context.
+     */
+    public FileHandleCache(Vertx vertx, OpenOptions options)
+    {
+        this.vertx = vertx;
+        this.options = options;
+        this.maxOpen = Math.max(1, Integer.getInteger(MAX_OPEN, DEFAULT_MAX_OPEN));
+        this.idleMs = Math.max(1, Long.getLong(IDLE_MS, DEFAULT_IDLE_MS));
+        this.sweepTimerId = vertx.setPeriodic(Math.min(idleMs, MAX_SWEEP_INTERVAL_MS), id -> sweep());
+
+        Metrics.gauge("filewriter.files.open", handles::size);
+        Metrics.gauge("filewriter.handles.hit.ratio", FileHandleCache::hitRatio);
+    }
+
+    /**
+     * @return share of writes that found their file open, 0 before the first write
+     */
+    static double hitRatio()
+    {
+        var hits = hitCounter.sum();
+        var total = hits + missCounter.sum();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Append data to a file through its cached handle (opened on a miss) and flush it.
+     *
+     * @param key  cache key (the sanitized file name)
+     * @param path file path, used to open the file on a miss
+     * @return completes when the data is written and flushed
+     */
+    public Future<Void> append(String key, String path, Buffer data)
+    {
+        var handle = acquire(key, path);
+        Future<Void> written;
+        if (handle.file != null)
+        {
+            written = write(handle.file, data);
+        } else
+        {
+            // Still opening - a write issued from an open listener could overtake earlier ones
+            var queued = Promise.<Void>promise();
+            handle.queued.add(new QueuedWrite(data, queued));
+            written = queued.future();
+        }
+        handle.lastWrite = written;
+        return written.andThen(ar -> release(handle));
+    }
+
+    /**
+     * @return number of open (or opening) handles
+     */
+    public int size()
+    {
+        return handles.size();
+    }
+
+    /**
+     * Close every handle, waiting for their writes.
+     */
+    public Future<Void> close()
+    {
+        vertx.cancelTimer(sweepTimerId);
+        List<Future<Void>> closes = new ArrayList<>(handles.size());
+        handles.values()
+            .forEach(handle -> closes.add(close(handle)));
+        handles.clear();
+        logger.info("Closed {} cached file handles (hit ratio {})", closes.size(), hitRatio());
+        return Future.join(closes)
+            .mapEmpty();
+    }
+
+    private Handle acquire(String key, String path)
+    {
+        var handle = handles.get(key);
+        if (handle != null)
+        {
+            hitCounter.increment();
+            handle.pending++;
+            handle.lastUsedMs = System.currentTimeMillis();
+            return handle;
+        }
+
+        missCounter.increment();
+        var opening = vertx.fileSystem()
+            .open(path, options);
+        var created = new Handle(opening);
+        // First listener of the open, so it runs before any write that saw the file open
+        opening.onComplete(ar -> {
+            if (ar.succeeded())
+            {
+                openedCounter.increment();
+                created.file = ar.result();
+                for (var queued : created.queued)
+                {
+                    write(created.file, queued.data).onComplete(queued.promise);
+                }
+            } else
+            {
+                // Not cached - the next write tries again
+                handles.remove(key, created);
+                created.queued.forEach(queued -> queued.promise.fail(ar.cause()));
+            }
+            created.queued.clear();
+        });
+        created.pending++;
+        created.lastUsedMs = System.currentTimeMillis();
+        handles.put(key, created);
+        evictOverLimit();
+        return created;
+    }
+
+    private void release(Handle handle)
+    {
+        handle.pending--;
+        if (handles.size() > maxOpen)
+        {
+            // Handles skipped by an eviction while they were busy
+            evictOverLimit();
+        }
+    }
+
+    private static Future<Void> write(AsyncFile file, Buffer data)
+    {
+        return file.write(data)
+            .compose(v -> file.flush());
+    }
+
+    /**
+     * Close least recently used idle handles until the limit holds.
+     */
+    private void evictOverLimit()
+    {
+        var iterator = handles.values()
+            .iterator();
+        while (handles.size() > maxOpen && iterator.hasNext())
+        {
+            var handle = iterator.next();
+            if (handle.pending == 0)
+            {
+                iterator.remove();
+                close(handle);
+            }
+        }
+    }
+
+    /**
+     * Close handles not written for idleMs (and restore the limit if in-flight writes exceeded it).
+     */
+    private void sweep()
+    {
+        var now = System.currentTimeMillis();
+        var iterator = handles.values()
+            .iterator();
+        var evicted = 0;
+        while (iterator.hasNext())
+        {
+            var handle = iterator.next();
+            if (now - handle.lastUsedMs <= idleMs)
+            {
+                // Access order: everything after this one was written more recently
+                break;
+            }
+            if (handle.pending == 0)
+            {
+                iterator.remove();
+                close(handle);
+                evicted++;
+            }
+        }
+        evictOverLimit();
+        if (evicted > 0)
+        {
+            logger.debug("Closed {} idle file handles, {} open", evicted, handles.size());
+        }
+    }
+
+    /**
+     * Close a handle after its last write (writes of one file complete in order).
+     */
+    private static Future<Void> close(Handle handle)
+    {
+        return handle.lastWrite
+            .transform(ar -> handle.opening)
+            .compose(AsyncFile::close)
+            .onSuccess(v -> closedCounter.increment())
+            .otherwiseEmpty();
+    }
+
+    private record QueuedWrite(Buffer data, Promise<Void> promise)
+    {
+    }
+
+    private static final class Handle
+    {
+        private final Future<AsyncFile> opening;
+        // Set once open; until then writes wait in queued
+        private AsyncFile file;
+        private final ArrayDeque<QueuedWrite> queued = new ArrayDeque<>();
+        private Future<Void> lastWrite = Future.succeededFuture();
+        // Appends in flight - the handle is not closed while > 0
+        private int pending;
+        private long lastUsedMs;
+
+        private Handle(Future<AsyncFile> opening)
+        {
+            this.opening = opening;
+        }
+    }
+
+}
@@ -4,33 +4,60 @@ import io.vertx.core.Future;
 import io.vertx.core.VerticleBase;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.file.OpenOptions;
-import io.vertx.core.json.JsonObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
-import static com.practice.urlPoller.Constants.Event.PROCESS_FAILED;
-import static com.practice.urlPoller.Constants.Event.PROCESS_SUCCEEDED;
-import static com.practice.urlPoller.Constants.JsonFields.DATA;
-import static com.practice.urlPoller.Constants.JsonFields.FILE_NAME;
+import static com.practice.urlPoller.Constants.Event.PROCESS_RESULTS;
 
+/**
+ * Writes every probe result as a CSV row to stats/&lt;target&gt;.csv.
+ * <p>
+ * Group commit (-Dfilewriter.group.commit.ms, default 250): rows are collected per file and each
+ * file gets one write + flush with all its rows when the deadline passes, or earlier once its rows
+ * reach -Dfilewriter.group.commit.bytes. A row reaches its file at most that many ms after it
+ * arrived; pending rows are written on undeploy. 0 writes and flushes every row on its own.
+ */
 public class FileWriter extends VerticleBase
 {
-  public static final String S_D_S = "%s,%d,%s\n";
+  public static final String GROUP_COMMIT_MS = "filewriter.group.commit.ms";
+  public static final String GROUP_COMMIT_BYTES = "filewriter.group.commit.bytes";
   private static final Logger logger = LoggerFactory.getLogger(FileWriter.class);
+  private static final long DEFAULT_GROUP_COMMIT_MS = 250;
+  private static final int DEFAULT_GROUP_COMMIT_BYTES = 64 * 1024;
+  private static final LongAdder rowsCounter = Metrics.counter("filewriter.rows");
+  private static final LongAdder writesCounter = Metrics.counter("filewriter.writes");
   private static final String FILE_PARENT = "stats/";
   private static final String DATE_TIME_FORMAT = "yyyy-MM-dd HH:mm:ss";
   private static final DateTimeFormatter TIMESTAMP_FORMATTER = DateTimeFormatter.ofPattern(DATE_TIME_FORMAT);
   private static final String CSV_EXTENSION = ".csv";
   // CSV header format
   private static final String CSV_HEADER = "Timestamp,EpochMs,Status,PacketLoss,MinRTT_ms,AvgRTT_ms,MaxRTT_ms\n";
+  // HTTP probes: RTT columns hold the total latency, plus status code and time to first byte
+  private static final String CSV_HEADER_HTTP = "Timestamp,EpochMs,Status,PacketLoss,MinRTT_ms,AvgRTT_ms,MaxRTT_ms,HttpStatus,TTFB_ms\n";
+  // -Drtt.stats=true: jitter, percentiles and the per-packet RTTs ("1.20|-|1.35")
+  private static final String CSV_HEADER_RTT_STATS = "Timestamp,EpochMs,Status,PacketLoss,MinRTT_ms,AvgRTT_ms,MaxRTT_ms,Jitter_ms,P50_ms,P95_ms,P99_ms,RTTs_ms\n";
   // Track which files have been initialized with headers (thread-safe)
   private static final Set<String> initializedFiles = ConcurrentHashMap.newKeySet();
+  // Open append handles of recently written files (created on this verticle's context)
+  private FileHandleCache fileHandles;
+  private long groupCommitMs;
+  private int groupCommitBytes;
+  private long commitTimerId = -1;
+  // Group commit: rows not yet written, by sanitized file name
+  private final Map<String, PendingRows> pendingRows = new HashMap<>();
 
   static
   {
@@ -47,98 +74,157 @@ public class FileWriter extends VerticleBase
     logger.info("FileWriter verticle started");
     logger.info("CSV output directory: {}", new File(FILE_PARENT).getAbsolutePath());
 
+    fileHandles = new FileHandleCache(vertx, new OpenOptions().setAppend(true)
+                                                              .setCreate(true));
+    groupCommitMs = Math.max(0, Long.getLong(GROUP_COMMIT_MS, DEFAULT_GROUP_COMMIT_MS));
+    groupCommitBytes = Math.max(1, Integer.getInteger(GROUP_COMMIT_BYTES, DEFAULT_GROUP_COMMIT_BYTES));
+    if (groupCommitMs > 0)
+    {
+      // Every file's rows are written once per period, so no row waits longer than groupCommitMs
+      commitTimerId = vertx.setPeriodic(groupCommitMs, id -> commitAll());
+      logger.info("Group commit: every {}ms or {} bytes per file", groupCommitMs, groupCommitBytes);
+    }
+
+    // One message per probe batch; every row goes to its target's file
     vertx.eventBus()
-         .consumer(PROCESS_FAILED, message -> {
-           var json = (JsonObject) message.body();
-           var ip = json.getString(FILE_NAME);
+         .<ResultBatch>consumer(PROCESS_RESULTS, message -> {
+           var batch = message.body();
+           logger.debug("PROCESS_RESULTS batch received: {} results", batch.size());
 
-           logger.debug("[IP:{}] PROCESS_FAILED event received", ip);
+           for (var i = 0; i < batch.size(); i++)
+           {
+             // Option C - Whitelist logging:
+             if (LogConfig.shouldLogIp(batch.target(i))) {
+               logger.trace("[IP:{}] {}, writing to CSV", batch.target(i), batch.status(i));
+             }
 
-           // Option C - Whitelist logging:
-           if (LogConfig.shouldLogIp(ip)) {
-             logger.trace("[IP:{}] Writing FAILED result to CSV", ip);
+             writeCsvRow(batch, i);
            }
-
-           writeCsvRow(ip, json.getString(DATA));
          });
 
-    vertx.eventBus()
-         .consumer(PROCESS_SUCCEEDED, message -> {
-           var json = (JsonObject) message.body();
-           var ip = json.getString(FILE_NAME);
+    return Future.succeededFuture();
+  }
 
-           // Option C - Whitelist logging:
-           if (LogConfig.shouldLogIp(ip)) {
-             logger.trace("[IP:{}] PROCESS_SUCCEEDED, writing to CSV", ip);
-           }
+  @Override
+  public Future<?> stop()
+  {
+    if (commitTimerId >= 0)
+    {
+      vertx.cancelTimer(commitTimerId);
+    }
+    // Pending rows go out first; closing waits for in-flight writes before the handles are closed
+    commitAll();
+    return fileHandles.close();
+  }
 
-           writeCsvRow(ip, json.getString(DATA));
-         });
+  /**
+   * CSV header for the file of a batch row's target: by probe type and -Drtt.stats, not by the row,
+   * so it matches every later row of the file (see {@link PingResultUtil#appendCsvRow}).
+   */
+  static String headerFor(ResultBatch batch, int i)
+  {
+    if (batch.isHttp(i))
+    {
+      return CSV_HEADER_HTTP;
+    }
+    return RttStats.enabled() ? CSV_HEADER_RTT_STATS : CSV_HEADER;
+  }
 
-    return Future.succeededFuture();
+  /**
+   * CSV line of a batch row: probe time, epoch ms, then the row of {@link PingResultUtil#appendCsvRow}.
+   */
+  static String toCsvLine(ResultBatch batch, int i)
+  {
+    var probedAtMs = batch.probedAtMs(i);
+    var timestamp = LocalDateTime.ofInstant(Instant.ofEpochMilli(probedAtMs), ZoneId.systemDefault());
+    var line = new StringBuilder(96);
+    TIMESTAMP_FORMATTER.formatTo(timestamp, line);
+    line.append(',')
+        .append(probedAtMs)
+        .append(',');
+    return PingResultUtil.appendCsvRow(line, batch, i)
+                         .append('\n')
+                         .toString();
   }
 
   /**
-   * Write a CSV row to the file with timestamp.
-   * Thread-safe: Each IP has its own file, and Vert.x file operations are async but sequential.
+   * Write a CSV row to the file with timestamp, through the file's cached handle - right away, or
+   * with the file's next group commit.
+   * Runs on this verticle's event loop; rows of one file are written in order.
    * Adds CSV header on first write.
    *
-   * @param fileName IP address (used as filename)
-    * @param csvRow   CSV row data (Status,Loss,Min,Avg,Max)
+   * @param batch result batch; the row's target is the file name
+   * @param i     row index
    */
-  private void writeCsvRow(String fileName, String csvRow)
+  private void writeCsvRow(ResultBatch batch, int i)
   {
-    var startNs = System.nanoTime();
+    var fileName = batch.target(i);
     var sanitizedFileName = sanitizeFileName(fileName);
-    var filePath = FILE_PARENT + sanitizedFileName + CSV_EXTENSION;
+
+    var pending = pendingRows.get(sanitizedFileName);
+    if (pending == null)
+    {
+      pending = new PendingRows(fileName, FILE_PARENT + sanitizedFileName + CSV_EXTENSION);
+      pendingRows.put(sanitizedFileName, pending);
+    }
 
     // Check if file needs initialization with header (thread-safe)
     var needsHeader = initializedFiles.add(sanitizedFileName);  // Returns true if newly added
 
-    vertx.fileSystem()
-         .open(filePath, new OpenOptions().setAppend(true)
-                                          .setCreate(true))
-         .onFailure(error -> logger.error("[IP:{}] File write failed: path={}, error={}",
-             fileName, filePath, error.getMessage(), error))
-         .onSuccess(file -> {
-           var durationMs = (System.nanoTime() - startNs) / 1_000_000;
-
-           if (LogConfig.shouldLogIp(fileName)) {
-             logger.trace("[IP:{}] File opened: path={}, duration={}ms",
-                 fileName, filePath, durationMs);
-           }
-
-           var buffer = Buffer.buffer();
-
-           // Add header if this is the first write to this file
-           if (needsHeader)
-           {
-             buffer.appendString(CSV_HEADER);
-           }
+    // Add header if this is the first write to this file
+    if (needsHeader)
+    {
+      pending.buffer.appendString(headerFor(batch, i));
+    }
 
-           // Add timestamp + CSV data
-           var timestamp = LocalDateTime.now()
-                                        .format(TIMESTAMP_FORMATTER);
-           var epochMs = System.currentTimeMillis();
-           var csvLine = String.format(S_D_S, timestamp, epochMs, csvRow);
+    // Add timestamp + CSV data (time of the probe, not of the write)
+    pending.buffer.appendString(toCsvLine(batch, i));
+    pending.rows++;
 
-           buffer.appendString(csvLine);
+    if (groupCommitMs == 0 || pending.buffer.length() >= groupCommitBytes)
+    {
+      pendingRows.remove(sanitizedFileName);
+      commit(sanitizedFileName, pending);
+    }
+  }
 
-           // Write and close
-           file.write(buffer)
-               .compose(v -> file.flush())
-               .onComplete(writeResult -> {
-                 var totalDurationMs = (System.nanoTime() - startNs) / 1_000_000;
+  /**
+   * Write every file's pending rows.
+   */
+  private void commitAll()
+  {
+    if (pendingRows.isEmpty())
+    {
+      return;
+    }
+    List<Map.Entry<String, PendingRows>> due = new ArrayList<>(pendingRows.entrySet());
+    pendingRows.clear();
+    var rows = 0;
+    for (var entry : due)
+    {
+      rows += entry.getValue().rows;
+      commit(entry.getKey(), entry.getValue());
+    }
+    logger.debug("Group commit: {} rows to {} files", rows, due.size());
+  }
 
-                 if (LogConfig.shouldLogIp(fileName)) {
-                   logger.trace("[IP:{}] Write completed: bytes={}, duration={}ms",
-                       fileName, buffer.length(), totalDurationMs);
+  /**
+   * One write + flush with all pending rows of a file.
+   */
+  private void commit(String sanitizedFileName, PendingRows pending)
+  {
+    rowsCounter.add(pending.rows);
+    writesCounter.increment();
+    var startNs = System.nanoTime();
+    fileHandles.append(sanitizedFileName, pending.path, pending.buffer)
+               .onFailure(error -> logger.error("[IP:{}] File write failed: path={}, rows={}, error={}",
+                   pending.target, pending.path, pending.rows, error.getMessage(), error))
+               .onSuccess(v -> {
+                 if (LogConfig.shouldLogIp(pending.target)) {
+                   logger.trace("[IP:{}] Write completed: rows={}, bytes={}, duration={}ms",
+                       pending.target, pending.rows, pending.buffer.length(), (System.nanoTime() - startNs) / 1_000_000);
                  }
-
-                 file.close();
                });
-         })
-    ;
   }
 
   /**
@@ -148,7 +234,7 @@ public class FileWriter extends VerticleBase
    * @param input The input string (IP or URL)
    * @return Sanitized filename safe for file systems
    */
-  private String sanitizeFileName(String input)
+  static String sanitizeFileName(String input)
   {
     if (input == null || input.isEmpty()) {
       return "unknown";
@@ -162,4 +248,23 @@ public class FileWriter extends VerticleBase
                 .replaceAll("^_|_$", ""); // Remove leading/trailing underscores
   }
 
+  /**
+   * Rows of one file waiting for the group commit.
+   *
+   * @param target first target written to the file (for logging)
+   */
+  private static final class PendingRows
+  {
+    private final String target;
+    private final String path;
+    private final Buffer buffer = Buffer.buffer();
+    private int rows;
+
+    private PendingRows(String target, String path)
+    {
+      this.target = target;
+      this.path = path;
+    }
+  }
+
 }
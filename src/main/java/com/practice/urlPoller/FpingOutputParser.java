@@ -0,0 +1,577 @@
+package com.practice.urlPoller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Allocation-free parser for the raw output bytes of an fping process.
+ * <p>
+ * The output is read into one reusable buffer and every line is parsed in place - no String per
+ * line, no regex, no boxed numbers. {@link #next()} advances to the next line and the accessors
+ * return its fields until the following call.
+ * <p>
+ * Line kinds:
+ * REPLY      8.8.8.8     : [0], 64 bytes, 15.2 ms (15.2 avg, 0% loss)
+ * TIMED_OUT  192.168.1.1 : [0], timed out (NaN avg, 100% loss)
+ * SUMMARY    8.8.8.8     : xmt/rcv/%loss = 1/1/0%, min/avg/max = 15.2/15.2/15.2
+ * OTHER      duplicates, ICMP errors, "[hh:mm:ss]" headers of -Q, anything else
+ * <p>
+ * Targets are numbered by slot, their position in the collection given to the constructor
+ * (duplicates share one), and found by hashing the name bytes - the name String is never rebuilt.
+ * A name that is not in the collection (fping echoes -f - input verbatim, so only with an empty
+ * one) gets a new slot, which allocates once per name.
+ * <p>
+ * RTTs are fixed-point decimals ("15.2", "0.045"), parsed as an integer mantissa divided by a power
+ * of ten. Up to 15 significant digits the mantissa is below 2^53 and exact, so the one correctly
+ * rounded division gives the same value as Double.parseDouble; 16 - 18 digits (never printed by
+ * fping) may be one ulp off, more are rejected.
+ * <p>
+ * NOT thread-safe - one instance per reading thread.
+ */
+public final class FpingOutputParser
+{
+    public static final int OTHER = 0;
+    public static final int REPLY = 1;
+    public static final int TIMED_OUT = 2;
+    public static final int SUMMARY = 3;
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_DIGITS = 18;
+    private static final double[] POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18
+    };
+    private static final byte[] BYTES = ascii("bytes,");
+    private static final byte[] TIMED_OUT_TEXT = ascii("timed out");
+    private static final byte[] XMT_RCV_LOSS = ascii("xmt/rcv/%loss");
+    private static final byte[] MIN_AVG_MAX = ascii("min/avg/max");
+    private final InputStream in;
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    // Unconsumed bytes are buffer[start, limit); buffer[start, scanned) holds no newline
+    private int start;
+    private int scanned;
+    private int limit;
+    private boolean eof;
+
+    // Target table: names by slot, open-addressing index of slot + 1 (0 = empty)
+    private String[] names;
+    private byte[][] nameBytes;
+    private int targetCount;
+    private int[] index;
+
+    // Current line
+    private int lineStart;
+    private int lineEnd;
+    private int pos;
+    private int kind;
+    private int target;
+    private int probeIndex;
+    private double rttMs;
+    private int sent;
+    private int received;
+    private int lossPercent;
+    private boolean hasRtt;
+    private double minRttMs;
+    private double avgRttMs;
+    private double maxRttMs;
+
+    /**
+     * @param in      fping stdout (and stderr), read until EOF
+     * @param targets targets fping was given, in slot order
+     */
+    public FpingOutputParser(InputStream in, Collection<String> targets)
+    {
+        this.in = in;
+        var capacity = Math.max(16, targets.size());
+        this.names = new String[capacity];
+        this.nameBytes = new byte[capacity][];
+        this.index = new int[tableSize(capacity)];
+        for (var target : targets)
+        {
+            var bytes = target.getBytes(StandardCharsets.UTF_8);
+            if (find(bytes) < 0)
+            {
+                add(target, bytes);
+            }
+        }
+    }
+
+    /**
+     * Advance to the next output line, reading more output when needed (blocks).
+     *
+     * @return false at end of output
+     */
+    public boolean next() throws IOException
+    {
+        while (true)
+        {
+            for (var i = scanned; i < limit; i++)
+            {
+                if (buffer[i] == '\n')
+                {
+                    parse(start, i);
+                    start = i + 1;
+                    scanned = start;
+                    return true;
+                }
+            }
+            scanned = limit;
+            if (eof)
+            {
+                if (start == limit)
+                {
+                    return false;
+                }
+                // Last line without a newline
+                parse(start, limit);
+                start = limit;
+                scanned = limit;
+                return true;
+            }
+            fill();
+        }
+    }
+
+    /**
+     * @return OTHER, REPLY, TIMED_OUT or SUMMARY
+     */
+    public int kind()
+    {
+        return kind;
+    }
+
+    /**
+     * @return slot of the line's target (REPLY, TIMED_OUT, SUMMARY)
+     */
+    public int target()
+    {
+        return target;
+    }
+
+    /**
+     * @return number of known targets; slots are 0 until this
+     */
+    public int targetCount()
+    {
+        return targetCount;
+    }
+
+    /**
+     * @return the target name of a slot, as given to the constructor
+     */
+    public String name(int slot)
+    {
+        return names[slot];
+    }
+
+    /**
+     * @return probe index ([n]) of a REPLY / TIMED_OUT line
+     */
+    public int probeIndex()
+    {
+        return probeIndex;
+    }
+
+    /**
+     * @return RTT of a REPLY line (ms)
+     */
+    public double rttMs()
+    {
+        return rttMs;
+    }
+
+    /**
+     * @return probes sent (SUMMARY)
+     */
+    public int sent()
+    {
+        return sent;
+    }
+
+    /**
+     * @return replies received (SUMMARY)
+     */
+    public int received()
+    {
+        return received;
+    }
+
+    /**
+     * @return packet loss % (SUMMARY)
+     */
+    public int lossPercent()
+    {
+        return lossPercent;
+    }
+
+    /**
+     * @return true if the SUMMARY line has min/avg/max (the target replied)
+     */
+    public boolean hasRtt()
+    {
+        return hasRtt;
+    }
+
+    public double minRttMs()
+    {
+        return minRttMs;
+    }
+
+    public double avgRttMs()
+    {
+        return avgRttMs;
+    }
+
+    public double maxRttMs()
+    {
+        return maxRttMs;
+    }
+
+    /**
+     * The current line as a String - allocates, for logging only.
+     */
+    public String line()
+    {
+        return new String(buffer, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+    }
+
+    private void fill() throws IOException
+    {
+        if (start > 0)
+        {
+            // Move the partial line to the front
+            System.arraycopy(buffer, start, buffer, 0, limit - start);
+            limit -= start;
+            scanned -= start;
+            start = 0;
+        }
+        if (limit == buffer.length)
+        {
+            // A line longer than the buffer - never for fping, but don't lose it
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        var read = in.read(buffer, limit, buffer.length - limit);
+        if (read < 0)
+        {
+            eof = true;
+        } else
+        {
+            limit += read;
+        }
+    }
+
+    private void parse(int from, int to)
+    {
+        while (to > from && isSpace(buffer[to - 1]))
+        {
+            to--;
+        }
+        lineStart = from;
+        lineEnd = to;
+        pos = from;
+        kind = OTHER;
+
+        skipSpaces();
+        var nameStart = pos;
+        while (pos < lineEnd && !isSpace(buffer[pos]))
+        {
+            pos++;
+        }
+        var nameEnd = pos;
+        skipSpaces();
+        if (nameEnd == nameStart || !expect((byte) ':'))
+        {
+            return;
+        }
+        skipSpaces();
+
+        var lineKind = pos < lineEnd && buffer[pos] == '[' ? parseProbe() : parseSummary();
+        if (lineKind != OTHER)
+        {
+            target = slot(nameStart, nameEnd);
+            kind = lineKind;
+        }
+    }
+
+    /**
+     * "[n], 64 bytes, 15.2 ms ..." or "[n], timed out ..."
+     */
+    private int parseProbe()
+    {
+        pos++;
+        probeIndex = parseInt();
+        if (probeIndex < 0 || !expect((byte) ']') || !expect((byte) ','))
+        {
+            return OTHER;
+        }
+        skipSpaces();
+        if (startsWith(TIMED_OUT_TEXT))
+        {
+            return TIMED_OUT;
+        }
+        if (parseInt() < 0)
+        {
+            return OTHER;
+        }
+        skipSpaces();
+        if (!startsWith(BYTES))
+        {
+            return OTHER;
+        }
+        pos += BYTES.length;
+        skipSpaces();
+        rttMs = parseDecimal();
+        if (rttMs < 0)
+        {
+            return OTHER;
+        }
+        skipSpaces();
+        return expect((byte) 'm') && expect((byte) 's') ? REPLY : OTHER;
+    }
+
+    /**
+     * "xmt/rcv/%loss = 3/3/0%, min/avg/max = 1.1/1.2/1.3" (min/avg/max only if the target replied)
+     */
+    private int parseSummary()
+    {
+        if (!startsWith(XMT_RCV_LOSS))
+        {
+            return OTHER;
+        }
+        pos += XMT_RCV_LOSS.length;
+        skipSpaces();
+        if (!expect((byte) '='))
+        {
+            return OTHER;
+        }
+        skipSpaces();
+        sent = parseInt();
+        if (sent < 0 || !expect((byte) '/'))
+        {
+            return OTHER;
+        }
+        received = parseInt();
+        if (received < 0 || !expect((byte) '/'))
+        {
+            return OTHER;
+        }
+        lossPercent = parseInt();
+        if (lossPercent < 0 || !expect((byte) '%'))
+        {
+            return OTHER;
+        }
+
+        hasRtt = false;
+        if (!expect((byte) ','))
+        {
+            return SUMMARY;
+        }
+        skipSpaces();
+        if (!startsWith(MIN_AVG_MAX))
+        {
+            return SUMMARY;
+        }
+        pos += MIN_AVG_MAX.length;
+        skipSpaces();
+        if (!expect((byte) '='))
+        {
+            return SUMMARY;
+        }
+        skipSpaces();
+        minRttMs = parseDecimal();
+        if (minRttMs < 0 || !expect((byte) '/'))
+        {
+            return SUMMARY;
+        }
+        avgRttMs = parseDecimal();
+        if (avgRttMs < 0 || !expect((byte) '/'))
+        {
+            return SUMMARY;
+        }
+        maxRttMs = parseDecimal();
+        hasRtt = maxRttMs >= 0;
+        return SUMMARY;
+    }
+
+    /**
+     * @return the non-negative integer at pos, or -1
+     */
+    private int parseInt()
+    {
+        var value = 0L;
+        var digitsStart = pos;
+        while (pos < lineEnd && isDigit(buffer[pos]) && pos - digitsStart < 10)
+        {
+            value = value * 10 + (buffer[pos++] - '0');
+        }
+        return pos == digitsStart || value > Integer.MAX_VALUE ? -1 : (int) value;
+    }
+
+    /**
+     * @return the non-negative decimal ("12", "12.345") at pos, or -1
+     */
+    private double parseDecimal()
+    {
+        var mantissa = 0L;
+        var digits = 0;
+        var fractionDigits = 0;
+        var fraction = false;
+        while (pos < lineEnd)
+        {
+            var b = buffer[pos];
+            if (isDigit(b))
+            {
+                if (++digits > MAX_DIGITS)
+                {
+                    return -1;
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                if (fraction)
+                {
+                    fractionDigits++;
+                }
+            } else if (b == '.' && !fraction)
+            {
+                fraction = true;
+            } else
+            {
+                break;
+            }
+            pos++;
+        }
+        return digits == 0 ? -1 : mantissa / POW10[fractionDigits];
+    }
+
+    private boolean expect(byte b)
+    {
+        if (pos < lineEnd && buffer[pos] == b)
+        {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean startsWith(byte[] text)
+    {
+        return lineEnd - pos >= text.length && Arrays.equals(buffer, pos, pos + text.length, text, 0, text.length);
+    }
+
+    private void skipSpaces()
+    {
+        while (pos < lineEnd && isSpace(buffer[pos]))
+        {
+            pos++;
+        }
+    }
+
+    private static boolean isSpace(byte b)
+    {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+    private static boolean isDigit(byte b)
+    {
+        return b >= '0' && b <= '9';
+    }
+
+    /**
+     * Slot of the name in buffer[from, to); unknown names get a new one.
+     */
+    private int slot(int from, int to)
+    {
+        var slot = find(buffer, from, to);
+        if (slot >= 0)
+        {
+            return slot;
+        }
+        var bytes = Arrays.copyOfRange(buffer, from, to);
+        return add(new String(bytes, StandardCharsets.UTF_8), bytes);
+    }
+
+    private int find(byte[] name)
+    {
+        return find(name, 0, name.length);
+    }
+
+    private int find(byte[] bytes, int from, int to)
+    {
+        var mask = index.length - 1;
+        for (var i = hash(bytes, from, to) & mask; ; i = (i + 1) & mask)
+        {
+            var entry = index[i];
+            if (entry == 0)
+            {
+                return -1;
+            }
+            var name = nameBytes[entry - 1];
+            if (Arrays.equals(name, 0, name.length, bytes, from, to))
+            {
+                return entry - 1;
+            }
+        }
+    }
+
+    private int add(String name, byte[] bytes)
+    {
+        if (targetCount == names.length)
+        {
+            names = Arrays.copyOf(names, targetCount * 2);
+            nameBytes = Arrays.copyOf(nameBytes, targetCount * 2);
+        }
+        var slot = targetCount++;
+        names[slot] = name;
+        nameBytes[slot] = bytes;
+        if (targetCount * 2 > index.length)
+        {
+            rehash(index.length * 2);
+        } else
+        {
+            insert(slot);
+        }
+        return slot;
+    }
+
+    private void rehash(int size)
+    {
+        index = new int[size];
+        for (var slot = 0; slot < targetCount; slot++)
+        {
+            insert(slot);
+        }
+    }
+
+    private void insert(int slot)
+    {
+        var mask = index.length - 1;
+        var i = hash(nameBytes[slot], 0, nameBytes[slot].length) & mask;
+        while (index[i] != 0)
+        {
+            i = (i + 1) & mask;
+        }
+        index[i] = slot + 1;
+    }
+
+    private static int hash(byte[] bytes, int from, int to)
+    {
+        var h = 0;
+        for (var i = from; i < to; i++)
+        {
+            h = 31 * h + bytes[i];
+        }
+        // Spread the low bits, addresses differ mostly in their last characters
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSize(int capacity)
+    {
+        return Integer.highestOneBit(capacity * 4 - 1) << 1;
+    }
+
+    private static byte[] ascii(String text)
+    {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+}
@@ -1,43 +1,39 @@
 package com.practice.urlPoller;
 
-import io.vertx.core.json.JsonObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.regex.Pattern;
 
 /**
- * Parser for fping output format using concurrent parsing for large result sets.
- * Thread-safe implementation using ConcurrentHashMap.
+ * Parser for fping output format, on top of the allocation-free {@link FpingOutputParser}.
  * Expected fping output format (-c 1 -q):
  * 8.8.8.8     : xmt/rcv/%loss = 1/1/0%, min/avg/max = 15.2/15.2/15.2
  * 192.168.1.1 : xmt/rcv/%loss = 1/0/100%
+ * <p>
+ * Without -q fping also prints one line per probe while it runs, consumed by {@link Collector}:
+ * 8.8.8.8     : [0], 64 bytes, 15.2 ms (15.2 avg, 0% loss)
+ * 192.168.1.1 : [0], timed out (NaN avg, 100% loss)
  */
 public class FpingParser
 {
   private static final Logger logger = LoggerFactory.getLogger(FpingParser.class);
 
-  // Pattern to match fping output line
-  // Group 1: IP address
-  // Group 2: packets sent (xmt)
-  // Group 3: packets received (rcv)
-  // Group 4: packet loss percentage
-  // Group 5-7: min/avg/max RTT (optional - only present if host responded)
-  private static final Pattern FPING_PATTERN = Pattern.compile(
-    "^\\s*(\\S+)\\s+:\\s+xmt/rcv/%loss\\s+=\\s+(\\d+)/(\\d+)/(\\d+)%(?:,\\s+min/avg/max\\s+=\\s+([\\d.]+)/([\\d.]+)/([\\d.]+))?"
-  );
-
   /**
-   * Parse fping output into a map of IP -> JsonObject using parallel streams for performance.
-   * Thread-safe using ConcurrentHashMap.
+   * Parse complete fping output into a map of IP -> PingResult.
+   * Only the summary lines produce results.
    *
    * @param fpingOutput The complete stdout from fping command
-   * @return ConcurrentHashMap mapping each IP to its ping result JsonObject
+   * @return ConcurrentHashMap mapping each IP to its ping result
    */
-  public static Map<String, JsonObject> parse(String fpingOutput)
+  public static Map<String, PingResult> parse(String fpingOutput)
   {
     if (fpingOutput == null || fpingOutput.isBlank())
     {
@@ -45,67 +41,172 @@ public class FpingParser
       return new ConcurrentHashMap<>();
     }
 
-    logger.debug("Parsing started: lines={}", fpingOutput.split("\n").length);
-
-    // Use parallel stream for concurrent parsing of large result sets
-
-    return fpingOutput.lines()
-                      .parallel()  // Enable parallel processing for 1000+ IPs
-                      .map(String::strip)
-                      .filter(line -> !line.isEmpty())
-                      .filter(line -> FPING_PATTERN.matcher(line)
-                                                   .find())  // Only process valid fping lines
-                      .map(FpingParser::parseLine)
-                      .filter(Objects::nonNull)  // Skip any parsing failures
-                      .collect(
-                        ConcurrentHashMap::new,  // Thread-safe map
-                        (map, result) -> map.put(result.getString(PingResultUtil.IP), result),
-                        ConcurrentHashMap::putAll  // Thread-safe merge for parallel streams
-                      );
+    var bytes = fpingOutput.getBytes(StandardCharsets.UTF_8);
+    var output = new FpingOutputParser(new ByteArrayInputStream(bytes), List.of());
+    Map<String, PingResult> results = new ConcurrentHashMap<>();
+    try
+    {
+      while (output.next())
+      {
+        if (output.kind() == FpingOutputParser.SUMMARY)
+        {
+          results.put(output.name(output.target()), toResult(output));
+        }
+      }
+    } catch (IOException ioException)
+    {
+      // Not thrown by an in-memory stream
+      throw new UncheckedIOException(ioException);
+    }
+    logger.debug("Parsing completed: bytes={}, results={}", bytes.length, results.size());
+    return results;
   }
 
   /**
-   * Parse a single fping output line into a JsonObject.
-   * Thread-safe - no shared state.
+   * Result of the current SUMMARY line. Also used for the -Q interval summaries of FpingStream.
    *
-   * @param line Single line from fping output
-   * @return JsonObject containing ping result or null if parsing fails
+   * @param output parser positioned on a SUMMARY line
+   * @return the ping result
    */
-  private static JsonObject parseLine(String line)
+  static PingResult toResult(FpingOutputParser output)
   {
-    var matcher = FPING_PATTERN.matcher(line);
-
-    if (!matcher.find())
+    var ip = output.name(output.target());
+    // RTT values are only present if host responded
+    if (output.received() > 0 && output.hasRtt())
     {
-      logger.warn("Failed to parse fping line: '{}'", line);
-      return null;
+      return PingResultUtil.createSuccessResult(ip, output.minRttMs(), output.avgRttMs(), output.maxRttMs(),
+                                                output.lossPercent()
+      );
     }
+    // Host unreachable
+    return PingResultUtil.createUnreachableResult(ip);
+  }
 
-    try
+  /**
+   * Incremental parser for the output of one running {@code fping -c N} process (no -q).
+   * Every reply / timeout line is counted against its target; once a target has N outcomes its
+   * result is returned right away instead of waiting for the summary block at exit.
+   * The final summary lines still complete targets the per-probe lines did not
+   * (e.g. fping without per-probe timeout lines); each target is completed once.
+   * <p>
+   * Progress is kept in primitive arrays indexed by target slot, so a line that does not complete
+   * a target allocates nothing.
+   * <p>
+   * With -Drtt.stats=true the RTT of every probe is kept by probe index and the result carries
+   * jitter / percentiles ({@link PingResult#withRtts}).
+   * <p>
+   * NOT thread-safe - one instance per reading thread.
+   */
+  static final class Collector
+  {
+    private final FpingOutputParser output;
+    private final int count;
+    private int[] outcomes;
+    private int[] received;
+    private double[] minRtt;
+    private double[] maxRtt;
+    private double[] sumRtt;
+    private boolean[] completed;
+    // RTT by slot * count + probe index (-1 = lost), null unless -Drtt.stats=true
+    private double[] rtts;
+
+    Collector(FpingOutputParser output, int count)
     {
-      var ip = matcher.group(1);
-      var packetsReceived = Integer.parseInt(matcher.group(3));
-      var packetLoss = Integer.parseInt(matcher.group(4));
+      this.output = output;
+      this.count = count;
+      allocate(Math.max(1, output.targetCount()));
+    }
 
-      var isAlive = packetsReceived > 0;
+    /**
+     * @return the result of the target the parser's current line completed, or null
+     */
+    PingResult accept()
+    {
+      var kind = output.kind();
+      if (kind == FpingOutputParser.OTHER)
+      {
+        // ICMP errors, resolver messages - the target completes by timeout / summary
+        if (logger.isDebugEnabled())
+        {
+          logger.debug("Ignoring fping line: '{}'", output.line());
+        }
+        return null;
+      }
 
-      // RTT values are only present if host responded
-      if (isAlive && matcher.group(5) != null)
+      var slot = output.target();
+      if (slot >= completed.length)
+      {
+        allocate(Math.max(slot + 1, completed.length * 2));
+      }
+      if (completed[slot])
+      {
+        return null;
+      }
+      if (kind == FpingOutputParser.SUMMARY)
       {
-        var minRtt = Double.parseDouble(matcher.group(5));
-        var avgRtt = Double.parseDouble(matcher.group(6));
-        var maxRtt = Double.parseDouble(matcher.group(7));
+        completed[slot] = true;
+        var result = toResult(output);
+        // Whatever per-probe lines arrived; the rest count as lost
+        return rtts == null ? result : result.withRtts(rttsOf(slot));
+      }
+      return record(slot, output.probeIndex(), kind == FpingOutputParser.REPLY ? output.rttMs() : -1);
+    }
 
-        return PingResultUtil.createSuccessResult(ip, minRtt, avgRtt, maxRtt, packetLoss);
-      } else
+    /**
+     * @param index probe index printed by fping ([n])
+     * @param rttMs reply RTT, negative for a timeout
+     */
+    private PingResult record(int slot, int index, double rttMs)
+    {
+      if (rttMs >= 0)
+      {
+        if (rtts != null && index < count)
+        {
+          rtts[slot * count + index] = rttMs;
+        }
+        received[slot]++;
+        minRtt[slot] = Math.min(minRtt[slot], rttMs);
+        maxRtt[slot] = Math.max(maxRtt[slot], rttMs);
+        sumRtt[slot] += rttMs;
+      }
+      if (++outcomes[slot] < count)
       {
-        // Host unreachable
-        return PingResultUtil.createUnreachableResult(ip);
+        return null;
       }
-    } catch (NumberFormatException numberFormatException)
+
+      completed[slot] = true;
+      var ip = output.name(slot);
+      var result = received[slot] == 0
+        ? PingResultUtil.createUnreachableResult(ip)
+        : PingResultUtil.createSuccessResult(ip, minRtt[slot], sumRtt[slot] / received[slot],
+                                             maxRtt[slot], (count - received[slot]) * 100 / count
+      );
+      return rtts == null ? result : result.withRtts(rttsOf(slot));
+    }
+
+    private double[] rttsOf(int slot)
     {
-      logger.error("Failed to parse numbers in fping line: '{}', error={}", line, numberFormatException.getMessage());
-      return null;
+      return Arrays.copyOfRange(rtts, slot * count, (slot + 1) * count);
+    }
+
+    /**
+     * Size the per-target arrays for {@code targets} slots, keeping existing progress.
+     */
+    private void allocate(int targets)
+    {
+      var previous = completed == null ? 0 : completed.length;
+      outcomes = previous == 0 ? new int[targets] : Arrays.copyOf(outcomes, targets);
+      received = previous == 0 ? new int[targets] : Arrays.copyOf(received, targets);
+      minRtt = previous == 0 ? new double[targets] : Arrays.copyOf(minRtt, targets);
+      maxRtt = previous == 0 ? new double[targets] : Arrays.copyOf(maxRtt, targets);
+      sumRtt = previous == 0 ? new double[targets] : Arrays.copyOf(sumRtt, targets);
+      completed = previous == 0 ? new boolean[targets] : Arrays.copyOf(completed, targets);
+      Arrays.fill(minRtt, previous, targets, Double.MAX_VALUE);
+      if (RttStats.enabled())
+      {
+        rtts = previous == 0 ? new double[targets * count] : Arrays.copyOf(rtts, targets * count);
+        Arrays.fill(rtts, previous * count, targets * count, -1);
+      }
     }
   }
 
@@ -0,0 +1,232 @@
+package com.practice.urlPoller;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * One long-running fping process for an interval group (persistent probe mode).
+ * <p>
+ * Runs {@code fping -l -p <interval/3> -Q <interval> -t 200 -f -}: fping pings every target
+ * on its own in loop mode and prints a per-target xmt/rcv/%loss summary every interval.
+ * Each summary block is parsed and published as one PROCESS_RESULTS batch, exactly
+ * like a batch result, so FileWriter does not care which mode produced it.
+ * <p>
+ * The process is only restarted when the target set changes (or if it dies), instead of
+ * one fork/exec per interval group and cycle.
+ * <p>
+ * NOT thread-safe - owned by one Distributor shard; only the output reader runs on its own thread.
+ */
+public class FpingStream
+{
+    public static final String LOOP_FLAG = "-l";
+    public static final String PERIOD_FLAG = "-p";
+    public static final String SUMMARY_FLAG = "-Q";
+    private static final Logger logger = LoggerFactory.getLogger(FpingStream.class);
+    // fping rejects very small per-target periods without root
+    private static final long MIN_PERIOD_MS = 20;
+    private static final long RESTART_DELAY_MS = 1_000;
+    private final Vertx vertx;
+    private final Context context;
+    private final int pollInterval;
+    private Set<String> targets = Set.of();
+    private Process process;
+    private long restartTimerId = -1;
+    private boolean closed;
+
+    /**
+     * Must be created on the owning verticle's context.
+     */
+    public FpingStream(Vertx vertx, int pollInterval)
+    {
+        this.vertx = vertx;
+        this.context = vertx.getOrCreateContext();
+        this.pollInterval = pollInterval;
+    }
+
+    /**
+     * Replace the target set. Restarts the process only if the set actually changed.
+     */
+    public void update(Set<String> newTargets)
+    {
+        if (closed || newTargets.equals(targets))
+        {
+            return;
+        }
+        logger.info("fping stream {}s: targets {} -> {}, restarting", pollInterval, targets.size(), newTargets.size());
+        targets = Set.copyOf(newTargets);
+        restart();
+    }
+
+    /**
+     * Stop the process for good.
+     */
+    public void close()
+    {
+        closed = true;
+        if (restartTimerId != -1)
+        {
+            vertx.cancelTimer(restartTimerId);
+            restartTimerId = -1;
+        }
+        destroy(process);
+        process = null;
+    }
+
+    private void restart()
+    {
+        destroy(process);
+        process = null;
+        if (targets.isEmpty())
+        {
+            return;
+        }
+
+        var fpingPool = Main.getFpingWorkerPool();
+        if (fpingPool == null)
+        {
+            logger.error("Worker pool not initialized");
+            return;
+        }
+
+        // fork/exec and feeding stdin are blocking - keep them off the event loop
+        var snapshot = targets;
+        fpingPool.executeBlocking(() -> start(snapshot), false)
+            .onSuccess(started -> {
+                if (closed || snapshot != targets)
+                {
+                    // Superseded by another update while starting
+                    destroy(started);
+                    return;
+                }
+                process = started;
+                if (!started.isAlive())
+                {
+                    process = null;
+                    scheduleRestart();
+                }
+            })
+            .onFailure(err -> {
+                logger.error("Failed to start fping stream for {}s interval", pollInterval, err);
+                scheduleRestart();
+            });
+    }
+
+    private void scheduleRestart()
+    {
+        if (closed || restartTimerId != -1)
+        {
+            return;
+        }
+        restartTimerId = vertx.setTimer(RESTART_DELAY_MS, id -> {
+            restartTimerId = -1;
+            restart();
+        });
+    }
+
+    /**
+     * Start fping, its output reader thread and feed the targets (blocking, on the worker pool).
+     */
+    private Process start(Set<String> snapshot) throws IOException
+    {
+        var processBuilder = new ProcessBuilder(buildCommand());
+        processBuilder.redirectErrorStream(true);  // -Q summaries go to stderr
+
+        var proc = processBuilder.start();
+        FpingWorker.spawnedCounter.increment();
+        logger.info("fping stream started: pid={}, interval={}s, targets={}", proc.pid(), pollInterval, snapshot.size());
+
+        var reader = new Thread(() -> readSummaries(proc, snapshot), "fping-stream-" + pollInterval + "-" + proc.pid());
+        reader.setDaemon(true);
+        reader.start();
+
+        FpingWorker.writeTargets(proc, snapshot);
+
+        // Restart if it dies on its own; deliberate restarts replace `process` first
+        proc.onExit()
+            .thenRun(() -> context.runOnContext(v -> {
+                if (!closed && process == proc)
+                {
+                    logger.warn("fping stream exited unexpectedly: pid={}, exitCode={}", proc.pid(), proc.exitValue());
+                    process = null;
+                    scheduleRestart();
+                }
+            }));
+
+        return proc;
+    }
+
+    /**
+     * Command format: fping -l -p PERIOD -Q INTERVAL -t 200 -f -
+     * Three probes per target per summary, matching the batch mode's -c 3.
+     */
+    private List<String> buildCommand()
+    {
+        var periodMs = Math.max(MIN_PERIOD_MS, pollInterval * 1000L / Integer.parseInt(FpingWorker.COUNT_ICMP));
+
+        List<String> command = new ArrayList<>(11);
+        command.add(FpingWorker.FPING);
+        command.add(LOOP_FLAG);
+        command.add(PERIOD_FLAG);
+        command.add(String.valueOf(periodMs));
+        command.add(SUMMARY_FLAG);
+        command.add(String.valueOf(pollInterval));
+        command.add(FpingWorker.TIMEOUT_FLAG);
+        command.add(FpingWorker.TIMEOUT_MILS);
+        command.add(FpingWorker.FILE_FLAG);
+        command.add(FpingWorker.STDIN);
+        return command;
+    }
+
+    /**
+     * Publish the per-target summary lines until the process ends, one batch per -Q interval block.
+     * A block is complete once every target reported, or when the next block's header arrives.
+     * Runs on the stream's own thread.
+     */
+    private void readSummaries(Process proc, Set<String> snapshot)
+    {
+        var batch = new ResultBatch(snapshot.size());
+        try (var stdout = proc.getInputStream())
+        {
+            var output = new FpingOutputParser(stdout, snapshot);
+            while (output.next())
+            {
+                if (output.kind() == FpingOutputParser.SUMMARY)
+                {
+                    batch.add(FpingParser.toResult(output));
+                    if (batch.size() < snapshot.size())
+                    {
+                        continue;
+                    }
+                } else if (batch.isEmpty())
+                {
+                    // The "[hh:mm:ss]" header printed before each summary block, nothing pending
+                    continue;
+                }
+                FpingWorker.publish(vertx, batch);
+                batch = new ResultBatch(snapshot.size());
+            }
+        } catch (IOException ioException)
+        {
+            // Expected when the process is destroyed on restart
+            logger.debug("fping stream reader ended: pid={}, {}", proc.pid(), ioException.getMessage());
+        }
+        // A block cut short by the end of the process
+        FpingWorker.publish(vertx, batch);
+    }
+
+    private static void destroy(Process proc)
+    {
+        if (proc != null && proc.isAlive())
+        {
+            proc.destroy();
+        }
+    }
+
+}
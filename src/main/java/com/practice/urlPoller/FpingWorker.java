@@ -2,21 +2,22 @@ package com.practice.urlPoller;
 
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
-import io.vertx.core.json.JsonObject;
+import io.vertx.core.WorkerExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
-import static com.practice.urlPoller.Constants.Event.PROCESS_FAILED;
-import static com.practice.urlPoller.Constants.Event.PROCESS_SUCCEEDED;
-import static com.practice.urlPoller.Constants.JsonFields.*;
+import static com.practice.urlPoller.Constants.Event.PROCESS_RESULTS;
 
 /**
  * Batch ping executor using fping for high-performance concurrent ping operations.
@@ -25,7 +26,24 @@ import static com.practice.urlPoller.Constants.JsonFields.*;
  * Thread-safe implementation using ConcurrentHashMap and Vert.x WorkerExecutor.
  * <p>
  * Performance: 1000 IPs in 10 interval groups = ~15 threads (vs 2000+ with individual ping)
- * Uses Vert.x named worker pool (6 threads) instead of unbounded custom executor.
+ * Uses Vert.x named worker pool (6 threads) instead of unbounded custom executor, or one virtual
+ * thread per chunk with -Dfping.executor=virtual (see {@link VirtualThreadWorkerExecutor}).
+ * <p>
+ * Large interval groups are split into chunks (size adapted by {@link ChunkSizer} from measured
+ * process durations) that run concurrently across the pool; targets are fed over stdin
+ * ({@code fping -f -}) so a chunk is never limited by ARG_MAX.
+ * <p>
+ * Output is parsed line by line on the worker thread while fping runs, and completed targets are
+ * published in {@link ResultBatch} envelopes - one event bus message per chunk, or per
+ * PUBLISH_BATCH_SIZE results of a large chunk so early results are not held back by the slowest
+ * hosts. A watchdog timer kills a chunk that exceeds TIMEOUT, keeping the results that were already in.
+ * <p>
+ * The reply timeout (-t) is not global: {@link RttEstimator} derives one per target from its RTT
+ * history and each timeout class of a batch runs as its own fping process.
+ * <p>
+ * Adaptive probe count (-Dfping.adaptive.count, default on): targets with a loss-free recent history
+ * get {@code -c 1}; a lost echo is confirmed with {@code -c 3} in the same cycle before the result is
+ * published, so a DOWN is still based on three probes.
  */
 public class FpingWorker
 {
@@ -35,12 +53,40 @@ public class FpingWorker
   public static final String TIMEOUT_FLAG = "-t";
   public static final String TIMEOUT_MILS = "200";
   public static final String QUIET_MODE_FLAG = "-q";
+  public static final String FILE_FLAG = "-f";
+  public static final String STDIN = "-";
   public static final String FPING_BATCH = "fping-batch-";
   public static final String ERROR_READING_FPING_OUTPUT = "Error reading fping output";
-  public static final String TIMEOUT_100 = ",TIMEOUT,100%,-,-,-";
-  public static final String ERROR_100 = ",ERROR,100%,-,-,-";
   public static final int TIMEOUT = 4;
+  // Stable targets get one echo per cycle, escalated to COUNT_ICMP on loss (-Dfping.adaptive.count)
+  public static final String ADAPTIVE_COUNT = "fping.adaptive.count";
+  private static final int FULL_COUNT = Integer.parseInt(COUNT_ICMP);
+  private static final int SINGLE_COUNT = 1;
+  private static final boolean adaptiveCount = Boolean.parseBoolean(System.getProperty(ADAPTIVE_COUNT, "true"));
+  // Chunking: bounds on targets per fping process, sized to finish within 75% of TIMEOUT
+  private static final int MIN_CHUNK_SIZE = 64;
+  private static final int MAX_CHUNK_SIZE = 4096;
+  private static final int INITIAL_CHUNK_SIZE = 1024;
+  // Completed results of a chunk are published once this many are in (and at the end of the chunk)
+  private static final int PUBLISH_BATCH_SIZE = 512;
+  private static final ChunkSizer chunkSizer = new ChunkSizer(INITIAL_CHUNK_SIZE, MIN_CHUNK_SIZE, MAX_CHUNK_SIZE,
+                                                              TIMEOUT * 750L
+  );
   private static final Logger logger = LoggerFactory.getLogger(FpingWorker.class);
+  // Per-target reply timeout (-t) from RTT history, one fping run per timeout class
+  private static final RttEstimator rttEstimator = new RttEstimator();
+  // Shared with FpingStream so both modes report process spawns in one counter
+  static final LongAdder spawnedCounter = Metrics.counter("fping.processes.spawned");
+  private static final LongAdder singleTargetsCounter = Metrics.counter("fping.targets.single");
+  private static final LongAdder fullTargetsCounter = Metrics.counter("fping.targets.full");
+  private static final LongAdder escalatedCounter = Metrics.counter("fping.targets.escalated");
+  private static final LongAdder packetsCounter = Metrics.counter("fping.packets.sent");
+
+  static
+  {
+    Metrics.gauge("fping.chunk.size", chunkSizer::chunkSize);
+    Metrics.gauge("fping.rtt.estimates", rttEstimator::size);
+  }
 
   /**
    * Execute fping for a batch of IP addresses using Vert.x WorkerExecutor.
@@ -49,11 +95,24 @@ public class FpingWorker
    * @param vertx        Vert.x instance for event bus
    * @param ipAddresses  Set of IPs to ping (can be 100s or 1000s)
    * @param pollInterval The polling interval for this batch (for logging)
-   * @return Future containing map of IP -> JsonObject ping result
+   * @return Future containing map of IP -> ping result
    */
-  public static Future<Map<String, JsonObject>> work(Vertx vertx,
+  public static Future<Map<String, PingResult>> work(Vertx vertx,
                                                      Set<String> ipAddresses,
                                                      Integer pollInterval)
+  {
+    return work(vertx, ipAddresses, pollInterval, Map.of());
+  }
+
+  /**
+   * Same as {@link #work(Vertx, Set, Integer)} for pre-resolved targets: every result of an
+   * address is published once per target name in {@code aliases} (address -> hostnames).
+   * Addresses without an entry are published under their own name; the returned map stays keyed by address.
+   */
+  public static Future<Map<String, PingResult>> work(Vertx vertx,
+                                                     Set<String> ipAddresses,
+                                                     Integer pollInterval,
+                                                     Map<String, List<String>> aliases)
   {
     if (ipAddresses == null || ipAddresses.isEmpty())
     {
@@ -65,7 +124,7 @@ public class FpingWorker
     if (fpingPool == null)
     {
       logger.error("Worker pool not initialized");
-      publishBatchTimeout(vertx, ipAddresses, pollInterval);
+      publishBatchTimeout(vertx, targetNames(ipAddresses, aliases));
       return Future.succeededFuture(new ConcurrentHashMap<>());
     }
 
@@ -73,297 +132,443 @@ public class FpingWorker
       .getName()
     );
 
-    // Execute blocking fping operation on worker pool using Callable
-    return fpingPool.executeBlocking(() -> {
-                                       Thread.currentThread()
-                                         .setName(FPING_BATCH + pollInterval);
-
-                                       logger.debug("Flattened IPs: count={}", ipAddresses.size());
-
-                                       // Option C - Log selected IPs (whitelist only):
-                                       if (logger.isTraceEnabled())
-                                       {
-                                         for (var ip : ipAddresses)
-                                         {
-                                           if (LogConfig.shouldLogIp(ip))
-                                           {
-                                             logger.trace("[IP:{}] Added to batch", ip);
-                                           }
-                                         }
-                                       }
-
-                                       // Build fping command with all IPs
-                                       var command = buildFpingCommand(ipAddresses);
-                                       logger.debug("Command: {} (args count={})",
-                                                    String.join(" ", command.subList(0, 6)) + " ...", command.size()
-                                       );
-
-                                       var processBuilder = new ProcessBuilder(command);
-                                       processBuilder.redirectErrorStream(true);  // Merge stderr into stdout
-
-                                       var processStartNs = System.nanoTime();
-                                       logger.debug("Starting fping process...");
-
-                                       try
-                                       {
-                                         var proc = processBuilder.start();
-                                         logger.info("Process started: pid={}, timeout={}s",
-                                                     proc.pid(), TIMEOUT
-                                         );
-
-                                         // CRITICAL FIX: Read output concurrently to prevent buffer deadlock
-                                         // With 500+ IPs, fping generates ~50KB output. If stdout buffer fills,
-                                         // fping blocks writing and waitFor() blocks forever, causing process reaper
-                                         // to spin at high CPU. Solution: Read output asynchronously while process runs.
-
-                                         // Start reading output immediately (non-blocking, uses ForkJoinPool.commonPool)
-                                         var outputFuture = CompletableFuture.supplyAsync(() -> {
-                                           var readStartNs = System.nanoTime();
-                                           var output = readProcessOutput(proc);
-                                           var readDurationMs = (System.nanoTime() - readStartNs) / 1_000_000;
-                                           logger.debug("Async output read: size={}bytes, duration={}ms, thread={}",
-                                                        output.length(), readDurationMs, Thread.currentThread()
-                                                          .getName()
-                                           );
-                                           return output;
-                                         });
-
-                                         // Wait for process exit with timeout (uses Process.onExit() internally for efficiency)
-                                         Process completedProc;
-                                         try
-                                         {
-                                           completedProc = proc.onExit()
-                                             .orTimeout(TIMEOUT, TimeUnit.SECONDS)
-                                             .get();
-
-                                           var processDurationMs = (System.nanoTime() - processStartNs) / 1_000_000;
-                                           var exitCode = completedProc.exitValue();
-                                           logger.info("Process completed: exitCode={}, duration={}ms",
-                                                       exitCode, processDurationMs
-                                           );
-                                         } catch (InterruptedException e)
-                                         {
-                                           // Thread interrupted - cleanup
-                                           Thread.currentThread()
-                                             .interrupt();
-                                           proc.destroyForcibly();
-                                           outputFuture.cancel(true);
-                                           logger.warn("Process INTERRUPTED: duration={}ms",
-                                                       (System.nanoTime() - processStartNs) / 1_000_000
-                                           );
-                                           publishBatchTimeout(vertx, ipAddresses, pollInterval);
-                                           return new ConcurrentHashMap<>();
-                                         } catch (ExecutionException e)
-                                         {
-                                           // Check if timeout or other failure
-                                           if (e.getCause() instanceof TimeoutException)
-                                           {
-                                             // Timeout occurred - kill process
-                                             proc.destroyForcibly();
-                                             outputFuture.cancel(true); // Cancel output reading
-                                             logger.warn("Process TIMEOUT: duration={}ms, IPs={}, killing process",
-                                                         (System.nanoTime() - processStartNs) / 1_000_000, ipAddresses.size()
-                                             );
-                                           } else
-                                           {
-                                             // Process failed to start or crashed
-                                             logger.error("Process execution failed: {}", e.getCause()
-                                               .getMessage()
-                                             );
-                                           }
-                                           publishBatchTimeout(vertx, ipAddresses, pollInterval);
-                                           return new ConcurrentHashMap<>();
-                                         }
-
-                                         // Get the output (should be ready by now, process has exited)
-                                         var parseStartNs = System.nanoTime();
-                                         String output;
-                                         try
-                                         {
-                                           output = outputFuture.get(1, TimeUnit.SECONDS); // Short timeout, should be immediate
-                                         } catch (InterruptedException e)
-                                         {
-                                           Thread.currentThread()
-                                             .interrupt();
-                                           logger.error("Interrupted while reading process output");
-                                           publishBatchTimeout(vertx, ipAddresses, pollInterval);
-                                           return new ConcurrentHashMap<>();
-                                         } catch (TimeoutException e)
-                                         {
-                                           logger.error("Timeout reading process output after 1s (process exited but output not ready)");
-                                           publishBatchTimeout(vertx, ipAddresses, pollInterval);
-                                           return new ConcurrentHashMap<>();
-                                         } catch (ExecutionException e)
-                                         {
-                                           logger.error("Failed to read process output: {}", e.getCause()
-                                             .getMessage()
-                                           );
-                                           publishBatchTimeout(vertx, ipAddresses, pollInterval);
-                                           return new ConcurrentHashMap<>();
-                                         }
-
-                                         var readDurationMs = (System.nanoTime() - parseStartNs) / 1_000_000;
-                                         logger.debug("Output retrieved: size={}bytes, wait={}ms",
-                                                      output.length(), readDurationMs
-                                         );
-
-                                         if (output.isBlank())
-                                         {
-                                           logger.warn("Empty output from fping process");
-                                           publishBatchTimeout(vertx, ipAddresses, pollInterval);
-                                           return new ConcurrentHashMap<>();
-                                         }
-
-                                         // Parse fping output (concurrent parsing with ConcurrentHashMap)
-                                         parseStartNs = System.nanoTime();
-                                         var results = FpingParser.parse(output);
-                                         var parseDurationMs = (System.nanoTime() - parseStartNs) / 1_000_000;
-
-                                         logger.info("Parsing completed: parsed={}/{}, duration={}ms",
-                                                     results.size(), ipAddresses.size(), parseDurationMs
-                                         );
-
-                                         // Publish events for each IP concurrently using parallel stream
-                                         var publishStartNs = System.nanoTime();
-
-                                         results.entrySet()
-                                           .parallelStream()
-                                           .forEach(entry -> {
-                                             publishResult(vertx, entry.getValue(), pollInterval);
-
-                                             // Option C - Per-IP result logging:
-                                             if (LogConfig.shouldLogIp(entry.getKey()))
-                                             {
-                                               var result = entry.getValue();
-                                               logger.trace("[IP:{}] Parsed: status={}, loss={}%, rtt={}ms",
-                                                            entry.getKey(),
-                                                            result.getBoolean(PingResultUtil.SUCCESS) ? "UP" : "DOWN",
-                                                            result.getInteger(PingResultUtil.PACKET_LOSS),
-                                                            result.getBoolean(PingResultUtil.SUCCESS) ? result.getDouble(PingResultUtil.AVG_RTT) : -1
-                                               );
-                                             }
-                                           })
-                                         ;
-
-                                         var publishDurationMs = (System.nanoTime() - publishStartNs) / 1_000_000;
-                                         logger.debug("Publishing completed: events={}, duration={}ms",
-                                                      results.size(), publishDurationMs
-                                         );
-
-                                         // Handle any IPs that weren't in the parsed results
-                                         ipAddresses.stream()
-                                           .filter(ip -> !results.containsKey(ip))
-                                           .forEach(ip -> {
-                                             logger.warn("[IP:{}] Missing from results, publishing ERROR", ip);
-                                             publishMissingIp(vertx, ip, pollInterval);
-                                           })
-                                         ;
-
-                                         return results;
-
-                                       } catch (IOException ioException)
-                                       {
-                                         logger.error("Failed to start process: {}", ioException.getMessage(), ioException);
-                                         publishBatchTimeout(vertx, ipAddresses, pollInterval);
-                                         return new ConcurrentHashMap<>();
-                                       }
-                                     }, false
-    );  // ordered=false for better parallelism
+    // One fping run per reply-timeout class and probe count, large classes split into bounded
+    // chunks that run concurrently on the pool
+    List<Future<Map<String, PingResult>>> chunkFutures = new ArrayList<>();
+    rttEstimator.groupByTimeout(ipAddresses)
+      .forEach((timeoutMs, members) -> {
+        Metrics.counter("fping.timeout.class-" + timeoutMs + "ms")
+          .add(members.size());
+        if (!adaptiveCount)
+        {
+          submitChunks(chunkFutures, fpingPool, vertx, members, pollInterval, timeoutMs, FULL_COUNT, aliases);
+          return;
+        }
+        // Stable targets get a single echo, everything else the full count
+        List<String> single = new ArrayList<>();
+        List<String> full = new ArrayList<>();
+        members.forEach(ip -> (rttEstimator.isStable(ip) ? single : full).add(ip));
+        submitChunks(chunkFutures, fpingPool, vertx, single, pollInterval, timeoutMs, SINGLE_COUNT, aliases);
+        submitChunks(chunkFutures, fpingPool, vertx, full, pollInterval, timeoutMs, FULL_COUNT, aliases);
+      });
+
+    if (chunkFutures.size() == 1)
+    {
+      return chunkFutures.get(0);
+    }
+
+    return Future.all(chunkFutures)
+      .map(all -> {
+        Map<String, PingResult> merged = new ConcurrentHashMap<>(ipAddresses.size());
+        for (var i = 0; i < all.size(); i++)
+        {
+          merged.putAll(all.<Map<String, PingResult>>resultAt(i));
+        }
+        return merged;
+      });
+  }
+
+  /**
+   * Split targets of one timeout class and probe count into chunks and queue them on the pool.
+   */
+  private static void submitChunks(List<Future<Map<String, PingResult>>> chunkFutures, WorkerExecutor fpingPool,
+                                   Vertx vertx, List<String> members, int pollInterval, int timeoutMs, int count,
+                                   Map<String, List<String>> aliases)
+  {
+    if (members.isEmpty())
+    {
+      return;
+    }
+    var chunks = chunk(members, Main.getFpingWorkerPoolSize());
+    if (chunks.size() > 1)
+    {
+      logger.debug("Interval {}s, timeout {}ms, count {}: {} IPs split into {} chunks", pollInterval, timeoutMs,
+                   count, members.size(), chunks.size()
+      );
+    }
+    for (var chunk : chunks)
+    {
+      // ordered=false for better parallelism
+      chunkFutures.add(fpingPool.executeBlocking(() -> runChunk(vertx, chunk, pollInterval, timeoutMs, count, aliases),
+                                                 false
+      ));
+    }
+  }
+
+  /**
+   * Split a group into chunks of at most the current {@link ChunkSizer} size,
+   * and into at least one chunk per worker once the group is big enough.
+   */
+  private static List<List<String>> chunk(Collection<String> ipAddresses, int workers)
+  {
+    var size = chunkSizer.chunkSize();
+    if (ipAddresses.size() >= workers * MIN_CHUNK_SIZE)
+    {
+      // Keep every worker busy instead of one big chunk and idle threads
+      size = Math.min(size, (ipAddresses.size() + workers - 1) / workers);
+    }
+
+    List<List<String>> chunks = new ArrayList<>((ipAddresses.size() + size - 1) / size);
+    List<String> current = new ArrayList<>(Math.min(size, ipAddresses.size()));
+    for (var ip : ipAddresses)
+    {
+      current.add(ip);
+      if (current.size() == size)
+      {
+        chunks.add(current);
+        current = new ArrayList<>(size);
+      }
+    }
+    if (!current.isEmpty())
+    {
+      chunks.add(current);
+    }
+    return chunks;
+  }
+
+  /**
+   * Run one fping process for a chunk of IPs (blocking, on the fping worker pool).
+   * Targets are fed over stdin ({@code -f -}) so chunk size is not limited by ARG_MAX.
+   * <p>
+   * With a single echo per target, a target whose echo was lost is not published: it is probed
+   * again with the full count right after, on this thread, and that result is the one recorded.
+   * The same holds for every target without a result when the watchdog kills a single-echo run.
+   */
+  private static Map<String, PingResult> runChunk(Vertx vertx, List<String> ipAddresses, int pollInterval,
+                                                  int timeoutMs, int count, Map<String, List<String>> aliases)
+  {
+    Thread.currentThread()
+      .setName(FPING_BATCH + pollInterval);
+
+    logger.debug("Flattened IPs: count={}", ipAddresses.size());
+
+    // Option C - Log selected IPs (whitelist only):
+    if (logger.isTraceEnabled())
+    {
+      for (var ip : ipAddresses)
+      {
+        if (LogConfig.shouldLogIp(ip))
+        {
+          logger.trace("[IP:{}] Added to batch", ip);
+        }
+      }
+    }
+
+    // Build fping command (targets go to stdin)
+    var command = buildFpingCommand(timeoutMs, count);
+    logger.debug("Command: {} (targets on stdin={})", String.join(" ", command), ipAddresses.size());
+
+    var processBuilder = new ProcessBuilder(command);
+    processBuilder.redirectErrorStream(true);  // Merge stderr into stdout
+
+    var processStartNs = System.nanoTime();
+    logger.debug("Starting fping process...");
+
+    try
+    {
+      var proc = processBuilder.start();
+      spawnedCounter.increment();
+      (count == FULL_COUNT ? fullTargetsCounter : singleTargetsCounter).add(ipAddresses.size());
+      packetsCounter.add((long) ipAddresses.size() * count);
+      var processTimeoutMs = processTimeoutMs(timeoutMs);
+      logger.info("Process started: pid={}, reply timeout={}ms, timeout={}ms",
+                  proc.pid(), timeoutMs, processTimeoutMs
+      );
+
+      // Watchdog: a hung fping is killed after the process timeout, which ends the read loop below with EOF
+      var timedOut = new AtomicBoolean();
+      var watchdogId = vertx.setTimer(processTimeoutMs, id -> {
+        if (proc.isAlive())
+        {
+          timedOut.set(true);
+          proc.destroyForcibly();
+        }
+      });
+
+      // Feed the targets over stdin (fping -f -), one per line. fping starts probing only after EOF,
+      // so the output is read afterwards on this same worker thread - no extra reader thread
+      writeTargets(proc, ipAddresses);
+
+      // Parse every line as it arrives and collect a target as soon as its last probe is in;
+      // results go out in batches of PUBLISH_BATCH_SIZE, the rest with the end of the chunk
+      Map<String, PingResult> results = new ConcurrentHashMap<>(ipAddresses.size());
+      var batch = new ResultBatch(Math.min(PUBLISH_BATCH_SIZE, ipAddresses.size()));
+      List<String> escalate = new ArrayList<>();
+      var lines = 0;
+      var firstResultMs = -1L;
+      try (var stdout = proc.getInputStream())
+      {
+        // Parsed in place from the raw bytes, no String per line
+        var output = new FpingOutputParser(stdout, ipAddresses);
+        var collector = new FpingParser.Collector(output, count);
+        while (output.next())
+        {
+          lines++;
+          var result = collector.accept();
+          if (result == null)
+          {
+            continue;
+          }
+          if (firstResultMs < 0)
+          {
+            firstResultMs = (System.nanoTime() - processStartNs) / 1_000_000;
+          }
+          var ip = result.target();
+          if (count < FULL_COUNT && result.packetLoss() > 0)
+          {
+            // Lost single echo - confirm with the full count before recording anything
+            escalate.add(ip);
+            continue;
+          }
+          rttEstimator.record(result);
+          results.put(ip, result);
+          batch.add(result, aliases);
+          if (batch.size() >= PUBLISH_BATCH_SIZE)
+          {
+            publish(vertx, batch);
+            batch = new ResultBatch(PUBLISH_BATCH_SIZE);
+          }
+
+          // Option C - Per-IP result logging:
+          if (LogConfig.shouldLogIp(ip))
+          {
+            logger.trace("[IP:{}] Parsed: status={}, loss={}%, rtt={}ms",
+                         ip,
+                         result.status(),
+                         result.packetLoss(),
+                         result.avgRtt()
+            );
+          }
+        }
+      } catch (IOException ioException)
+      {
+        logger.error("{}: {}", ERROR_READING_FPING_OUTPUT, ioException.getMessage());
+      }
+      vertx.cancelTimer(watchdogId);
+
+      var processDurationMs = (System.nanoTime() - processStartNs) / 1_000_000;
+      // Chunk sizing works on the TIMEOUT scale whatever the reply timeout of this run
+      var scaledDurationMs = processDurationMs * TIMEOUT * 1000L / processTimeoutMs;
+      if (timedOut.get())
+      {
+        chunkSizer.record(ipAddresses.size(), TIMEOUT * 1000L, true);
+        logger.warn("Process TIMEOUT: duration={}ms, IPs={}, completed={}, process killed",
+                    processDurationMs, ipAddresses.size(), results.size()
+        );
+        // Targets that completed before the kill keep their result
+        if (count < FULL_COUNT)
+        {
+          // Lost and unanswered single echoes alike are confirmed with the full count before
+          // anything is recorded; that run publishes its own results (TIMEOUT if it hangs too)
+          publish(vertx, batch);
+          List<String> confirm = new ArrayList<>(ipAddresses.size() - results.size());
+          for (var ip : ipAddresses)
+          {
+            if (!results.containsKey(ip))
+            {
+              confirm.add(ip);
+            }
+          }
+          logger.debug("Escalating {} targets of the killed single-echo run to {} probes", confirm.size(), FULL_COUNT);
+          escalatedCounter.add(confirm.size());
+          results.putAll(runChunk(vertx, confirm, pollInterval, timeoutMs, FULL_COUNT, aliases));
+          return results;
+        }
+        addUnfinished(batch, ipAddresses, results, aliases, PingResult.Status.TIMEOUT);
+        publish(vertx, batch);
+        return results;
+      }
+
+      if (count == FULL_COUNT)
+      {
+        // Single-echo runs are much shorter and would inflate the chunk size
+        chunkSizer.record(ipAddresses.size(), scaledDurationMs, false);
+      }
+      try
+      {
+        // Output is at EOF, so the process is exiting - only the exit code is left to collect
+        if (proc.waitFor(1, TimeUnit.SECONDS))
+        {
+          logger.info("Process completed: exitCode={}, duration={}ms, first result after {}ms",
+                      proc.exitValue(), processDurationMs, firstResultMs
+          );
+        }
+      } catch (InterruptedException e)
+      {
+        Thread.currentThread()
+          .interrupt();
+        proc.destroyForcibly();
+      }
+
+      if (lines == 0)
+      {
+        logger.warn("Empty output from fping process");
+        publishBatchTimeout(vertx, targetNames(ipAddresses, aliases));
+        return new ConcurrentHashMap<>();
+      }
+
+      logger.debug("Parsing completed: lines={}, parsed={}/{}", lines, results.size(), ipAddresses.size());
+
+      if (!escalate.isEmpty())
+      {
+        // The escalation run publishes its own batch; don't hold this one back for it
+        publish(vertx, batch);
+        batch = new ResultBatch(ipAddresses.size() - results.size());
+        logger.debug("Escalating {} targets with a lost echo to {} probes", escalate.size(), FULL_COUNT);
+        escalatedCounter.add(escalate.size());
+        results.putAll(runChunk(vertx, escalate, pollInterval, timeoutMs, FULL_COUNT, aliases));
+      }
+
+      // Handle any IPs that weren't in the parsed results
+      addUnfinished(batch, ipAddresses, results, aliases, PingResult.Status.ERROR);
+      publish(vertx, batch);
+
+      return results;
+
+    } catch (IOException ioException)
+    {
+      logger.error("Failed to start process: {}", ioException.getMessage(), ioException);
+      publishBatchTimeout(vertx, targetNames(ipAddresses, aliases));
+      return new ConcurrentHashMap<>();
+    }
   }
 
   /**
-   * Build fping command with all IP addresses.
-   * Command format: fping -c 1 -t 2000 -q IP1 IP2 IP3 ...
+   * Process deadline of a run: TIMEOUT was sized for -t 200, longer reply timeouts extend it.
    */
-  private static List<String> buildFpingCommand(Set<String> ipAddresses)
+  static long processTimeoutMs(int timeoutMs)
   {
-    List<String> command = new ArrayList<>(ipAddresses.size() + 6);
+    return TIMEOUT * 1000L + Math.max(0, timeoutMs - Long.parseLong(TIMEOUT_MILS));
+  }
+
+  /**
+   * Build fping command; the targets are written to stdin.
+   * Command format: fping -c <1|3> -t <timeout class> -f -
+   * (no -q: the per-probe lines let results be published while the process still runs)
+   */
+  private static List<String> buildFpingCommand(int timeoutMs, int count)
+  {
+    List<String> command = new ArrayList<>(7);
     command.add(FPING);
     command.add(COUNT_FLAG);
-    command.add(COUNT_ICMP);           // 1 ping per IP
+    command.add(Integer.toString(count));  // 1 echo for stable targets, COUNT_ICMP otherwise
     command.add(TIMEOUT_FLAG);
-    command.add(TIMEOUT_MILS);        // 2 second timeout per IP
-    command.add(QUIET_MODE_FLAG);          // Quiet mode - only show summary
-    command.addAll(ipAddresses); // Add all IPs
+    command.add(Integer.toString(timeoutMs));  // per-target reply timeout class
+    command.add(FILE_FLAG);
+    command.add(STDIN);                // Read targets from stdin
 
     return command;
   }
 
   /**
-   * Read all output from process (stdout + stderr merged).
-   * Thread-safe.
+   * Write one target per line to the process stdin and close it (fping starts after EOF).
+   * A write failure (fping exited early) is logged; the exit code and output tell the rest.
    */
-  private static String readProcessOutput(Process process)
+  static void writeTargets(Process process, Collection<String> ipAddresses)
   {
-    var output = new StringBuilder(2048);
-
-    try (var reader = new BufferedReader(process.inputReader(), 8192))
+    try (var writer = new BufferedWriter(process.outputWriter(), 8192))
     {
-      String line;
-      while ((line = reader.readLine()) != null)
+      for (var ip : ipAddresses)
       {
-        output.append(line)
-          .append('\n');
+        writer.write(ip);
+        writer.newLine();
       }
     } catch (IOException ioException)
     {
-      logger.error(ERROR_READING_FPING_OUTPUT);
-      //      ioException.printStackTrace();
+      logger.warn("Failed to write {} targets to fping stdin: {}", ipAddresses.size(), ioException.getMessage());
     }
+  }
 
-    return output.toString();
+  /**
+   * Add a TIMEOUT / ERROR result for every target of a chunk without a result, once per target name.
+   */
+  private static void addUnfinished(ResultBatch batch, List<String> ipAddresses, Map<String, PingResult> results,
+                                    Map<String, List<String>> aliases, PingResult.Status status)
+  {
+    for (var ip : ipAddresses)
+    {
+      if (results.containsKey(ip))
+      {
+        continue;
+      }
+      if (status == PingResult.Status.ERROR)
+      {
+        logger.warn("[IP:{}] Missing from results, publishing ERROR", ip);
+      }
+      for (var name : targetNames(List.of(ip), aliases))
+      {
+        batch.add(status == PingResult.Status.ERROR
+                    ? PingResultUtil.createErrorResult(name)
+                    : PingResultUtil.createTimeoutResult(name));
+      }
+    }
   }
 
   /**
-   * Publish event for a single ping result.
-   * Thread-safe - can be called concurrently from parallel stream.
+   * Publish a batch of results as one PROCESS_RESULTS message (nothing for an empty batch).
+   * The batch must not be modified afterwards - it is delivered by reference.
+   * Thread-safe - called concurrently from the chunk readers (and from FpingStream readers).
+   * Also used by the other probe engines so every probe type produces the same events.
    */
-  private static void publishResult(Vertx vertx, JsonObject result, int pollInterval)
+  static void publish(Vertx vertx, ResultBatch batch)
   {
-    var json = new JsonObject().put(FILE_NAME, result.getString(PingResultUtil.IP))
-      .put(DATA, PingResultUtil.toCsvRow(result))  // CSV format for new output
-      .put(EXIT_CODE, result.getBoolean(PingResultUtil.SUCCESS) ? 0 : 1)
-      .put(POLL_INTERVAL, pollInterval)
-      ;
-
-    vertx.eventBus()
-      .publish(result.getBoolean(PingResultUtil.SUCCESS) ? PROCESS_SUCCEEDED : PROCESS_FAILED, json);
+    if (!batch.isEmpty())
+    {
+      vertx.eventBus()
+        .publish(PROCESS_RESULTS, batch);
+    }
   }
 
   /**
-   * Publish timeout failure for all IPs in a batch.
-   * Thread-safe - uses parallel stream.
+   * Publish a single result (probes that complete one target at a time).
    */
-  private static void publishBatchTimeout(Vertx vertx, Set<String> ipAddresses, int pollInterval)
+  static void publishResult(Vertx vertx, PingResult result)
+  {
+    publish(vertx, ResultBatch.of(result));
+  }
+
+  /**
+   * Target names behind a set of addresses (the addresses themselves when not aliased).
+   */
+  private static Collection<String> targetNames(Collection<String> ipAddresses, Map<String, List<String>> aliases)
+  {
+    if (aliases.isEmpty())
+    {
+      return ipAddresses;
+    }
+    List<String> names = new ArrayList<>(ipAddresses.size());
+    for (var ip : ipAddresses)
+    {
+      names.addAll(aliases.getOrDefault(ip, List.of(ip)));
+    }
+    return names;
+  }
+
+  /**
+   * Publish timeout failure for all IPs in a batch, as one message.
+   */
+  private static void publishBatchTimeout(Vertx vertx, Collection<String> ipAddresses)
   {
     logger.debug("Publishing timeout for {} IPs", ipAddresses.size());
-    ipAddresses.parallelStream()
-      .forEach(ip -> {
-        if (LogConfig.shouldLogIp(ip))
-        {
-          logger.trace("[IP:{}] Publishing TIMEOUT event", ip);
-        }
-        vertx.eventBus()
-          .publish(PROCESS_FAILED, new JsonObject().put(FILE_NAME, ip)
-            .put(DATA, ip + TIMEOUT_100)
-            .put(EXIT_CODE, -1)
-            .put(POLL_INTERVAL, pollInterval)
-          );
-      });
+    var batch = new ResultBatch(ipAddresses.size());
+    for (var ip : ipAddresses)
+    {
+      if (LogConfig.shouldLogIp(ip))
+      {
+        logger.trace("[IP:{}] Publishing TIMEOUT event", ip);
+      }
+      batch.add(PingResultUtil.createTimeoutResult(ip));
+    }
+    publish(vertx, batch);
   }
 
   /**
-   * Publish failure for IP that was missing from fping results.
+   * Publish failure for IP that was missing from fping results (or could not be resolved).
    * Thread-safe.
    */
-  private static void publishMissingIp(Vertx vertx, String ip, int pollInterval)
+  static void publishMissingIp(Vertx vertx, String ip)
   {
-    vertx.eventBus()
-      .publish(PROCESS_FAILED, new JsonObject().put(FILE_NAME, ip)
-        .put(DATA, ip + ERROR_100)
-        .put(EXIT_CODE, -1)
-        .put(POLL_INTERVAL, pollInterval)
-      );
+    publishResult(vertx, PingResultUtil.createErrorResult(ip));
   }
 
 }
@@ -0,0 +1,331 @@
+package com.practice.urlPoller;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClientAgent;
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.http.PoolOptions;
+import io.vertx.core.http.RequestOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * URL health check: one HTTP(S) GET per target and cycle on the Vert.x HttpClient (probe_type = 'http').
+ * <p>
+ * - the client keeps a connection pool per host (keep-alive for HTTP/1.1, ALPN / h2c upgrade to
+ *   HTTP/2 where the server supports it, so requests to one host multiplex over one connection)
+ * - every request has its own deadline (-Dhttp.request.timeout.ms): connect, idle and an absolute
+ *   timer from send to the last body byte - a server trickling bytes is reset and reported DOWN
+ * - a token bucket per host (-Dhttp.host.rate requests/s, burst of one second) protects targets;
+ *   requests over the budget wait in a per-host FIFO; buckets idle long enough to be full again
+ *   are dropped every BUCKET_SWEEP_INTERVAL_MS, so hosts no longer probed are forgotten
+ * - time to first byte (response headers), total latency (body drained) and status code are captured
+ * <p>
+ * A 2xx/3xx response is UP (redirects are not followed). Results are published on
+ * PROCESS_RESULTS like every other probe; the CSV row carries the
+ * status code and TTFB as two extra columns.
+ * <p>
+ * NOT thread-safe - owned by one Distributor shard, all callbacks run on its event loop.
+ */
+public class HttpProbeEngine
+{
+    public static final String PROBE_TYPE_HTTP = "http";
+    public static final String REQUEST_TIMEOUT_MS = "http.request.timeout.ms";
+    public static final String HOST_RATE = "http.host.rate";
+    public static final String HOST_CONNECTIONS = "http.host.connections";
+    private static final Logger logger = LoggerFactory.getLogger(HttpProbeEngine.class);
+    private static final long DEFAULT_REQUEST_TIMEOUT_MS = 5_000;
+    private static final int DEFAULT_HOST_RATE = 100;
+    private static final int DEFAULT_HOST_CONNECTIONS = 8;
+    private static final String USER_AGENT = "urlPoller";
+    private static final long BUCKET_SWEEP_INTERVAL_MS = 60_000;
+    private static final LongAdder requestCounter = Metrics.counter("http.probe.requests");
+    private static final LongAdder failedCounter = Metrics.counter("http.probe.failed");
+    private static final LongAdder throttledCounter = Metrics.counter("http.probe.throttled");
+    private static final LongAdder timedOutCounter = Metrics.counter("http.probe.timeouts");
+    private final Vertx vertx;
+    private final HttpClientAgent client;
+    private final long requestTimeoutMs;
+    private final double hostRate;
+    private final Map<String, HostBucket> buckets = new HashMap<>();
+    private final long sweepTimerId;
+    private int inFlight;
+
+    /**
+     * Must be created on the owning verticle's context.
+     */
+    public HttpProbeEngine(Vertx vertx)
+    {
+        this.vertx = vertx;
+        this.requestTimeoutMs = Math.max(1, Long.getLong(REQUEST_TIMEOUT_MS, DEFAULT_REQUEST_TIMEOUT_MS));
+        this.hostRate = Math.max(1, Integer.getInteger(HOST_RATE, DEFAULT_HOST_RATE));
+        var connections = Math.max(1, Integer.getInteger(HOST_CONNECTIONS, DEFAULT_HOST_CONNECTIONS));
+        this.client = vertx.createHttpClient(new HttpClientOptions()
+                                                 .setProtocolVersion(HttpVersion.HTTP_2)
+                                                 .setUseAlpn(true)
+                                                 .setKeepAlive(true),
+                                             new PoolOptions()
+                                                 .setHttp1MaxSize(connections)
+                                                 .setHttp2MaxSize(1)
+        );
+        this.sweepTimerId = vertx.setPeriodic(BUCKET_SWEEP_INTERVAL_MS, id -> sweepBuckets());
+    }
+
+    /**
+     * Check a set of URLs. The future completes once every target has its result;
+     * results are also published on the event bus.
+     *
+     * @param urls absolute http:// or https:// URLs
+     */
+    public Future<Map<String, PingResult>> probe(Collection<String> urls)
+    {
+        Map<String, PingResult> results = new HashMap<>(urls.size());
+        if (urls.isEmpty())
+        {
+            return Future.succeededFuture(results);
+        }
+
+        Promise<Map<String, PingResult>> promise = Promise.promise();
+        var batch = new Batch(urls.size(), results, promise);
+        for (var url : urls)
+        {
+            String host;
+            try
+            {
+                host = URI.create(url)
+                    .getHost();
+            } catch (IllegalArgumentException e)
+            {
+                host = null;
+            }
+            if (host == null)
+            {
+                logger.warn("[IP:{}] Not an absolute http(s) URL, publishing DOWN", url);
+                complete(batch, url, PingResultUtil.createHttpResult(url, -1, -1, -1));
+                continue;
+            }
+            buckets.computeIfAbsent(host, k -> new HostBucket(hostRate))
+                .submit(new Check(batch, url));
+        }
+        return promise.future();
+    }
+
+    /**
+     * @return requests currently in progress
+     */
+    public int inFlight()
+    {
+        return inFlight;
+    }
+
+    public Future<Void> close()
+    {
+        vertx.cancelTimer(sweepTimerId);
+        buckets.values()
+            .forEach(bucket -> bucket.waiting.clear());
+        return client.close();
+    }
+
+    /**
+     * Drop the buckets of hosts with nothing waiting that are full again - a new bucket starts
+     * full, so the next check of such a host is budgeted the same.
+     */
+    private void sweepBuckets()
+    {
+        var now = System.nanoTime();
+        buckets.values()
+            .removeIf(bucket -> bucket.idle(now));
+    }
+
+    private void send(Check check)
+    {
+        inFlight++;
+        requestCounter.increment();
+        var startNs = System.nanoTime();
+        var options = new RequestOptions()
+            .setMethod(HttpMethod.GET)
+            .setAbsoluteURI(check.url)
+            .setConnectTimeout(requestTimeoutMs)
+            .setIdleTimeout(requestTimeoutMs)
+            .putHeader("User-Agent", USER_AGENT);
+
+        // Connect / idle timeouts miss a server that keeps sending slowly - the deadline covers the whole check
+        Promise<PingResult> outcome = Promise.promise();
+        var deadlineTimerId = vertx.setTimer(requestTimeoutMs, id -> {
+            if (outcome.tryFail(new TimeoutException("No complete response within " + requestTimeoutMs + "ms")))
+            {
+                timedOutCounter.increment();
+                if (check.request != null)
+                {
+                    check.request.reset();
+                }
+            }
+        });
+
+        client.request(options)
+            .compose(request -> {
+                check.request = request;
+                if (outcome.future()
+                    .isComplete())
+                {
+                    // Deadline passed while waiting for a connection
+                    request.reset();
+                    return Future.failedFuture("Deadline passed before send");
+                }
+                return request.send();
+            })
+            .compose(response -> {
+                var ttfbMs = (System.nanoTime() - startNs) / 1_000_000.0;
+                // Drain without buffering the body; total latency is measured at the last byte
+                response.handler(chunk -> {
+                });
+                return response.end()
+                    .map(v -> PingResultUtil.createHttpResult(check.url, response.statusCode(), ttfbMs,
+                                                              (System.nanoTime() - startNs) / 1_000_000.0
+                    ));
+            })
+            .onComplete(ar -> {
+                if (ar.succeeded())
+                {
+                    outcome.tryComplete(ar.result());
+                } else
+                {
+                    outcome.tryFail(ar.cause());
+                }
+            });
+
+        outcome.future()
+            .onComplete(ar -> {
+                vertx.cancelTimer(deadlineTimerId);
+                inFlight--;
+                PingResult result;
+                if (ar.succeeded())
+                {
+                    result = ar.result();
+                } else
+                {
+                    if (LogConfig.shouldLogIp(check.url))
+                    {
+                        logger.trace("[IP:{}] HTTP request failed: {}", check.url, ar.cause().getMessage());
+                    }
+                    result = PingResultUtil.createHttpResult(check.url, -1, -1, -1);
+                }
+                if (!result.isUp())
+                {
+                    failedCounter.increment();
+                }
+                complete(check.batch, check.url, result);
+            });
+    }
+
+    private void complete(Batch batch, String url, PingResult result)
+    {
+        FpingWorker.publishResult(vertx, result);
+        batch.results.put(url, result);
+        if (--batch.remaining == 0)
+        {
+            batch.promise.complete(batch.results);
+        }
+    }
+
+    /**
+     * Token bucket of one host: {@code rate} tokens per second, at most {@code rate} stored.
+     * Checks without a token wait here and are released by a one-shot timer.
+     */
+    private final class HostBucket
+    {
+        private final double rate;
+        private final ArrayDeque<Check> waiting = new ArrayDeque<>();
+        private double tokens;
+        private long refilledNs = System.nanoTime();
+        private long timerId = -1;
+
+        private HostBucket(double rate)
+        {
+            this.rate = rate;
+            this.tokens = rate;
+        }
+
+        private void submit(Check check)
+        {
+            waiting.add(check);
+            drain();
+            if (!waiting.isEmpty())
+            {
+                // FIFO - if anything is still waiting, so is this check
+                throttledCounter.increment();
+            }
+        }
+
+        private void drain()
+        {
+            var now = System.nanoTime();
+            tokens = Math.min(rate, tokens + (now - refilledNs) * rate / 1_000_000_000.0);
+            refilledNs = now;
+
+            while (tokens >= 1 && !waiting.isEmpty())
+            {
+                tokens--;
+                send(waiting.poll());
+            }
+
+            if (!waiting.isEmpty() && timerId == -1)
+            {
+                var waitMs = (long) Math.ceil((1 - tokens) * 1000 / rate);
+                timerId = vertx.setTimer(Math.max(1, waitMs), id -> {
+                    timerId = -1;
+                    drain();
+                });
+            }
+        }
+
+        /**
+         * @return true if nothing waits and the bucket has refilled completely by {@code now}
+         */
+        private boolean idle(long now)
+        {
+            return waiting.isEmpty() && timerId == -1 && tokens + (now - refilledNs) * rate / 1_000_000_000.0 >= rate;
+        }
+    }
+
+    private static final class Check
+    {
+        private final Batch batch;
+        private final String url;
+        // Set once the client has a connection for it; reset when the deadline passes
+        private HttpClientRequest request;
+
+        private Check(Batch batch, String url)
+        {
+            this.batch = batch;
+            this.url = url;
+        }
+    }
+
+    private static final class Batch
+    {
+        private final Map<String, PingResult> results;
+        private final Promise<Map<String, PingResult>> promise;
+        private int remaining;
+
+        private Batch(int size, Map<String, PingResult> results, Promise<Map<String, PingResult>> promise)
+        {
+            this.remaining = size;
+            this.results = results;
+            this.promise = promise;
+        }
+    }
+
+}
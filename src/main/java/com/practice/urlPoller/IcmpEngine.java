@@ -0,0 +1,626 @@
+package com.practice.urlPoller;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * In-JVM ICMP echo engine (alternative to forking fping), enabled with -Dprobe.engine=native.
+ * <p>
+ * One daemon thread owns an unprivileged ICMP datagram socket per address family
+ * (see {@link NativeIcmp}) and multiplexes every batch over them with poll():
+ * - each batch sends {@code COUNT_ICMP} rounds of echo requests, {@code ROUND_INTERVAL_MS} apart
+ *   (same shape as fping -c 3)
+ * - replies are matched by sequence number and source address; RTT is measured with
+ *   System.nanoTime() (microsecond resolution)
+ * - a probe without a reply after {@code REPLY_TIMEOUT_MS} is lost (same as fping -t 200)
+ * <p>
+ * Results are published as one PROCESS_RESULTS batch per probe round, exactly like fping results.
+ * Targets must be IP literals (no DNS lookups on the engine thread); the Distributor resolves
+ * hostname targets through its DnsCache first.
+ * <p>
+ * Requirements: Linux, a gid inside net.ipv4.ping_group_range, and --enable-preview
+ * (the foreign-function API is a preview feature in Java 21).
+ */
+public class IcmpEngine
+{
+    public static final String PROBE_ENGINE = "probe.engine";
+    public static final String PROBE_ENGINE_NATIVE = "native";
+    private static final Logger logger = LoggerFactory.getLogger(IcmpEngine.class);
+    private static final int ROUNDS = Integer.parseInt(FpingWorker.COUNT_ICMP);
+    private static final long ROUND_INTERVAL_MS = 1_000;
+    private static final long REPLY_TIMEOUT_MS = Long.parseLong(FpingWorker.TIMEOUT_MILS);
+    // Upper bound of one poll() so new batches are picked up quickly
+    private static final int MAX_POLL_MS = 10;
+    private static final int SOCKET_BUFFER_BYTES = 4 * 1024 * 1024;
+    private static final int ICMP_ECHO_REQUEST = 8;
+    private static final int ICMP_ECHO_REPLY = 0;
+    private static final int ICMPV6_ECHO_REQUEST = 128;
+    private static final int ICMPV6_ECHO_REPLY = 129;
+    // 8-byte ICMP header + 56 bytes payload, like ping
+    private static final int PACKET_SIZE = 64;
+    private static final int SEQ_SPACE = 65_536;
+    private static final Pattern IPV4_LITERAL = Pattern.compile("^\\d{1,3}(\\.\\d{1,3}){3}$");
+    private static final ValueLayout.OfShort SHORT_BE = ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    private static IcmpEngine shared;
+
+    private final Vertx vertx;
+    private final LinkedBlockingQueue<Batch> submissions = new LinkedBlockingQueue<>();
+    private final LongAdder sentCounter = Metrics.counter("icmp.engine.sent");
+    private final LongAdder receivedCounter = Metrics.counter("icmp.engine.received");
+    // Engine thread state
+    private final List<Batch> active = new ArrayList<>();
+    private final Probe[] pendingBySeq = new Probe[SEQ_SPACE];
+    private final ArrayDeque<Probe> pendingInSendOrder = new ArrayDeque<>();
+    private NativeIcmp icmp;
+    private int fd4 = -1;
+    private int fd6 = -1;
+    private int nextSeq;
+    private MemorySegment packet;
+    private MemorySegment sendAddress;
+    private MemorySegment replyBuffer;
+    private MemorySegment replyAddress;
+    private MemorySegment replyAddressLength;
+    private MemorySegment pollFds;
+    private volatile boolean running;
+
+    private IcmpEngine(Vertx vertx)
+    {
+        this.vertx = vertx;
+    }
+
+    /**
+     * The engine shared by all Distributor shards, started on first use.
+     *
+     * @return the engine, or null if ICMP sockets are not available (caller falls back to fping)
+     */
+    public static synchronized IcmpEngine shared(Vertx vertx)
+    {
+        if (shared == null)
+        {
+            var engine = new IcmpEngine(vertx);
+            if (!engine.start())
+            {
+                return null;
+            }
+            shared = engine;
+        }
+        return shared;
+    }
+
+    /**
+     * Probe a set of IPs. The future completes on the caller's context once every
+     * target has its result; results are also published on the event bus.
+     */
+    public Future<Map<String, PingResult>> probe(Collection<String> ipAddresses)
+    {
+        return probe(ipAddresses, Map.of());
+    }
+
+    /**
+     * Probe pre-resolved addresses; results are published once per target name in {@code aliases}
+     * (address -> hostnames), see {@link FpingWorker#work(Vertx, java.util.Set, Integer, Map)}.
+     */
+    public Future<Map<String, PingResult>> probe(Collection<String> ipAddresses, Map<String, List<String>> aliases)
+    {
+        var context = vertx.getOrCreateContext();
+        Promise<Map<String, PingResult>> promise = Promise.promise();
+
+        List<Target> targets = new ArrayList<>(ipAddresses.size());
+        for (var ip : ipAddresses)
+        {
+            var target = Target.parse(ip);
+            if (target == null)
+            {
+                logger.warn("[IP:{}] Native ICMP engine needs an IP literal, publishing ERROR", ip);
+                FpingWorker.publishMissingIp(vertx, ip);
+            } else if (target.v6 ? fd6 < 0 : fd4 < 0)
+            {
+                logger.warn("[IP:{}] No ICMP socket for this address family, publishing ERROR", ip);
+                FpingWorker.publishMissingIp(vertx, ip);
+            } else
+            {
+                targets.add(target);
+            }
+        }
+
+        if (targets.isEmpty())
+        {
+            return Future.succeededFuture(new ConcurrentHashMap<>());
+        }
+
+        submissions.add(new Batch(targets, aliases,
+                                  result -> context.runOnContext(v -> promise.complete(result))
+        ));
+        return promise.future();
+    }
+
+    private boolean start()
+    {
+        try
+        {
+            icmp = new NativeIcmp();
+        } catch (Throwable t)
+        {
+            logger.error("Native ICMP engine unavailable (run with --enable-preview on Linux): {}", t.toString());
+            return false;
+        }
+
+        fd4 = openSocket(NativeIcmp.AF_INET, NativeIcmp.IPPROTO_ICMP);
+        fd6 = openSocket(NativeIcmp.AF_INET6, NativeIcmp.IPPROTO_ICMPV6);
+        if (fd4 < 0 && fd6 < 0)
+        {
+            icmp.close();
+            return false;
+        }
+
+        var arena = icmp.arena();
+        packet = arena.allocate(PACKET_SIZE);
+        sendAddress = arena.allocate(NativeIcmp.SOCKADDR_IN6_SIZE);
+        replyBuffer = arena.allocate(1500);
+        replyAddress = arena.allocate(NativeIcmp.SOCKADDR_IN6_SIZE);
+        replyAddressLength = arena.allocate(ValueLayout.JAVA_INT);
+        pollFds = arena.allocate(NativeIcmp.POLLFD_SIZE * 2);
+
+        running = true;
+        var thread = new Thread(this::loop, "icmp-engine");
+        thread.setDaemon(true);
+        thread.start();
+
+        Metrics.gauge("icmp.engine.pending", pendingInSendOrder::size);
+        logger.info("Native ICMP engine started: ipv4={}, ipv6={}, rounds={}, timeout={}ms",
+                    fd4 >= 0, fd6 >= 0, ROUNDS, REPLY_TIMEOUT_MS
+        );
+        return true;
+    }
+
+    private int openSocket(int family, int protocol)
+    {
+        var fd = icmp.socket(family, NativeIcmp.SOCK_DGRAM, protocol);
+        if (fd < 0)
+        {
+            var errno = icmp.errno();
+            logger.warn("ICMP socket (family {}) not available: errno={}{}", family, errno,
+                        errno == NativeIcmp.EACCES ? " - add this gid to net.ipv4.ping_group_range" : ""
+            );
+            return -1;
+        }
+        icmp.setsockopt(fd, NativeIcmp.SOL_SOCKET, NativeIcmp.SO_RCVBUF, SOCKET_BUFFER_BYTES);
+        icmp.setsockopt(fd, NativeIcmp.SOL_SOCKET, NativeIcmp.SO_SNDBUF, SOCKET_BUFFER_BYTES);
+        return fd;
+    }
+
+    // =====================================================
+    // Engine thread
+    // =====================================================
+
+    private void loop()
+    {
+        while (running)
+        {
+            try
+            {
+                if (active.isEmpty() && pendingInSendOrder.isEmpty())
+                {
+                    // Idle - block until work arrives
+                    active.add(submissions.take());
+                }
+                submissions.drainTo(active);
+
+                var now = System.nanoTime();
+                sendDueRounds(now);
+                receive(pollTimeoutMs(now));
+                expire(System.nanoTime());
+                completeFinished();
+            } catch (InterruptedException e)
+            {
+                Thread.currentThread()
+                    .interrupt();
+                return;
+            } catch (RuntimeException e)
+            {
+                logger.error("ICMP engine loop error", e);
+            }
+        }
+    }
+
+    private void sendDueRounds(long now)
+    {
+        for (var batch : active)
+        {
+            while (batch.round < ROUNDS && now >= batch.nextRoundNs)
+            {
+                if (!sendRound(batch, now))
+                {
+                    // Socket buffer full or sequence space exhausted - continue next iteration
+                    return;
+                }
+                batch.round++;
+                batch.cursor = 0;
+                batch.nextRoundNs = now + TimeUnit.MILLISECONDS.toNanos(ROUND_INTERVAL_MS);
+            }
+        }
+    }
+
+    /**
+     * @return false if the round could not be sent completely (resumes at batch.cursor)
+     */
+    private boolean sendRound(Batch batch, long now)
+    {
+        while (batch.cursor < batch.targets.size())
+        {
+            if (pendingBySeq[nextSeq] != null)
+            {
+                return false;
+            }
+
+            var index = batch.cursor;
+            var target = batch.targets.get(index);
+            var seq = nextSeq;
+            writeEchoRequest(target.v6, seq);
+            var sendAddressLength = target.writeSockaddr(sendAddress);
+
+            var sent = icmp.sendto(target.v6 ? fd6 : fd4, packet, PACKET_SIZE, NativeIcmp.MSG_DONTWAIT,
+                                   sendAddress, sendAddressLength
+            );
+            if (sent < 0 && icmp.errno() == NativeIcmp.EAGAIN)
+            {
+                return false;
+            }
+
+            batch.cursor++;
+            batch.sent[index]++;
+            sentCounter.increment();
+            if (sent < 0)
+            {
+                // Unreachable network etc. - counts as a lost probe
+                logger.debug("[IP:{}] sendto failed: errno={}", target.ip, icmp.errno());
+                continue;
+            }
+
+            var probe = new Probe(batch, index, batch.round, seq, now);
+            pendingBySeq[seq] = probe;
+            pendingInSendOrder.add(probe);
+            batch.outstanding++;
+            nextSeq = (nextSeq + 1) % SEQ_SPACE;
+        }
+        return true;
+    }
+
+    private void writeEchoRequest(boolean v6, int seq)
+    {
+        packet.fill((byte) 0);
+        packet.set(ValueLayout.JAVA_BYTE, 0, (byte) (v6 ? ICMPV6_ECHO_REQUEST : ICMP_ECHO_REQUEST));
+        // Identifier (offset 4) is assigned by the kernel for ping sockets
+        packet.set(SHORT_BE, 6, (short) seq);
+        if (!v6)
+        {
+            // ICMPv6 checksums are always computed by the kernel
+            packet.set(SHORT_BE, 2, checksum(packet));
+        }
+    }
+
+    private static short checksum(MemorySegment data)
+    {
+        var sum = 0L;
+        for (long offset = 0; offset < PACKET_SIZE; offset += 2)
+        {
+            sum += data.get(SHORT_BE, offset) & 0xFFFF;
+        }
+        while ((sum >> 16) != 0)
+        {
+            sum = (sum & 0xFFFF) + (sum >> 16);
+        }
+        return (short) ~sum;
+    }
+
+    private int pollTimeoutMs(long now)
+    {
+        var timeoutNs = TimeUnit.MILLISECONDS.toNanos(MAX_POLL_MS);
+        var oldest = pendingInSendOrder.peek();
+        if (oldest != null)
+        {
+            timeoutNs = Math.min(timeoutNs, oldest.sentNs + TimeUnit.MILLISECONDS.toNanos(REPLY_TIMEOUT_MS) - now);
+        }
+        for (var batch : active)
+        {
+            if (batch.round < ROUNDS)
+            {
+                timeoutNs = Math.min(timeoutNs, batch.nextRoundNs - now);
+            }
+        }
+        return (int) Math.max(0, TimeUnit.NANOSECONDS.toMillis(timeoutNs));
+    }
+
+    private void receive(int timeoutMs)
+    {
+        var count = 0;
+        if (fd4 >= 0)
+        {
+            setPollFd(count++, fd4);
+        }
+        if (fd6 >= 0)
+        {
+            setPollFd(count++, fd6);
+        }
+
+        var ready = icmp.poll(pollFds, count, timeoutMs);
+        if (ready <= 0)
+        {
+            return;
+        }
+
+        for (var i = 0; i < count; i++)
+        {
+            var revents = pollFds.get(ValueLayout.JAVA_SHORT, i * NativeIcmp.POLLFD_SIZE + 6);
+            if ((revents & NativeIcmp.POLLIN) != 0)
+            {
+                drainSocket(pollFds.get(ValueLayout.JAVA_INT, i * NativeIcmp.POLLFD_SIZE));
+            }
+        }
+    }
+
+    private void setPollFd(int index, int fd)
+    {
+        var offset = index * NativeIcmp.POLLFD_SIZE;
+        pollFds.set(ValueLayout.JAVA_INT, offset, fd);
+        pollFds.set(ValueLayout.JAVA_SHORT, offset + 4, NativeIcmp.POLLIN);
+        pollFds.set(ValueLayout.JAVA_SHORT, offset + 6, (short) 0);
+    }
+
+    private void drainSocket(int fd)
+    {
+        var v6 = fd == fd6;
+        while (true)
+        {
+            replyAddressLength.set(ValueLayout.JAVA_INT, 0, (int) NativeIcmp.SOCKADDR_IN6_SIZE);
+            var length = icmp.recvfrom(fd, replyBuffer, replyBuffer.byteSize(), NativeIcmp.MSG_DONTWAIT,
+                                       replyAddress, replyAddressLength
+            );
+            if (length < 0)
+            {
+                return;
+            }
+            var receivedNs = System.nanoTime();
+
+            // Ping sockets deliver the ICMP message without the IP header
+            if (length < 8)
+            {
+                continue;
+            }
+            var type = replyBuffer.get(ValueLayout.JAVA_BYTE, 0) & 0xFF;
+            if (type != (v6 ? ICMPV6_ECHO_REPLY : ICMP_ECHO_REPLY))
+            {
+                continue;
+            }
+
+            var seq = replyBuffer.get(SHORT_BE, 6) & 0xFFFF;
+            var probe = pendingBySeq[seq];
+            if (probe == null || !probe.batch.targets.get(probe.targetIndex)
+                .matches(replyAddress))
+            {
+                // Late reply for an expired probe, or a stray packet
+                continue;
+            }
+
+            pendingBySeq[seq] = null;
+            probe.answered = true;
+            receivedCounter.increment();
+            probe.batch.recordReply(probe.targetIndex, probe.round, (receivedNs - probe.sentNs) / 1_000_000.0);
+        }
+    }
+
+    private void expire(long now)
+    {
+        var timeoutNs = TimeUnit.MILLISECONDS.toNanos(REPLY_TIMEOUT_MS);
+        while (!pendingInSendOrder.isEmpty())
+        {
+            var probe = pendingInSendOrder.peek();
+            if (!probe.answered && now - probe.sentNs < timeoutNs)
+            {
+                return;
+            }
+            pendingInSendOrder.poll();
+            if (!probe.answered)
+            {
+                pendingBySeq[probe.seq] = null;
+            }
+            probe.batch.outstanding--;
+        }
+    }
+
+    private void completeFinished()
+    {
+        var iterator = active.iterator();
+        while (iterator.hasNext())
+        {
+            var batch = iterator.next();
+            if (batch.round < ROUNDS || batch.outstanding > 0)
+            {
+                continue;
+            }
+            iterator.remove();
+            batch.complete(vertx);
+        }
+    }
+
+    // =====================================================
+    // Engine state
+    // =====================================================
+
+    private static final class Target
+    {
+        private final String ip;
+        private final boolean v6;
+        private final byte[] address;
+
+        private Target(String ip, boolean v6, byte[] address)
+        {
+            this.ip = ip;
+            this.v6 = v6;
+            this.address = address;
+        }
+
+        /**
+         * Fill a native sockaddr_in / sockaddr_in6 for sendto().
+         *
+         * @return the sockaddr length
+         */
+        private long writeSockaddr(MemorySegment sockaddr)
+        {
+            sockaddr.fill((byte) 0);
+            sockaddr.set(ValueLayout.JAVA_SHORT, 0, (short) (v6 ? NativeIcmp.AF_INET6 : NativeIcmp.AF_INET));
+            MemorySegment.copy(address, 0, sockaddr, ValueLayout.JAVA_BYTE, v6 ? 8 : 4, address.length);
+            return v6 ? NativeIcmp.SOCKADDR_IN6_SIZE : NativeIcmp.SOCKADDR_IN_SIZE;
+        }
+
+        /**
+         * @return null if {@code ip} is not an IPv4 / IPv6 literal
+         */
+        private static Target parse(String ip)
+        {
+            if (ip == null || !(IPV4_LITERAL.matcher(ip)
+                .matches() || ip.indexOf(':') >= 0))
+            {
+                return null;
+            }
+            try
+            {
+                // Literal - getByName does not hit DNS
+                var address = InetAddress.getByName(ip);
+                return new Target(ip, address instanceof Inet6Address, address.getAddress());
+            } catch (UnknownHostException e)
+            {
+                return null;
+            }
+        }
+
+        private boolean matches(MemorySegment from)
+        {
+            var offset = v6 ? 8 : 4;
+            for (var i = 0; i < address.length; i++)
+            {
+                if (from.get(ValueLayout.JAVA_BYTE, offset + i) != address[i])
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class Probe
+    {
+        private final Batch batch;
+        private final int targetIndex;
+        private final int round;
+        private final int seq;
+        private final long sentNs;
+        private boolean answered;
+
+        private Probe(Batch batch, int targetIndex, int round, int seq, long sentNs)
+        {
+            this.batch = batch;
+            this.targetIndex = targetIndex;
+            this.round = round;
+            this.seq = seq;
+            this.sentNs = sentNs;
+        }
+    }
+
+    private static final class Batch
+    {
+        private final List<Target> targets;
+        private final Map<String, List<String>> aliases;
+        private final Consumer<Map<String, PingResult>> onComplete;
+        private final int[] sent;
+        private final int[] received;
+        private final double[] minRtt;
+        private final double[] maxRtt;
+        private final double[] sumRtt;
+        // RTT per target and round (index * ROUNDS + round, -1 = lost), null unless -Drtt.stats=true
+        private final double[] rtts;
+        private int round;
+        private int cursor;
+        private long nextRoundNs = System.nanoTime();
+        private int outstanding;
+
+        private Batch(List<Target> targets, Map<String, List<String>> aliases, Consumer<Map<String, PingResult>> onComplete)
+        {
+            this.targets = targets;
+            this.aliases = aliases;
+            this.onComplete = onComplete;
+            this.sent = new int[targets.size()];
+            this.received = new int[targets.size()];
+            this.minRtt = new double[targets.size()];
+            this.maxRtt = new double[targets.size()];
+            this.sumRtt = new double[targets.size()];
+            Arrays.fill(minRtt, Double.MAX_VALUE);
+            if (RttStats.enabled())
+            {
+                this.rtts = new double[targets.size() * ROUNDS];
+                Arrays.fill(rtts, -1);
+            } else
+            {
+                this.rtts = null;
+            }
+        }
+
+        private void recordReply(int index, int round, double rttMs)
+        {
+            if (rtts != null)
+            {
+                rtts[index * ROUNDS + round] = rttMs;
+            }
+            received[index]++;
+            minRtt[index] = Math.min(minRtt[index], rttMs);
+            maxRtt[index] = Math.max(maxRtt[index], rttMs);
+            sumRtt[index] += rttMs;
+        }
+
+        private void complete(Vertx vertx)
+        {
+            Map<String, PingResult> results = new ConcurrentHashMap<>(targets.size());
+            var batch = new ResultBatch(targets.size());
+            for (var i = 0; i < targets.size(); i++)
+            {
+                var ip = targets.get(i).ip;
+                var result = received[i] == 0
+                    ? PingResultUtil.createUnreachableResult(ip)
+                    : PingResultUtil.createSuccessResult(ip, minRtt[i], sumRtt[i] / received[i], maxRtt[i],
+                                                         (sent[i] - received[i]) * 100 / Math.max(1, sent[i])
+                );
+                if (rtts != null)
+                {
+                    result = result.withRtts(Arrays.copyOfRange(rtts, i * ROUNDS, (i + 1) * ROUNDS));
+                }
+                results.put(ip, result);
+                batch.add(result, aliases);
+            }
+            FpingWorker.publish(vertx, batch);
+            onComplete.accept(results);
+        }
+    }
+
+}
@@ -0,0 +1,102 @@
+package com.practice.urlPoller;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Registry of IP ids currently being probed, with a per-IP dispatch generation.
+ * <p>
+ * The Distributor acquires an IP before handing it to a worker and releases it when the
+ * batch completes. An IP that is still in flight when it comes due again is skipped, so a
+ * slow or queued batch is never re-dispatched on top of itself. The generation makes
+ * release idempotent: a late completion of an abandoned batch cannot release a newer dispatch.
+ * <p>
+ * Entries older than {@code maxInFlightMs} are treated as abandoned (e.g. a lost worker
+ * callback) so an IP can never be blocked forever.
+ * <p>
+ * NOT thread-safe - owned by one Distributor shard (event loop confined).
+ */
+public class InFlightRegistry
+{
+    private final long maxInFlightMs;
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    // Shared counter so a removed and re-added IP never reuses an old generation
+    private long lastGeneration;
+    private int inFlight;
+
+    public InFlightRegistry(long maxInFlightMs)
+    {
+        this.maxInFlightMs = maxInFlightMs;
+    }
+
+    /**
+     * Mark an IP as in flight.
+     *
+     * @return the new dispatch generation, or -1 if the IP is already in flight
+     */
+    public long tryAcquire(int id, long nowMs)
+    {
+        var entry = entries.computeIfAbsent(id, k -> new Entry());
+        if (entry.inFlight)
+        {
+            if (nowMs - entry.acquiredAtMs < maxInFlightMs)
+            {
+                return -1;
+            }
+            // Abandoned dispatch - take over with a new generation
+            inFlight--;
+        }
+
+        entry.generation = ++lastGeneration;
+        entry.inFlight = true;
+        entry.acquiredAtMs = nowMs;
+        inFlight++;
+        return entry.generation;
+    }
+
+    /**
+     * Release an IP if {@code generation} is still its current dispatch.
+     *
+     * @return false if the dispatch was already released or superseded
+     */
+    public boolean release(int id, long generation)
+    {
+        var entry = entries.get(id);
+        if (entry == null || !entry.inFlight || entry.generation != generation)
+        {
+            return false;
+        }
+        entry.inFlight = false;
+        inFlight--;
+        return true;
+    }
+
+    /**
+     * Forget an IP that was removed from the schedule. Its in-flight batch may still
+     * complete; the release is then ignored.
+     */
+    public void remove(int id)
+    {
+        var entry = entries.remove(id);
+        if (entry != null && entry.inFlight)
+        {
+            inFlight--;
+        }
+    }
+
+    /**
+     * @return number of IPs currently in flight
+     */
+    public int inFlight()
+    {
+        return inFlight;
+    }
+
+    private static final class Entry
+    {
+        private long generation;
+        private boolean inFlight;
+        private long acquiredAtMs;
+    }
+
+}
@@ -1,13 +1,18 @@
 package com.practice.urlPoller;
 
+import com.practice.urlPoller.Constants.Event;
+import com.practice.urlPoller.DB.PostgresClient;
+import io.vertx.core.DeploymentOptions;
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 import io.vertx.core.VertxOptions;
 import io.vertx.core.WorkerExecutor;
+import io.vertx.core.json.JsonObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Main entry point for URL Poller (Database-First Mode)
@@ -15,16 +20,18 @@ import java.util.ArrayList;
  * Changes from file-based mode:
  * - Removed CONFIG_LOADED event and file loading
  * - IPs are now managed via REST API only
- * - Distributor queries PostgreSQL directly
+ * - Distributor loads PostgreSQL once into an in-memory timing wheel
  */
 public class Main
 {
     public static final String FPING_WORKER = "fping-worker";
     public static final String IP_WHITELIST = "ip.whitelist";
     public static final String IP_WHITELIST_FILE = "ip.whitelist.file";
+    public static final String DISTRIBUTOR_SHARDS = "distributor.shards";
     private static final int PORT = 8080;
     private static final Logger logger = LoggerFactory.getLogger(Main.class);
     private static WorkerExecutor fpingWorkerPool;
+    private static int fpingWorkerPoolSize = 1;
 
     /**
      * Get the shared fping worker pool.
@@ -35,15 +42,28 @@ public class Main
         return fpingWorkerPool;
     }
 
+    /**
+     * Number of threads in the fping worker pool, or concurrent tasks in virtual-thread mode
+     * (used to split large batches).
+     */
+    public static int getFpingWorkerPoolSize()
+    {
+        return fpingWorkerPoolSize;
+    }
+
     public static void main(String[] args)
     {
         logger.info("URL Poller Starting (Database-First Mode)");
 
+        // One Distributor shard per core unless overridden
+        var shardCount = Math.max(1, Integer.getInteger(DISTRIBUTOR_SHARDS, Runtime.getRuntime()
+            .availableProcessors()));
+
         // Configure Vert.x with optimized thread pools
-        // Event loops: 2 (sufficient for 2 verticles + event-driven processing)
+        // Event loops: one per Distributor shard (min 2 for FileWriter + HTTP server)
         // Default worker pool: 1 (minimum required by Vert.x, not actively used)
         // Internal blocking pool: 1 (minimal file I/O: CSV writes only)
-        var vertxOptions = new VertxOptions().setEventLoopPoolSize(2)
+        var vertxOptions = new VertxOptions().setEventLoopPoolSize(Math.max(2, shardCount))
             .setWorkerPoolSize(1)
             .setInternalBlockingPoolSize(1);
 
@@ -54,18 +74,36 @@ public class Main
         );
 
         var vertx = Vertx.vertx(vertxOptions);
+        // Probe results travel the event bus as columnar ResultBatch envelopes, passed by reference
+        vertx.eventBus()
+            .registerDefaultCodec(ResultBatch.class, new ResultBatch.Codec());
 
         // Start HTTP server for REST API
         new Server(vertx, PORT).startServer();
         logger.info("REST API server starting on port {}", PORT);
 
-        // Create dedicated worker pool for fping batch processing
-        // Pool size: 3 threads (optimal for database-driven batch processing)
-        // Max execute time: 10 seconds (fping timeout is 6s + buffer)
-        fpingWorkerPool = vertx.createSharedWorkerExecutor(
-            FPING_WORKER, 3, 10_000_000_000L // 10 seconds max execution time
-        );
-        logger.info("Created fping worker pool: {} threads", 3);
+        if (VirtualThreadWorkerExecutor.EXECUTOR_VIRTUAL.equalsIgnoreCase(
+            System.getProperty(VirtualThreadWorkerExecutor.FPING_EXECUTOR, "")))
+        {
+            // One virtual thread per fping chunk, bounded by a semaphore instead of a pool size
+            var maxConcurrent = Math.max(1, Integer.getInteger(VirtualThreadWorkerExecutor.MAX_CONCURRENT,
+                                                               VirtualThreadWorkerExecutor.DEFAULT_MAX_CONCURRENT
+            ));
+            fpingWorkerPoolSize = maxConcurrent;
+            fpingWorkerPool = new VirtualThreadWorkerExecutor(vertx, FPING_WORKER, maxConcurrent);
+            logger.info("Created fping virtual-thread executor: {} concurrent tasks", maxConcurrent);
+        } else
+        {
+            // Create dedicated worker pool for fping batch processing
+            // Pool size: 3 threads minimum, one per shard beyond that so shards do not queue on each other
+            // Max execute time: 10 seconds (fping timeout is 6s + buffer)
+            var fpingPoolSize = Math.max(3, shardCount);
+            fpingWorkerPoolSize = fpingPoolSize;
+            fpingWorkerPool = vertx.createSharedWorkerExecutor(
+                FPING_WORKER, fpingPoolSize, 10_000_000_000L // 10 seconds max execution time
+            );
+            logger.info("Created fping worker pool: {} threads", fpingPoolSize);
+        }
 
         // Load IP whitelist for logging (optional)
         var whitelistCsv = System.getProperty(IP_WHITELIST, "");
@@ -79,19 +117,55 @@ public class Main
             LogConfig.loadWhitelist(whitelistCsv);
         }
 
+        // Postgres LISTEN/NOTIFY: one connection per JVM, fanned out to all Distributor shards
+        var ipChangeSubscriber = PostgresClient.listenForIPChanges(
+            vertx,
+            change -> vertx.eventBus()
+                .publish(Event.IP_CHANGED, change),
+            () -> vertx.eventBus()
+                .publish(Event.IP_RESYNC, null)
+        );
+
         // Deploy verticles
         var verticalList = new ArrayList<Future<String>>();
-        verticalList.add(vertx.deployVerticle(new Distributor()));
-        verticalList.add(vertx.deployVerticle(new FileWriter()));
+        // Multi-node mode: partition leases must be known before Distributors start
+        var clustered = Boolean.getBoolean(ClusterCoordinator.CLUSTER_ENABLED);
+        var partitionCount = Integer.getInteger(ClusterCoordinator.CLUSTER_PARTITIONS, ClusterCoordinator.DEFAULT_PARTITION_COUNT);
+        var nodeId = clustered ? System.getProperty(ClusterCoordinator.CLUSTER_NODE_ID, ClusterCoordinator.defaultNodeId()) : null;
+        Future<String> coordinatorDeployed = clustered
+            ? vertx.deployVerticle(new ClusterCoordinator(nodeId, partitionCount))
+            : Future.succeededFuture();
 
-        Future.all(verticalList)
+        coordinatorDeployed.compose(ignored -> {
+                // One Distributor per shard, each owning partitions with partition % shardCount == shard
+                for (var shard = 0; shard < shardCount; shard++)
+                {
+                    var config = new JsonObject().put(Distributor.SHARD, shard)
+                        .put(Distributor.SHARD_COUNT, shardCount)
+                        .put(Distributor.PARTITION_COUNT, partitionCount);
+                    if (clustered)
+                    {
+                        config.put(Distributor.NODE_ID, nodeId);
+                    }
+                    verticalList.add(vertx.deployVerticle(new Distributor(), new DeploymentOptions().setConfig(config)));
+                }
+                // -Dstats.storage=segment: one append-only segment log instead of a CSV file per target
+                verticalList.add(SegmentLogWriter.enabled()
+                                     ? vertx.deployVerticle(new SegmentLogWriter())
+                                     : vertx.deployVerticle(new FileWriter()));
+                return Future.all(verticalList);
+            })
             .onFailure(throwable -> {
                 logger.error("Failed to deploy verticles", throwable);
                 System.exit(1);
             })
             .onSuccess(result -> {
                 logger.info("All verticles deployed successfully");
-                logger.info("System ready - Distributor polling database every 5 seconds");
+                logger.info("System ready - {} Distributor shard(s) scheduling from in-memory timing wheels", shardCount);
+                if (clustered)
+                {
+                    logger.info("Cluster mode: node={}, partitions={}", nodeId, partitionCount);
+                }
                 logger.info("REST API available at http://localhost:{}", PORT);
                 logger.info("   POST   /ip       - Add new IP");
                 logger.info("   GET    /ip       - List all IPs");
@@ -104,12 +178,23 @@ public class Main
         Runtime.getRuntime()
             .addShutdownHook(new Thread(() -> {
                 logger.info("Shutdown initiated, closing resources...");
+                ipChangeSubscriber.close();
                 if (fpingWorkerPool != null)
                 {
                     fpingWorkerPool.close();
                     logger.info("Fping worker pool closed");
                 }
-                vertx.close();
+                // Wait briefly so verticle stop() hooks (schedule flush, lease release) can finish
+                try
+                {
+                    vertx.close()
+                        .toCompletionStage()
+                        .toCompletableFuture()
+                        .get(5, TimeUnit.SECONDS);
+                } catch (Exception e)
+                {
+                    logger.warn("Vert.x did not close cleanly: {}", e.getMessage());
+                }
                 logger.info("URL Poller Stopped");
             }));
     }
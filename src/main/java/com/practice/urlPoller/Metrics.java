@@ -0,0 +1,56 @@
+package com.practice.urlPoller;
+
+import io.vertx.core.json.JsonObject;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Centralized in-process metrics registry for URL Poller.
+ * Counters are LongAdders (cheap under contention from worker threads);
+ * gauges are sampled lazily when a snapshot is taken.
+ * <p>
+ * Exposed via GET /metrics.
+ */
+public class Metrics
+{
+    private static final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private static final Map<String, Supplier<Object>> gauges = new ConcurrentHashMap<>();
+
+    /**
+     * Get (or create) a named counter.
+     * Callers on hot paths should keep the returned LongAdder instead of looking it up per event.
+     */
+    public static LongAdder counter(String name)
+    {
+        return counters.computeIfAbsent(name, k -> new LongAdder());
+    }
+
+    /**
+     * Register a gauge sampled at snapshot time. Re-registering a name replaces the previous gauge.
+     */
+    public static void gauge(String name, Supplier<Object> supplier)
+    {
+        gauges.put(name, supplier);
+    }
+
+    public static void removeGauge(String name)
+    {
+        gauges.remove(name);
+    }
+
+    /**
+     * Snapshot all counters and gauges, sorted by name.
+     */
+    public static JsonObject snapshot()
+    {
+        var sorted = new TreeMap<String, Object>();
+        counters.forEach((name, adder) -> sorted.put(name, adder.sum()));
+        gauges.forEach((name, supplier) -> sorted.put(name, supplier.get()));
+        return new JsonObject(sorted);
+    }
+
+}
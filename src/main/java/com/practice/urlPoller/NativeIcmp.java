@@ -0,0 +1,169 @@
+package com.practice.urlPoller;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.StructLayout;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.VarHandle;
+
+import static java.lang.foreign.ValueLayout.ADDRESS;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+import static java.lang.foreign.ValueLayout.JAVA_LONG;
+
+/**
+ * Thin foreign-function bindings to the libc socket calls needed for unprivileged
+ * ICMP echo ("ping sockets": socket(AF_INET, SOCK_DGRAM, IPPROTO_ICMP)).
+ * <p>
+ * Linux only. The kernel assigns the ICMP identifier and filters replies per socket,
+ * so no raw socket / CAP_NET_RAW is needed - only a gid inside net.ipv4.ping_group_range.
+ * <p>
+ * Every call returns the raw libc result; on failure (-1) {@link #errno()} holds the
+ * error of the last call made on the calling thread.
+ * <p>
+ * NOT thread-safe - one instance per engine thread (errno capture buffer is shared).
+ */
+final class NativeIcmp implements AutoCloseable
+{
+    static final int AF_INET = 2;
+    static final int AF_INET6 = 10;
+    static final int SOCK_DGRAM = 2;
+    static final int IPPROTO_ICMP = 1;
+    static final int IPPROTO_ICMPV6 = 58;
+    static final int SOL_SOCKET = 1;
+    static final int SO_SNDBUF = 7;
+    static final int SO_RCVBUF = 8;
+    static final int MSG_DONTWAIT = 0x40;
+    static final short POLLIN = 0x1;
+    static final int EINTR = 4;
+    static final int EAGAIN = 11;
+    static final int EACCES = 13;
+    static final long SOCKADDR_IN_SIZE = 16;
+    static final long SOCKADDR_IN6_SIZE = 28;
+    static final long POLLFD_SIZE = 8;
+
+    private static final Linker LINKER = Linker.nativeLinker();
+    private static final StructLayout CAPTURE_LAYOUT = Linker.Option.captureStateLayout();
+    private static final VarHandle ERRNO = CAPTURE_LAYOUT.varHandle(MemoryLayout.PathElement.groupElement("errno"));
+    private static final Linker.Option CAPTURE_ERRNO = Linker.Option.captureCallState("errno");
+
+    private static final MethodHandle SOCKET = downcall("socket",
+                                                        FunctionDescriptor.of(JAVA_INT, JAVA_INT, JAVA_INT, JAVA_INT));
+    private static final MethodHandle SETSOCKOPT = downcall("setsockopt",
+                                                            FunctionDescriptor.of(JAVA_INT, JAVA_INT, JAVA_INT, JAVA_INT,
+                                                                                  ADDRESS, JAVA_INT
+                                                            ));
+    private static final MethodHandle SENDTO = downcall("sendto",
+                                                        FunctionDescriptor.of(JAVA_LONG, JAVA_INT, ADDRESS, JAVA_LONG,
+                                                                              JAVA_INT, ADDRESS, JAVA_INT
+                                                        ));
+    private static final MethodHandle RECVFROM = downcall("recvfrom",
+                                                          FunctionDescriptor.of(JAVA_LONG, JAVA_INT, ADDRESS, JAVA_LONG,
+                                                                                JAVA_INT, ADDRESS, ADDRESS
+                                                          ));
+    private static final MethodHandle POLL = downcall("poll",
+                                                      FunctionDescriptor.of(JAVA_INT, ADDRESS, JAVA_LONG, JAVA_INT));
+    private static final MethodHandle CLOSE = downcall("close", FunctionDescriptor.of(JAVA_INT, JAVA_INT));
+
+    private final Arena arena = Arena.ofShared();
+    private final MemorySegment captureState = arena.allocate(CAPTURE_LAYOUT);
+
+    private static MethodHandle downcall(String name, FunctionDescriptor descriptor)
+    {
+        return LINKER.downcallHandle(LINKER.defaultLookup()
+                                         .find(name)
+                                         .orElseThrow(() -> new UnsatisfiedLinkError("libc symbol not found: " + name)),
+                                     descriptor, CAPTURE_ERRNO
+        );
+    }
+
+    /**
+     * Arena for buffers that live as long as this binding (packet buffers, sockaddrs, pollfds).
+     */
+    Arena arena()
+    {
+        return arena;
+    }
+
+    int errno()
+    {
+        return (int) ERRNO.get(captureState);
+    }
+
+    int socket(int domain, int type, int protocol)
+    {
+        try
+        {
+            return (int) SOCKET.invokeExact(captureState, domain, type, protocol);
+        } catch (Throwable t)
+        {
+            throw new IllegalStateException("socket() failed", t);
+        }
+    }
+
+    int setsockopt(int fd, int level, int option, int value)
+    {
+        try (var local = Arena.ofConfined())
+        {
+            var optval = local.allocate(JAVA_INT);
+            optval.set(JAVA_INT, 0, value);
+            return (int) SETSOCKOPT.invokeExact(captureState, fd, level, option, optval, (int) JAVA_INT.byteSize());
+        } catch (Throwable t)
+        {
+            throw new IllegalStateException("setsockopt() failed", t);
+        }
+    }
+
+    long sendto(int fd, MemorySegment buffer, long length, int flags, MemorySegment address, long addressLength)
+    {
+        try
+        {
+            return (long) SENDTO.invokeExact(captureState, fd, buffer, length, flags, address, (int) addressLength);
+        } catch (Throwable t)
+        {
+            throw new IllegalStateException("sendto() failed", t);
+        }
+    }
+
+    long recvfrom(int fd, MemorySegment buffer, long length, int flags, MemorySegment address, MemorySegment addressLength)
+    {
+        try
+        {
+            return (long) RECVFROM.invokeExact(captureState, fd, buffer, length, flags, address, addressLength);
+        } catch (Throwable t)
+        {
+            throw new IllegalStateException("recvfrom() failed", t);
+        }
+    }
+
+    int poll(MemorySegment pollfds, long count, int timeoutMs)
+    {
+        try
+        {
+            return (int) POLL.invokeExact(captureState, pollfds, count, timeoutMs);
+        } catch (Throwable t)
+        {
+            throw new IllegalStateException("poll() failed", t);
+        }
+    }
+
+    int closeFd(int fd)
+    {
+        try
+        {
+            return (int) CLOSE.invokeExact(captureState, fd);
+        } catch (Throwable t)
+        {
+            throw new IllegalStateException("close() failed", t);
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        arena.close();
+    }
+
+}
@@ -0,0 +1,142 @@
+package com.practice.urlPoller;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * One probe result, from the probe engine to every sink (event bus, CSV, Postgres).
+ * <p>
+ * Primitive fields instead of a JsonObject - no hash map, boxed doubles or pre-rendered CSV per
+ * result. The CSV row is written by {@link PingResultUtil#appendCsvRow}, JSON is only produced
+ * at the REST boundary ({@link #toJson()}).
+ * <p>
+ * - target: name as scheduled (IP literal, hostname or URL) - the String the scheduler already
+ *   holds, so it costs nothing per result
+ * - min/avg/max RTT are -1 without a reply
+ * - httpStatus: {@code NOT_HTTP} for ICMP / TCP probes, -1 for an HTTP probe without a response
+ * - rtts: per-packet RTTs in send order (-1 = lost), null unless -Drtt.stats=true
+ * - probedAtMs: when the result was complete (epoch ms)
+ * <p>
+ * Immutable ({@code rtts} is never written after construction). On the event bus results travel
+ * in columnar {@link ResultBatch} envelopes.
+ */
+public record PingResult(String target, Status status, int packetLoss, double minRtt, double avgRtt, double maxRtt,
+                         int httpStatus, double ttfbMs, double[] rtts, long probedAtMs)
+{
+    public static final int NOT_HTTP = 0;
+
+    public enum Status
+    {
+        UP, DOWN, TIMEOUT, ERROR
+    }
+
+    public boolean isUp()
+    {
+        return status == Status.UP;
+    }
+
+    public boolean isHttp()
+    {
+        return httpStatus != NOT_HTTP;
+    }
+
+    /**
+     * @return true if per-packet RTTs were captured (-Drtt.stats=true)
+     */
+    public boolean hasRtts()
+    {
+        return rtts != null;
+    }
+
+    /**
+     * @return true if per-packet RTTs were captured and at least one reply arrived
+     */
+    public boolean hasRttStats()
+    {
+        if (rtts == null)
+        {
+            return false;
+        }
+        for (var rtt : rtts)
+        {
+            if (rtt >= 0)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return jitter of the per-packet RTTs, see {@link RttStats#jitter}; only with {@link #hasRttStats()}
+     */
+    public double jitterMs()
+    {
+        return RttStats.jitter(rtts);
+    }
+
+    /**
+     * @return nearest-rank percentile of the received per-packet RTTs; only with {@link #hasRttStats()}
+     */
+    public double percentileMs(double percentile)
+    {
+        return RttStats.percentile(RttStats.sortedReceived(rtts), percentile);
+    }
+
+    /**
+     * Same result under another target name (a hostname behind a probed address).
+     */
+    public PingResult withTarget(String name)
+    {
+        return new PingResult(name, status, packetLoss, minRtt, avgRtt, maxRtt, httpStatus, ttfbMs, rtts, probedAtMs);
+    }
+
+    /**
+     * Same result with per-packet RTTs.
+     *
+     * @param rttsMs RTTs in send order, negative for a lost packet; owned by the result from now on
+     */
+    public PingResult withRtts(double[] rttsMs)
+    {
+        return new PingResult(target, status, packetLoss, minRtt, avgRtt, maxRtt, httpStatus, ttfbMs, rttsMs, probedAtMs);
+    }
+
+    /**
+     * JSON form for the REST API and logs (PingResultUtil keys; RTT stats and HTTP fields only when present).
+     */
+    public JsonObject toJson()
+    {
+        var json = new JsonObject()
+            .put(PingResultUtil.IP, target)
+            .put(PingResultUtil.STATUS, status.name())
+            .put(PingResultUtil.SUCCESS, isUp())
+            .put(PingResultUtil.MIN_RTT, minRtt)
+            .put(PingResultUtil.AVG_RTT, avgRtt)
+            .put(PingResultUtil.MAX_RTT, maxRtt)
+            .put(PingResultUtil.PACKET_LOSS, packetLoss)
+            .put(PingResultUtil.PROBED_AT, probedAtMs);
+        if (isHttp())
+        {
+            json.put(PingResultUtil.HTTP_STATUS, httpStatus)
+                .put(PingResultUtil.TTFB, ttfbMs);
+        }
+        if (rtts != null)
+        {
+            var list = new JsonArray();
+            for (var rtt : rtts)
+            {
+                list.add(rtt < 0 ? null : rtt);
+            }
+            json.put(PingResultUtil.RTTS, list);
+            if (hasRttStats())
+            {
+                json.put(PingResultUtil.JITTER, jitterMs())
+                    .put(PingResultUtil.P50, percentileMs(50))
+                    .put(PingResultUtil.P95, percentileMs(95))
+                    .put(PingResultUtil.P99, percentileMs(99));
+            }
+        }
+        return json;
+    }
+
+}
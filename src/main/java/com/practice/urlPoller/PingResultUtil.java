@@ -1,31 +1,41 @@
 package com.practice.urlPoller;
 
-import io.vertx.core.json.JsonObject;
-
 /**
- * Utility class for creating and formatting ping result JSON objects.
+ * Utility class for creating and formatting ping results.
  * Follows Single Responsibility Principle - handles only ping result data operations.
  *
- * <p>This class provides factory methods for creating ping result JSON objects
+ * <p>This class provides factory methods for creating {@link PingResult} records
  * and formatting methods for CSV output. All methods are static as this is a
  * utility class with no state.
  *
- * <p>Thread-safe: All methods are stateless and work with immutable JsonObject instances.
+ * <p>Thread-safe: All methods are stateless and work with immutable PingResult instances.
  */
 public final class PingResultUtil
 {
-    // JSON Keys - Constants for type-safe JSON object access
+    // JSON Keys - used by PingResult.toJson() at the REST boundary
     public static final String IP = "ip";
+    public static final String STATUS = "status";
     public static final String SUCCESS = "isSuccess";
     public static final String MIN_RTT = "minRtt";
     public static final String AVG_RTT = "avgRtt";
     public static final String MAX_RTT = "maxRtt";
     public static final String PACKET_LOSS = "packetLoss";
-    public static final String STATUS_UP = "UP";
-    public static final String STATUS_DOWN = "DOWN";
+    public static final String PROBED_AT = "probedAt";
+    // HTTP probes only
+    public static final String HTTP_STATUS = "httpStatus";
+    public static final String TTFB = "ttfbMs";
+    // Per-packet RTT statistics (-Drtt.stats=true)
+    public static final String JITTER = "jitterMs";
+    public static final String P50 = "p50Ms";
+    public static final String P95 = "p95Ms";
+    public static final String P99 = "p99Ms";
+    public static final String RTTS = "rtts";
     // CSV Format Constants
-    private static final String CSV_FORMAT_UP = "%s,%d%%,%.2f,%.2f,%.2f";
-    private static final String CSV_FORMAT_DOWN = "%s,%d%%,-,-,-";
+    private static final String CSV_NO_RTT = ",-,-,-";
+    private static final String CSV_HTTP_NO_RESPONSE = ",-,-";
+    private static final String CSV_RTT_STATS_NONE = ",-,-,-,-,";
+    private static final char RTT_SEPARATOR = '|';
+    private static final String RTT_LOST = "-";
 
     /**
      * Private constructor to prevent instantiation of utility class.
@@ -37,7 +47,7 @@ public final class PingResultUtil
     }
 
     /**
-     * Factory method to create a successful ping result JSON object.
+     * Factory method to create a successful ping result.
      * Follows Single Responsibility Principle - only creates success results.
      *
      * @param ip         The IP address that was pinged (must not be null or blank)
@@ -45,10 +55,10 @@ public final class PingResultUtil
      * @param avgRtt     Average round-trip time in milliseconds (must be >= 0)
      * @param maxRtt     Maximum round-trip time in milliseconds (must be >= 0)
      * @param packetLoss Packet loss percentage (0-100)
-     * @return Immutable JsonObject containing the ping result data
+     * @return PingResult with status UP, stamped now
      * @throws IllegalArgumentException if any parameter is invalid
      */
-    public static JsonObject createSuccessResult(
+    public static PingResult createSuccessResult(
         String ip,
         double minRtt,
         double avgRtt,
@@ -61,71 +71,214 @@ public final class PingResultUtil
         validateRtt(maxRtt, "maxRtt");
         validatePacketLoss(packetLoss);
 
-        return new JsonObject()
-            .put(IP, ip)
-            .put(SUCCESS, true)
-            .put(MIN_RTT, minRtt)
-            .put(AVG_RTT, avgRtt)
-            .put(MAX_RTT, maxRtt)
-            .put(PACKET_LOSS, packetLoss);
+        return new PingResult(ip, PingResult.Status.UP, packetLoss, minRtt, avgRtt, maxRtt, PingResult.NOT_HTTP, -1,
+                              null, System.currentTimeMillis()
+        );
     }
 
     /**
-     * Factory method to create an unreachable/failed ping result JSON object.
+     * Factory method to create an unreachable/failed ping result.
      * Follows Single Responsibility Principle - only creates failure results.
      *
      * @param ip The IP address that was unreachable (must not be null or blank)
-     * @return Immutable JsonObject representing an unreachable host (100% packet loss)
+     * @return PingResult representing an unreachable host (DOWN, 100% packet loss)
      * @throws IllegalArgumentException if ip is null or blank
      */
-    public static JsonObject createUnreachableResult(String ip)
+    public static PingResult createUnreachableResult(String ip)
+    {
+        return createFailedResult(ip, PingResult.Status.DOWN);
+    }
+
+    /**
+     * A target whose probe did not finish in time (fping killed by its watchdog, empty output).
+     */
+    public static PingResult createTimeoutResult(String ip)
+    {
+        return createFailedResult(ip, PingResult.Status.TIMEOUT);
+    }
+
+    /**
+     * A target that could not be probed (unresolvable name, no socket, missing from the output).
+     */
+    public static PingResult createErrorResult(String ip)
+    {
+        return createFailedResult(ip, PingResult.Status.ERROR);
+    }
+
+    /**
+     * Factory method to create an HTTP probe result.
+     * A 2xx/3xx status is UP with the total latency as min/avg/max RTT (one request, like fping -c 1);
+     * anything else is DOWN with 100% loss. Status code and TTFB are kept either way.
+     *
+     * @param url        The probed URL (must not be null or blank)
+     * @param statusCode HTTP status code, -1 if no response arrived
+     * @param ttfbMs     Time until the response headers arrived in milliseconds, -1 if none
+     * @param totalMs    Time until the last body byte arrived in milliseconds, -1 if none
+     * @return PingResult with httpStatus and ttfbMs
+     * @throws IllegalArgumentException if url is null or blank
+     */
+    public static PingResult createHttpResult(String url, int statusCode, double ttfbMs, double totalMs)
+    {
+        validateIp(url);
+        var up = statusCode >= 200 && statusCode < 400;
+        if (up)
+        {
+            validateRtt(totalMs, "totalMs");
+        }
+        return new PingResult(url, up ? PingResult.Status.UP : PingResult.Status.DOWN, up ? 0 : 100,
+                              up ? totalMs : -1, up ? totalMs : -1, up ? totalMs : -1, statusCode, ttfbMs, null,
+                              System.currentTimeMillis()
+        );
+    }
+
+    private static PingResult createFailedResult(String ip, PingResult.Status status)
     {
         validateIp(ip);
+        return new PingResult(ip, status, 100, -1, -1, -1, PingResult.NOT_HTTP, -1, null, System.currentTimeMillis());
+    }
 
-        return new JsonObject()
-            .put(IP, ip)
-            .put(SUCCESS, false)
-            .put(MIN_RTT, -1.0)
-            .put(AVG_RTT, -1.0)
-            .put(MAX_RTT, -1.0)
-            .put(PACKET_LOSS, 100);
+    /**
+     * Format a ping result as a CSV row.
+     *
+     * @param result ping result (must not be null)
+     * @return Formatted CSV row string without trailing newline
+     * @see #appendCsvRow(StringBuilder, PingResult)
+     */
+    public static String toCsvRow(PingResult result)
+    {
+        return appendCsvRow(new StringBuilder(64), result).toString();
     }
 
     /**
-     * Format a ping result JSON object as a CSV row.
-     * Follows Single Responsibility Principle - only handles formatting.
+     * Append a ping result as a CSV row, without String.format.
      *
      * <p>Output format:
      * <ul>
      *   <li>Success: "UP,LOSS%,MIN_RTT,AVG_RTT,MAX_RTT"</li>
-     *   <li>Failure: "DOWN,100%,-,-,-"</li>
+     *   <li>Failure: "DOWN,100%,-,-,-" (TIMEOUT / ERROR likewise)</li>
+     *   <li>HTTP results append ",STATUS,TTFB_MS" (or ",-,-" without a response)</li>
+     *   <li>-Drtt.stats=true: other results append ",JITTER,P50,P95,P99,RTTS" (",-,-,-,-,RTTS" without a reply,
+     *   ",-,-,-,-," without per-packet RTTs - timeouts, errors, stream mode), so every row of a file has
+     *   the same columns</li>
      * </ul>
      *
-     * @param result JsonObject containing ping result data (must not be null)
-     * @return Formatted CSV row string without trailing newline
-     * @throws IllegalArgumentException if result is null or missing required fields
+     * @param out    row is appended here, without trailing newline
+     * @param result ping result (must not be null)
+     * @return {@code out}
+     * @throws IllegalArgumentException if result is null
      */
-    public static String toCsvRow(JsonObject result)
+    public static StringBuilder appendCsvRow(StringBuilder out, PingResult result)
     {
         if (result == null)
         {
-            throw new IllegalArgumentException("Ping result JSON cannot be null");
+            throw new IllegalArgumentException("Ping result cannot be null");
         }
+        return appendCsvRow(out, result.status(), result.packetLoss(), result.minRtt(), result.avgRtt(),
+                            result.maxRtt(), result.httpStatus(), result.ttfbMs(), result.rtts()
+        );
+    }
 
-        var isSuccess = result.getBoolean(SUCCESS, false);
-        var status = isSuccess ? STATUS_UP : STATUS_DOWN;
-        var packetLoss = result.getInteger(PACKET_LOSS);
+    /**
+     * Append one row of a result batch as a CSV row, read straight from its columns.
+     *
+     * @param out   row is appended here, without trailing newline
+     * @param batch result batch (must not be null)
+     * @param i     row index
+     * @return {@code out}
+     * @see #appendCsvRow(StringBuilder, PingResult)
+     */
+    public static StringBuilder appendCsvRow(StringBuilder out, ResultBatch batch, int i)
+    {
+        return appendCsvRow(out, batch.status(i), batch.packetLoss(i), batch.minRtt(i), batch.avgRtt(i),
+                            batch.maxRtt(i), batch.httpStatus(i), batch.ttfbMs(i), batch.rtts(i)
+        );
+    }
 
-        if (isSuccess)
+    private static StringBuilder appendCsvRow(StringBuilder out, PingResult.Status status, int packetLoss,
+                                              double minRtt, double avgRtt, double maxRtt, int httpStatus,
+                                              double ttfbMs, double[] rtts)
+    {
+        out.append(status.name())
+            .append(',')
+            .append(packetLoss)
+            .append('%');
+        if (status == PingResult.Status.UP)
         {
-            var minRtt = result.getDouble(MIN_RTT);
-            var avgRtt = result.getDouble(AVG_RTT);
-            var maxRtt = result.getDouble(MAX_RTT);
-            return String.format(CSV_FORMAT_UP, status, packetLoss, minRtt, avgRtt, maxRtt);
+            appendMillis(out.append(','), minRtt);
+            appendMillis(out.append(','), avgRtt);
+            appendMillis(out.append(','), maxRtt);
         } else
         {
-            return String.format(CSV_FORMAT_DOWN, status, packetLoss);
+            out.append(CSV_NO_RTT);
+        }
+
+        if (httpStatus == PingResult.NOT_HTTP)
+        {
+            if (!RttStats.enabled())
+            {
+                return out;
+            }
+            if (rtts == null)
+            {
+                return out.append(CSV_RTT_STATS_NONE);
+            }
+            var sorted = RttStats.sortedReceived(rtts);
+            if (sorted.length > 0)
+            {
+                appendMillis(out.append(','), RttStats.jitter(rtts));
+                appendMillis(out.append(','), RttStats.percentile(sorted, 50));
+                appendMillis(out.append(','), RttStats.percentile(sorted, 95));
+                appendMillis(out.append(','), RttStats.percentile(sorted, 99));
+                out.append(',');
+            } else
+            {
+                out.append(CSV_RTT_STATS_NONE);
+            }
+            return appendRtts(out, rtts);
+        }
+        if (httpStatus < 0)
+        {
+            return out.append(CSV_HTTP_NO_RESPONSE);
+        }
+        out.append(',')
+            .append(httpStatus);
+        return appendMillis(out.append(','), ttfbMs);
+    }
+
+    /**
+     * Per-packet RTT list ("1.20|-|1.35", lost packets as "-").
+     */
+    private static StringBuilder appendRtts(StringBuilder out, double[] rtts)
+    {
+        for (var i = 0; i < rtts.length; i++)
+        {
+            if (i > 0)
+            {
+                out.append(RTT_SEPARATOR);
+            }
+            appendMillis(out, rtts[i]);
+        }
+        return out;
+    }
+
+    /**
+     * Two decimals without String.format, "-" for a negative (lost / unknown) value.
+     */
+    private static StringBuilder appendMillis(StringBuilder out, double rttMs)
+    {
+        if (rttMs < 0)
+        {
+            return out.append(RTT_LOST);
+        }
+        var hundredths = Math.round(rttMs * 100);
+        var fraction = hundredths % 100;
+        out.append(hundredths / 100)
+            .append('.');
+        if (fraction < 10)
+        {
+            out.append('0');
         }
+        return out.append(fraction);
     }
 
     // ==================== Validation Methods ====================
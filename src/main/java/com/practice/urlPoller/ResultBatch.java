@@ -0,0 +1,250 @@
+package com.practice.urlPoller;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.MessageCodec;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Results of one probe batch (an fping chunk, a native ICMP round, a batch of timeouts) as one
+ * event bus message on PROCESS_RESULTS.
+ * <p>
+ * Columnar: one primitive array per PingResult field, indexed 0 .. size() - 1, so a chunk of
+ * thousands of results is one message dispatch and one handler call instead of one per target.
+ * Consumers read the columns by index ({@link PingResultUtil#appendCsvRow(StringBuilder, ResultBatch, int)})
+ * or materialize a single row with {@link #get(int)}.
+ * <p>
+ * Filled by one thread, then published; never written after {@link FpingWorker#publish}, so it
+ * crosses the event bus by reference ({@link Codec}).
+ */
+public final class ResultBatch
+{
+    private static final PingResult.Status[] STATUSES = PingResult.Status.values();
+    private int size;
+    private String[] targets;
+    private byte[] statuses;
+    private int[] packetLoss;
+    private double[] minRtt;
+    private double[] avgRtt;
+    private double[] maxRtt;
+    private int[] httpStatus;
+    private double[] ttfbMs;
+    // Per-packet RTTs of each row, null entries unless -Drtt.stats=true
+    private double[][] rtts;
+    private long[] probedAtMs;
+
+    /**
+     * @param capacity expected number of rows (grows when exceeded)
+     */
+    public ResultBatch(int capacity)
+    {
+        allocate(Math.max(1, capacity));
+    }
+
+    /**
+     * Batch of a single result (TCP / HTTP probes complete one target at a time).
+     */
+    public static ResultBatch of(PingResult result)
+    {
+        var batch = new ResultBatch(1);
+        batch.add(result);
+        return batch;
+    }
+
+    public ResultBatch add(PingResult result)
+    {
+        if (size == targets.length)
+        {
+            grow(size * 2);
+        }
+        var i = size++;
+        targets[i] = result.target();
+        statuses[i] = (byte) result.status()
+            .ordinal();
+        packetLoss[i] = result.packetLoss();
+        minRtt[i] = result.minRtt();
+        avgRtt[i] = result.avgRtt();
+        maxRtt[i] = result.maxRtt();
+        httpStatus[i] = result.httpStatus();
+        ttfbMs[i] = result.ttfbMs();
+        rtts[i] = result.rtts();
+        probedAtMs[i] = result.probedAtMs();
+        return this;
+    }
+
+    /**
+     * Add a result once per target name of its address (address -> hostnames, see FpingWorker).
+     */
+    public ResultBatch add(PingResult result, Map<String, List<String>> aliases)
+    {
+        var names = aliases.get(result.target());
+        if (names == null)
+        {
+            return add(result);
+        }
+        for (var name : names)
+        {
+            add(result);
+            targets[size - 1] = name;
+        }
+        return this;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    public String target(int i)
+    {
+        return targets[i];
+    }
+
+    public PingResult.Status status(int i)
+    {
+        return STATUSES[statuses[i]];
+    }
+
+    public boolean isUp(int i)
+    {
+        return statuses[i] == PingResult.Status.UP.ordinal();
+    }
+
+    public int packetLoss(int i)
+    {
+        return packetLoss[i];
+    }
+
+    public double minRtt(int i)
+    {
+        return minRtt[i];
+    }
+
+    public double avgRtt(int i)
+    {
+        return avgRtt[i];
+    }
+
+    public double maxRtt(int i)
+    {
+        return maxRtt[i];
+    }
+
+    public int httpStatus(int i)
+    {
+        return httpStatus[i];
+    }
+
+    public boolean isHttp(int i)
+    {
+        return httpStatus[i] != PingResult.NOT_HTTP;
+    }
+
+    public double ttfbMs(int i)
+    {
+        return ttfbMs[i];
+    }
+
+    /**
+     * @return per-packet RTTs of a row (not to be modified), null unless -Drtt.stats=true
+     */
+    public double[] rtts(int i)
+    {
+        return rtts[i];
+    }
+
+    public boolean hasRtts(int i)
+    {
+        return rtts[i] != null;
+    }
+
+    public long probedAtMs(int i)
+    {
+        return probedAtMs[i];
+    }
+
+    /**
+     * One row as a PingResult (allocates - for consumers that need the record).
+     */
+    public PingResult get(int i)
+    {
+        return new PingResult(targets[i], status(i), packetLoss[i], minRtt[i], avgRtt[i], maxRtt[i], httpStatus[i],
+                              ttfbMs[i], rtts[i], probedAtMs[i]
+        );
+    }
+
+    private void allocate(int capacity)
+    {
+        targets = new String[capacity];
+        statuses = new byte[capacity];
+        packetLoss = new int[capacity];
+        minRtt = new double[capacity];
+        avgRtt = new double[capacity];
+        maxRtt = new double[capacity];
+        httpStatus = new int[capacity];
+        ttfbMs = new double[capacity];
+        rtts = new double[capacity][];
+        probedAtMs = new long[capacity];
+    }
+
+    private void grow(int capacity)
+    {
+        targets = Arrays.copyOf(targets, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        packetLoss = Arrays.copyOf(packetLoss, capacity);
+        minRtt = Arrays.copyOf(minRtt, capacity);
+        avgRtt = Arrays.copyOf(avgRtt, capacity);
+        maxRtt = Arrays.copyOf(maxRtt, capacity);
+        httpStatus = Arrays.copyOf(httpStatus, capacity);
+        ttfbMs = Arrays.copyOf(ttfbMs, capacity);
+        rtts = Arrays.copyOf(rtts, capacity);
+        probedAtMs = Arrays.copyOf(probedAtMs, capacity);
+    }
+
+    /**
+     * Event bus codec for local delivery: the batch is passed by reference, never copied or
+     * serialized. Registered as the default codec of ResultBatch in Main.
+     */
+    public static final class Codec implements MessageCodec<ResultBatch, ResultBatch>
+    {
+        public static final String NAME = "result-batch";
+
+        @Override
+        public void encodeToWire(Buffer buffer, ResultBatch batch)
+        {
+            throw new UnsupportedOperationException("ResultBatch is delivered locally only");
+        }
+
+        @Override
+        public ResultBatch decodeFromWire(int pos, Buffer buffer)
+        {
+            throw new UnsupportedOperationException("ResultBatch is delivered locally only");
+        }
+
+        @Override
+        public ResultBatch transform(ResultBatch batch)
+        {
+            return batch;
+        }
+
+        @Override
+        public String name()
+        {
+            return NAME;
+        }
+
+        @Override
+        public byte systemCodecID()
+        {
+            return -1;
+        }
+    }
+
+}
@@ -0,0 +1,165 @@
+package com.practice.urlPoller;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-target reply timeout from observed RTTs, computed like TCP's retransmission timeout (RFC 6298).
+ * <p>
+ * - SRTT / RTTVAR are smoothed from the average RTT of every result (alpha 1/8, beta 1/4)
+ * - RTO = SRTT + max(MIN_VARIANCE_MS, 4 * RTTVAR); INITIAL_RTO_MS until the first reply
+ * - a result with any lost probe doubles a backoff factor (a too short timeout shows up as loss),
+ *   a loss-free result resets it
+ * <p>
+ * The RTO is rounded up to one of a few timeout classes, so a batch splits into one fping run per
+ * class: LAN hosts wait tens of milliseconds for a lost reply, far hosts get up to 2s instead of
+ * being reported DOWN by a global 200ms timeout.
+ * <p>
+ * The same feed counts loss-free results in a row: a target with {@code STABLE_RESULTS} of them is
+ * stable and gets a single echo per cycle (see FpingWorker).
+ * <p>
+ * Targets without a result for {@code STALE_MS} are dropped (deleted IPs, re-resolved hostnames).
+ * <p>
+ * Thread-safe - results are recorded concurrently by the fping chunk readers.
+ */
+public class RttEstimator
+{
+    // Every fping run uses one of these as -t (ms)
+    static final int[] TIMEOUT_CLASSES_MS = {25, 50, 100, 200, 300, 500, 1_000, 2_000};
+    private static final double ALPHA = 1.0 / 8;
+    private static final double BETA = 1.0 / 4;
+    private static final int K = 4;
+    // Lower bound of the variance term (the clock granularity G of RFC 6298)
+    private static final double MIN_VARIANCE_MS = 5;
+    private static final double INITIAL_RTO_MS = 1_000;
+    private static final int MAX_BACKOFF = 64;
+    // Loss-free results in a row before a target is probed with a single echo
+    private static final int STABLE_RESULTS = 10;
+    private static final long STALE_MS = 24 * 3_600_000L;
+    private static final long PRUNE_INTERVAL_MS = 60_000;
+    private final Map<String, Estimate> estimates = new ConcurrentHashMap<>();
+    private final AtomicLong lastPruneMs = new AtomicLong(System.currentTimeMillis());
+
+    /**
+     * Smallest timeout class that covers the RTO (the largest class if none does).
+     */
+    static int timeoutClass(double rtoMs)
+    {
+        for (var timeoutMs : TIMEOUT_CLASSES_MS)
+        {
+            if (rtoMs <= timeoutMs)
+            {
+                return timeoutMs;
+            }
+        }
+        return TIMEOUT_CLASSES_MS[TIMEOUT_CLASSES_MS.length - 1];
+    }
+
+    /**
+     * @return the reply timeout class of a target (ms)
+     */
+    public int timeoutMs(String ip)
+    {
+        var estimate = estimates.get(ip);
+        return timeoutClass(estimate == null ? INITIAL_RTO_MS : estimate.rtoMs());
+    }
+
+    /**
+     * @return true if the target's recent results were all loss-free
+     */
+    public boolean isStable(String ip)
+    {
+        var estimate = estimates.get(ip);
+        return estimate != null && estimate.cleanStreak >= STABLE_RESULTS;
+    }
+
+    /**
+     * Split targets by timeout class.
+     *
+     * @return timeout (ms) -> targets, shortest timeout first
+     */
+    public Map<Integer, List<String>> groupByTimeout(Collection<String> ips)
+    {
+        Map<Integer, List<String>> byTimeout = new TreeMap<>();
+        for (var ip : ips)
+        {
+            byTimeout.computeIfAbsent(timeoutMs(ip), k -> new ArrayList<>())
+                .add(ip);
+        }
+        return byTimeout;
+    }
+
+    /**
+     * Feed back one probe result.
+     */
+    public void record(PingResult result)
+    {
+        var now = System.currentTimeMillis();
+        var success = result.isUp();
+        var lossy = !success || result.packetLoss() > 0;
+        var rttMs = success ? result.avgRtt() : -1.0;
+
+        estimates.compute(result.target(), (ip, old) -> {
+            var estimate = old == null ? Estimate.UNMEASURED : old;
+            if (rttMs >= 0)
+            {
+                estimate = estimate.sample(rttMs);
+            }
+            return estimate.backoff(lossy, now);
+        });
+
+        var lastPrune = lastPruneMs.get();
+        if (now - lastPrune > PRUNE_INTERVAL_MS && lastPruneMs.compareAndSet(lastPrune, now))
+        {
+            estimates.values()
+                .removeIf(estimate -> now - estimate.updatedAtMs > STALE_MS);
+        }
+    }
+
+    /**
+     * @return number of targets with an estimate
+     */
+    public int size()
+    {
+        return estimates.size();
+    }
+
+    /**
+     * @param measured false until the first reply; SRTT / RTTVAR are meaningless before
+     */
+    private record Estimate(boolean measured, double srttMs, double rttvarMs, int backoff, int cleanStreak,
+                            long updatedAtMs)
+    {
+        private static final Estimate UNMEASURED = new Estimate(false, 0, 0, 1, 0, 0);
+
+        private double rtoMs()
+        {
+            var rto = measured ? srttMs + Math.max(MIN_VARIANCE_MS, K * rttvarMs) : INITIAL_RTO_MS;
+            return rto * backoff;
+        }
+
+        private Estimate sample(double rttMs)
+        {
+            if (!measured)
+            {
+                return new Estimate(true, rttMs, rttMs / 2, backoff, cleanStreak, updatedAtMs);
+            }
+            var rttvar = (1 - BETA) * rttvarMs + BETA * Math.abs(srttMs - rttMs);
+            var srtt = (1 - ALPHA) * srttMs + ALPHA * rttMs;
+            return new Estimate(true, srtt, rttvar, backoff, cleanStreak, updatedAtMs);
+        }
+
+        private Estimate backoff(boolean lossy, long now)
+        {
+            return lossy
+                ? new Estimate(measured, srttMs, rttvarMs, Math.min(MAX_BACKOFF, backoff * 2), 0, now)
+                : new Estimate(measured, srttMs, rttvarMs, 1, Math.min(STABLE_RESULTS, cleanStreak + 1), now);
+        }
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.practice.urlPoller;
+
+import java.util.Arrays;
+
+/**
+ * Per-packet RTT statistics of one target and cycle (-Drtt.stats=true).
+ * <p>
+ * Works on the primitive RTT array the probe engines fill while replies arrive
+ * (send order, a negative entry is a lost packet) - no boxing, one small sort.
+ * <p>
+ * - jitter: mean absolute difference of consecutive received RTTs (RFC 3550 style, unsmoothed)
+ * - p50 / p95 / p99: nearest-rank percentiles of the received RTTs
+ * <p>
+ * Thread-safe: All methods are stateless.
+ */
+public final class RttStats
+{
+    public static final String ENABLED = "rtt.stats";
+    private static final boolean enabled = Boolean.getBoolean(ENABLED);
+
+    private RttStats()
+    {
+        throw new AssertionError("Utility class should not be instantiated");
+    }
+
+    /**
+     * @return true if probe engines should capture per-packet RTTs
+     */
+    public static boolean enabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * @param rtts RTTs in send order, negative for a lost packet
+     * @return mean |RTT(i) - RTT(i-1)| over consecutive received packets, 0 with fewer than two
+     */
+    public static double jitter(double[] rtts)
+    {
+        var sum = 0.0;
+        var pairs = 0;
+        var previous = -1.0;
+        for (var rtt : rtts)
+        {
+            if (rtt < 0)
+            {
+                continue;
+            }
+            if (previous >= 0)
+            {
+                sum += Math.abs(rtt - previous);
+                pairs++;
+            }
+            previous = rtt;
+        }
+        return pairs == 0 ? 0 : sum / pairs;
+    }
+
+    /**
+     * Received RTTs, sorted ascending (a copy - {@code rtts} keeps its send order).
+     */
+    public static double[] sortedReceived(double[] rtts)
+    {
+        var received = 0;
+        for (var rtt : rtts)
+        {
+            if (rtt >= 0)
+            {
+                received++;
+            }
+        }
+        var sorted = new double[received];
+        var i = 0;
+        for (var rtt : rtts)
+        {
+            if (rtt >= 0)
+            {
+                sorted[i++] = rtt;
+            }
+        }
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Nearest-rank percentile.
+     *
+     * @param sorted     ascending RTTs, at least one
+     * @param percentile 0 < percentile <= 100
+     */
+    public static double percentile(double[] sorted, double percentile)
+    {
+        var rank = (int) Math.ceil(percentile / 100 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+    }
+
+}
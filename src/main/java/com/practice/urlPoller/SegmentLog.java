@@ -0,0 +1,520 @@
+package com.practice.urlPoller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Append-only binary log of all probe results, in rolling memory-mapped segment files.
+ * <p>
+ * Every result is one fixed-width record ({@code RECORD_SIZE} bytes) appended to the current
+ * segment, so writes are sequential in one file instead of scattered over one CSV per target.
+ * Records are numbered globally: record n lives in segment n / segmentRecords at slot
+ * n % segmentRecords.
+ * <p>
+ * Record layout (big-endian):
+ * <pre>
+ *  0 long  probedAtMs   written last; 0 = free slot (end of log)
+ *  8 long  previous     record number of the target's previous record, -1 for its first
+ * 16 int   target       id in the target dictionary
+ * 20 byte  status       PingResult.Status ordinal
+ * 21 byte  packetLoss
+ * 22 short httpStatus
+ * 24 float minRtt, avgRtt, maxRtt, ttfbMs
+ * 40 byte  rttCount     per-packet RTTs kept (0 without -Drtt.stats), at most MAX_RTTS
+ * 44 float rtts[MAX_RTTS]
+ * </pre>
+ * Per-target index: the records of a target form a backward chain through {@code previous}, so
+ * the index is one head (latest record number) per target - 8 bytes, whatever the history length.
+ * It is rebuilt by one sequential scan when the log is opened.
+ * <p>
+ * Target names are kept in targets.dict (one name per line, line number = id), appended when a
+ * target is first seen and forced to disk together with the current segment.
+ * <p>
+ * Record numbers depend on segmentRecords, so it is kept in segment.meta with the record size;
+ * opening an existing log with a different value fails instead of misreading every record.
+ * <p>
+ * Rolling: once more than maxSegments segments exist, the oldest is deleted; chains end at the
+ * first retained record.
+ * <p>
+ * NOT thread-safe - owned by {@link SegmentLogWriter}, all calls on its event loop except
+ * {@link #force()} and reading a {@link Snapshot}.
+ */
+public final class SegmentLog implements AutoCloseable
+{
+    static final int RECORD_SIZE = 56;
+    static final int MAX_RTTS = 3;
+    private static final int PROBED_AT = 0;
+    private static final int PREVIOUS = 8;
+    private static final int TARGET = 16;
+    private static final int STATUS = 20;
+    private static final int PACKET_LOSS = 21;
+    private static final int HTTP_STATUS = 22;
+    private static final int MIN_RTT = 24;
+    private static final int AVG_RTT = 28;
+    private static final int MAX_RTT = 32;
+    private static final int TTFB = 36;
+    private static final int RTT_COUNT = 40;
+    private static final int RTTS = 44;
+    private static final String SEGMENT_PREFIX = "results-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String DICTIONARY = "targets.dict";
+    private static final String META = "segment.meta";
+    private static final String META_SEGMENT_RECORDS = "segmentRecords";
+    private static final String META_RECORD_SIZE = "recordSize";
+    private static final PingResult.Status[] STATUSES = PingResult.Status.values();
+    private static final Logger logger = LoggerFactory.getLogger(SegmentLog.class);
+    private static final LongAdder recordsCounter = Metrics.counter("segment.log.records");
+    private static final LongAdder rolledCounter = Metrics.counter("segment.log.segments.rolled");
+    private final Path directory;
+    private final int segmentRecords;
+    private final int maxSegments;
+    // Oldest first; the last one is being appended to
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private final Map<String, Integer> targetIds = new HashMap<>();
+    private final List<String> targetNames = new ArrayList<>();
+    private final FileChannel dictionary;
+    // Segment being appended to, for force() from a worker thread
+    private volatile MappedByteBuffer current;
+    // Latest record number by target id, -1 = none
+    private long[] heads = new long[1024];
+    private long nextRecord;
+
+    /**
+     * Open (or create) the log in a directory and rebuild the index. Blocking.
+     *
+     * @param segmentRecords records per segment file
+     * @param maxSegments    segment files kept; older ones are deleted
+     */
+    public SegmentLog(Path directory, int segmentRecords, int maxSegments) throws IOException
+    {
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+        this.maxSegments = Math.max(1, maxSegments);
+        Arrays.fill(heads, -1);
+        Files.createDirectories(directory);
+        checkMeta();
+
+        var dictionaryPath = directory.resolve(DICTIONARY);
+        if (Files.exists(dictionaryPath))
+        {
+            for (var name : Files.readAllLines(dictionaryPath, StandardCharsets.UTF_8))
+            {
+                register(name);
+            }
+        }
+        dictionary = FileChannel.open(dictionaryPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                      StandardOpenOption.APPEND
+        );
+
+        List<Long> indexes = new ArrayList<>();
+        try (var files = Files.list(directory))
+        {
+            files.map(path -> path.getFileName()
+                    .toString())
+                .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                .forEach(name -> indexes.add(Long.parseLong(
+                    name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()))));
+        }
+        indexes.sort(null);
+        for (var index : indexes)
+        {
+            segments.add(Segment.map(segmentPath(index), index, segmentRecords));
+        }
+        if (segments.isEmpty())
+        {
+            segments.add(Segment.map(segmentPath(0), 0, segmentRecords));
+        }
+        nextRecord = rebuildIndex();
+        current = segments.getLast().buffer;
+
+        Metrics.gauge("segment.log.segments", segments::size);
+        Metrics.gauge("segment.log.targets", targetNames::size);
+        logger.info("Segment log opened: dir={}, segments={}, records={}, targets={}",
+                    directory.toAbsolutePath(), segments.size(), nextRecord - firstRecord(), targetNames.size()
+        );
+    }
+
+    /**
+     * Append one row of a result batch.
+     */
+    public void append(ResultBatch batch, int i) throws IOException
+    {
+        var target = targetId(batch.target(i));
+        var segment = segments.getLast();
+        if (nextRecord >= (segment.index + 1) * segmentRecords)
+        {
+            segment = roll();
+        }
+
+        var buffer = segment.buffer;
+        var position = (int) (nextRecord - segment.index * segmentRecords) * RECORD_SIZE;
+        buffer.putLong(position + PREVIOUS, heads[target]);
+        buffer.putInt(position + TARGET, target);
+        buffer.put(position + STATUS, (byte) batch.status(i)
+            .ordinal());
+        buffer.put(position + PACKET_LOSS, (byte) batch.packetLoss(i));
+        buffer.putShort(position + HTTP_STATUS, (short) batch.httpStatus(i));
+        buffer.putFloat(position + MIN_RTT, (float) batch.minRtt(i));
+        buffer.putFloat(position + AVG_RTT, (float) batch.avgRtt(i));
+        buffer.putFloat(position + MAX_RTT, (float) batch.maxRtt(i));
+        buffer.putFloat(position + TTFB, (float) batch.ttfbMs(i));
+        var rtts = batch.rtts(i);
+        var rttCount = rtts == null ? 0 : Math.min(MAX_RTTS, rtts.length);
+        buffer.put(position + RTT_COUNT, (byte) rttCount);
+        for (var k = 0; k < rttCount; k++)
+        {
+            buffer.putFloat(position + RTTS + k * Float.BYTES, (float) rtts[k]);
+        }
+        // Last: a record with a timestamp is complete
+        buffer.putLong(position + PROBED_AT, batch.probedAtMs(i));
+
+        heads[target] = nextRecord++;
+        recordsCounter.increment();
+    }
+
+    /**
+     * Read view of one target's history, for walking it off the owner's thread.
+     * Cheap (one reference per segment); the records it covers are complete and never rewritten.
+     *
+     * @return null for an unknown target
+     */
+    public Snapshot snapshot(String target)
+    {
+        var id = targetIds.get(target);
+        if (id == null)
+        {
+            return null;
+        }
+        var buffers = new MappedByteBuffer[segments.size()];
+        var k = 0;
+        for (var segment : segments)
+        {
+            buffers[k++] = segment.buffer;
+        }
+        return new Snapshot(target, heads[id], segments.getFirst().index, segmentRecords, buffers);
+    }
+
+    /**
+     * History of one target, oldest first (on the owner's thread; see {@link #snapshot}).
+     *
+     * @return the retained records of the target, empty for an unknown target
+     */
+    public ResultBatch history(String target)
+    {
+        var snapshot = snapshot(target);
+        return snapshot == null ? new ResultBatch(0) : snapshot.history();
+    }
+
+    /**
+     * History of one target in the CSV layout of FileWriter (on the owner's thread; see {@link #snapshot}).
+     *
+     * @return CSV text, null for a target without retained records
+     */
+    public String exportCsv(String target)
+    {
+        var snapshot = snapshot(target);
+        return snapshot == null ? null : snapshot.exportCsv();
+    }
+
+    /**
+     * Write new target names and the current segment's dirty pages to disk. Blocking - may be
+     * called from a worker thread while the owner appends (rolled segments are forced by the roll).
+     * The dictionary goes first, so forced records never point at a name that is not on disk.
+     */
+    public void force() throws IOException
+    {
+        dictionary.force(false);
+        current.force();
+    }
+
+    /**
+     * @return number of targets in the dictionary
+     */
+    public int targetCount()
+    {
+        return targetNames.size();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        dictionary.force(false);
+        for (var segment : segments)
+        {
+            segment.buffer.force();
+            segment.channel.close();
+        }
+        segments.clear();
+        dictionary.close();
+    }
+
+    /**
+     * Scan all segments in order: heads of every target and the end of the log.
+     *
+     * @return number of the first free record
+     */
+    private long rebuildIndex()
+    {
+        var record = firstRecord();
+        var orphans = 0L;
+        for (var segment : segments)
+        {
+            record = segment.index * segmentRecords;
+            for (var slot = 0; slot < segmentRecords; slot++, record++)
+            {
+                var position = slot * RECORD_SIZE;
+                if (segment.buffer.getLong(position + PROBED_AT) == 0)
+                {
+                    // Free slots only follow in the last segment
+                    break;
+                }
+                var target = segment.buffer.getInt(position + TARGET);
+                if (target >= 0 && target < targetNames.size())
+                {
+                    heads[target] = record;
+                } else
+                {
+                    orphans++;
+                }
+            }
+        }
+        if (orphans > 0)
+        {
+            // Only after a crash between a record reaching the disk and its new target name
+            logger.warn("Segment log: {} records of targets missing from {} skipped", orphans, DICTIONARY);
+        }
+        return record;
+    }
+
+    /**
+     * Write segment.meta for a new log, or check that an existing log has this geometry.
+     */
+    private void checkMeta() throws IOException
+    {
+        var metaPath = directory.resolve(META);
+        if (Files.exists(metaPath))
+        {
+            var meta = new Properties();
+            try (var reader = Files.newBufferedReader(metaPath, StandardCharsets.UTF_8))
+            {
+                meta.load(reader);
+            }
+            var stored = meta.getProperty(META_SEGMENT_RECORDS);
+            var recordSize = meta.getProperty(META_RECORD_SIZE);
+            if (!String.valueOf(segmentRecords).equals(stored) || !String.valueOf(RECORD_SIZE).equals(recordSize))
+            {
+                throw new IOException("Segment log " + directory.toAbsolutePath() + " was written with " +
+                                          stored + " records of " + recordSize + " bytes per segment, opened with " +
+                                          segmentRecords + " of " + RECORD_SIZE + " (-D" +
+                                          SegmentLogWriter.SEGMENT_RECORDS + ")");
+            }
+            return;
+        }
+
+        // New log, or one written before segment.meta existed - its geometry cannot be checked
+        var text = META_SEGMENT_RECORDS + '=' + segmentRecords + '\n' + META_RECORD_SIZE + '=' + RECORD_SIZE + '\n';
+        try (var channel = FileChannel.open(metaPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE))
+        {
+            channel.write(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Start a new segment and delete the oldest ones beyond maxSegments. Blocking.
+     */
+    private Segment roll() throws IOException
+    {
+        var last = segments.getLast();
+        last.buffer.force();
+        var next = Segment.map(segmentPath(last.index + 1), last.index + 1, segmentRecords);
+        segments.add(next);
+        current = next.buffer;
+        while (segments.size() > maxSegments)
+        {
+            var oldest = segments.removeFirst();
+            oldest.channel.close();
+            Files.deleteIfExists(segmentPath(oldest.index));
+            logger.info("Segment log: deleted segment {}", oldest.index);
+        }
+        rolledCounter.increment();
+        return next;
+    }
+
+    private int targetId(String name) throws IOException
+    {
+        var id = targetIds.get(name);
+        if (id != null)
+        {
+            return id;
+        }
+        dictionary.write(ByteBuffer.wrap((name + '\n').getBytes(StandardCharsets.UTF_8)));
+        return register(name);
+    }
+
+    private int register(String name)
+    {
+        var id = targetNames.size();
+        targetNames.add(name);
+        targetIds.put(name, id);
+        if (id == heads.length)
+        {
+            var grown = Arrays.copyOf(heads, id * 2);
+            Arrays.fill(grown, id, grown.length, -1);
+            heads = grown;
+        }
+        return id;
+    }
+
+    private long firstRecord()
+    {
+        return segments.getFirst().index * segmentRecords;
+    }
+
+    private Path segmentPath(long index)
+    {
+        return directory.resolve(SEGMENT_PREFIX + String.format("%010d", index) + SEGMENT_SUFFIX);
+    }
+
+    /**
+     * One target's records as of {@link #snapshot}: its head record and the segments retained then.
+     * <p>
+     * Thread-safe to read while the owner appends - only records up to the head are read, all
+     * written before the snapshot was taken. A segment deleted by a later roll stays readable:
+     * the mapping lives as long as the snapshot references its buffer.
+     */
+    public static final class Snapshot
+    {
+        private final String target;
+        private final long head;
+        private final long firstSegment;
+        private final int segmentRecords;
+        private final MappedByteBuffer[] buffers;
+
+        private Snapshot(String target, long head, long firstSegment, int segmentRecords, MappedByteBuffer[] buffers)
+        {
+            this.target = target;
+            this.head = head;
+            this.firstSegment = firstSegment;
+            this.segmentRecords = segmentRecords;
+            this.buffers = buffers;
+        }
+
+        /**
+         * @return the target's retained records, oldest first
+         */
+        public ResultBatch history()
+        {
+            // Walk the chain backwards, then read in time order
+            var first = firstSegment * segmentRecords;
+            var records = new long[16];
+            var count = 0;
+            for (var record = head; record >= first; record = buffer(record).getLong(position(record) + PREVIOUS))
+            {
+                if (count == records.length)
+                {
+                    records = Arrays.copyOf(records, count * 2);
+                }
+                records[count++] = record;
+            }
+
+            var history = new ResultBatch(count);
+            for (var k = count - 1; k >= 0; k--)
+            {
+                history.add(toResult(records[k]));
+            }
+            return history;
+        }
+
+        /**
+         * @return header + one line per result in the CSV layout of FileWriter, null without records
+         */
+        public String exportCsv()
+        {
+            var history = history();
+            if (history.isEmpty())
+            {
+                return null;
+            }
+            var csv = new StringBuilder(96 * (history.size() + 1));
+            csv.append(FileWriter.headerFor(history, 0));
+            for (var i = 0; i < history.size(); i++)
+            {
+                csv.append(FileWriter.toCsvLine(history, i));
+            }
+            return csv.toString();
+        }
+
+        private PingResult toResult(long record)
+        {
+            var buffer = buffer(record);
+            var position = position(record);
+            double[] rtts = null;
+            var rttCount = buffer.get(position + RTT_COUNT);
+            if (rttCount > 0)
+            {
+                rtts = new double[rttCount];
+                for (var k = 0; k < rttCount; k++)
+                {
+                    rtts[k] = buffer.getFloat(position + RTTS + k * Float.BYTES);
+                }
+            }
+            return new PingResult(target, STATUSES[buffer.get(position + STATUS)], buffer.get(position + PACKET_LOSS),
+                                  buffer.getFloat(position + MIN_RTT), buffer.getFloat(position + AVG_RTT),
+                                  buffer.getFloat(position + MAX_RTT), buffer.getShort(position + HTTP_STATUS),
+                                  buffer.getFloat(position + TTFB), rtts, buffer.getLong(position + PROBED_AT)
+            );
+        }
+
+        private MappedByteBuffer buffer(long record)
+        {
+            return buffers[(int) (record / segmentRecords - firstSegment)];
+        }
+
+        private int position(long record)
+        {
+            return (int) (record % segmentRecords) * RECORD_SIZE;
+        }
+    }
+
+    private record Segment(long index, FileChannel channel, MappedByteBuffer buffer)
+    {
+        /**
+         * Map a segment file at its full size (mapping extends a new file, which reads as zeros).
+         */
+        private static Segment map(Path path, long index, int records) throws IOException
+        {
+            var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                           StandardOpenOption.WRITE
+            );
+            try
+            {
+                return new Segment(index, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                                                               (long) records * RECORD_SIZE
+                ));
+            } catch (IOException e)
+            {
+                channel.close();
+                throw e;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,154 @@
+package com.practice.urlPoller;
+
+import io.vertx.core.Future;
+import io.vertx.core.VerticleBase;
+import io.vertx.core.WorkerExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static com.practice.urlPoller.Constants.Event.PROCESS_RESULTS;
+import static com.practice.urlPoller.Constants.Event.STATS_EXPORT;
+
+/**
+ * Alternative to FileWriter (-Dstats.storage=segment): every probe result is appended to one
+ * {@link SegmentLog} instead of a CSV file per target.
+ * <p>
+ * - 50k targets are a few segment files, not 50k files in stats/ opened and appended to at random
+ * - a target's history is exported in the FileWriter CSV layout on demand: STATS_EXPORT with the
+ *   target name as body replies with the CSV text (GET /ip/:id/history)
+ * - exports are rendered from a {@link SegmentLog.Snapshot} on a worker, not on this event loop
+ * - the mapped pages are written back every FORCE_INTERVAL_MS (on a worker) and on undeploy
+ * <p>
+ * Opening (index rebuild), force and export run on a WORKER executor of their own, so they
+ * neither queue behind nor block the 1-thread default worker pool.
+ */
+public class SegmentLogWriter extends VerticleBase
+{
+    public static final String STORAGE = "stats.storage";
+    public static final String STORAGE_SEGMENT = "segment";
+    public static final String DIRECTORY = "segment.log.dir";
+    public static final String SEGMENT_RECORDS = "segment.log.records";
+    public static final String MAX_SEGMENTS = "segment.log.max.segments";
+    public static final String WORKER = "segment-log-worker";
+    private static final Logger logger = LoggerFactory.getLogger(SegmentLogWriter.class);
+    private static final String DEFAULT_DIRECTORY = "segments/";
+    // 1M records = 56 MiB per segment file
+    private static final int DEFAULT_SEGMENT_RECORDS = 1 << 20;
+    private static final int DEFAULT_MAX_SEGMENTS = 64;
+    private static final long FORCE_INTERVAL_MS = 1_000;
+    // Force and an export can run side by side
+    private static final int WORKER_POOL_SIZE = 2;
+    private SegmentLog log;
+    private WorkerExecutor worker;
+    private long forceTimerId = -1;
+
+    /**
+     * @return true if results should go to the segment log instead of CSV files
+     */
+    public static boolean enabled()
+    {
+        return STORAGE_SEGMENT.equalsIgnoreCase(System.getProperty(STORAGE));
+    }
+
+    @Override
+    public Future<?> start()
+    {
+        var directory = Path.of(System.getProperty(DIRECTORY, DEFAULT_DIRECTORY));
+        var segmentRecords = Math.max(1, Integer.getInteger(SEGMENT_RECORDS, DEFAULT_SEGMENT_RECORDS));
+        var maxSegments = Integer.getInteger(MAX_SEGMENTS, DEFAULT_MAX_SEGMENTS);
+
+        worker = vertx.createSharedWorkerExecutor(
+            WORKER, WORKER_POOL_SIZE, 600_000_000_000L // 10 minutes max execution time (index rebuild)
+        );
+
+        // Opening scans every retained segment to rebuild the index
+        return worker.executeBlocking(() -> new SegmentLog(directory, segmentRecords, maxSegments))
+            .onSuccess(opened -> {
+                log = opened;
+
+                vertx.eventBus()
+                    .<ResultBatch>consumer(PROCESS_RESULTS, message -> append(message.body()));
+
+                vertx.eventBus()
+                    .<String>consumer(STATS_EXPORT, message -> export(message.body()).onComplete(exported -> {
+                        if (exported.failed())
+                        {
+                            message.fail(500, exported.cause()
+                                .getMessage());
+                        } else if (exported.result() == null)
+                        {
+                            message.fail(404, "No history for " + message.body());
+                        } else
+                        {
+                            message.reply(exported.result());
+                        }
+                    }));
+
+                forceTimerId = vertx.setPeriodic(FORCE_INTERVAL_MS, id -> worker.executeBlocking(() -> {
+                        opened.force();
+                        return null;
+                    }, false)
+                    .onFailure(error -> logger.error("Segment log force failed: error={}", error.getMessage(), error)));
+                logger.info("SegmentLogWriter verticle started: dir={}, records/segment={}, max segments={}",
+                            directory.toAbsolutePath(), segmentRecords, maxSegments
+                );
+            });
+    }
+
+    @Override
+    public Future<?> stop()
+    {
+        if (forceTimerId >= 0)
+        {
+            vertx.cancelTimer(forceTimerId);
+        }
+        if (log == null)
+        {
+            return worker == null ? Future.succeededFuture() : worker.close();
+        }
+        var closing = log;
+        log = null;
+        return worker.executeBlocking(() -> {
+                closing.close();
+                return null;
+            })
+            .eventually(() -> worker.close());
+    }
+
+    /**
+     * CSV history of one target: snapshot on this event loop, chain walk and CSV on the worker.
+     *
+     * @return CSV text, null for a target without retained records
+     */
+    private Future<String> export(String target)
+    {
+        var snapshot = log == null ? null : log.snapshot(target);
+        if (snapshot == null)
+        {
+            return Future.succeededFuture();
+        }
+        return worker.executeBlocking(snapshot::exportCsv, false);
+    }
+
+    private void append(ResultBatch batch)
+    {
+        if (log == null)
+        {
+            return;
+        }
+        try
+        {
+            for (var i = 0; i < batch.size(); i++)
+            {
+                log.append(batch, i);
+            }
+        } catch (IOException e)
+        {
+            logger.error("Segment log append failed: batch={} results, error={}", batch.size(), e.getMessage(), e);
+        }
+    }
+
+}
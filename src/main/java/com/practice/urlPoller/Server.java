@@ -2,6 +2,8 @@ package com.practice.urlPoller;
 
 import com.practice.urlPoller.DB.PostgresClient;
 import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.eventbus.ReplyFailure;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.Router;
@@ -10,10 +12,19 @@ import io.vertx.ext.web.handler.BodyHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.net.URI;
 import java.util.Objects;
 
+import static com.practice.urlPoller.Constants.Event.IP_ADDED;
+import static com.practice.urlPoller.Constants.Event.IP_DELETED;
+import static com.practice.urlPoller.Constants.Event.IP_UPDATED;
+import static com.practice.urlPoller.Constants.Event.STATS_EXPORT;
+import static com.practice.urlPoller.Constants.JsonFields.ADAPTIVE;
 import static com.practice.urlPoller.Constants.JsonFields.IP;
+import static com.practice.urlPoller.Constants.JsonFields.MAX_POLL_INTERVAL;
 import static com.practice.urlPoller.Constants.JsonFields.POLL_INTERVAL;
+import static com.practice.urlPoller.Constants.JsonFields.PROBE_PORT;
+import static com.practice.urlPoller.Constants.JsonFields.PROBE_TYPE;
 
 public class Server
 {
@@ -45,6 +56,12 @@ public class Server
                 .end(ResponseBuilder.success("API is running", 200)
                          .encode()));
 
+        router.get("/metrics")
+            .handler(ctx -> ctx.response()
+                .putHeader("Content-Type", "application/json")
+                .end(ResponseBuilder.success("Metrics retrieved successfully", Metrics.snapshot(), 200)
+                         .encode()));
+
         // GET /ip - List all IPs
         // GET /ip - List all IPs (moved to avoid duplicate)
         router.get("/ip")
@@ -90,10 +107,14 @@ public class Server
                 {
                     var id = Integer.parseInt(ctx.pathParam("id"));
                     client.deleteIP(id)
-                        .onSuccess(data -> ctx.response()
-                            .setStatusCode(200)
-                            .end(ResponseBuilder.success("IP deleted successfully", data, 200)
-                                     .encode()))
+                        .onSuccess(data -> {
+                            vertx.eventBus()
+                                .publish(IP_DELETED, data);
+                            ctx.response()
+                                .setStatusCode(200)
+                                .end(ResponseBuilder.success("IP deleted successfully", data, 200)
+                                         .encode());
+                        })
                         .onFailure(t -> {
                             LOG.error("Failed to delete IP: id={}", id, t);
                             ctx.response()
@@ -145,6 +166,57 @@ public class Server
                 }
             });
 
+        // GET /ip/:id/history - the IP's results as CSV, from the segment log (-Dstats.storage=segment)
+        router.get("/ip/:id/history")
+            .handler(ctx -> {
+                try
+                {
+                    var id = Integer.parseInt(ctx.pathParam("id"));
+                    client.getIPById(id)
+                        .onSuccess(ip -> {
+                            if (ip == null)
+                            {
+                                ctx.response()
+                                    .setStatusCode(404)
+                                    .end(ResponseBuilder.error("IP not found", 404)
+                                             .encode());
+                                return;
+                            }
+                            vertx.eventBus()
+                                .<String>request(STATS_EXPORT, ip.getString(IP))
+                                .onSuccess(reply -> ctx.response()
+                                    .putHeader("Content-Type", "text/csv")
+                                    .end(reply.body()))
+                                .onFailure(t -> {
+                                    var status = t instanceof ReplyException reply
+                                                 && (reply.failureType() == ReplyFailure.NO_HANDLERS || reply.failureCode() == 404)
+                                        ? 404
+                                        : 500;
+                                    var message = t instanceof ReplyException reply && reply.failureType() == ReplyFailure.NO_HANDLERS
+                                        ? "History requires -Dstats.storage=segment"
+                                        : status == 404 ? "No history for IP" : "Failed to export history";
+                                    ctx.response()
+                                        .setStatusCode(status)
+                                        .end(ResponseBuilder.error(message, status)
+                                                 .encode());
+                                });
+                        })
+                        .onFailure(t -> {
+                            LOG.error("Failed to get IP: id={}", id, t);
+                            ctx.response()
+                                .setStatusCode(500)
+                                .end(ResponseBuilder.error("Failed to retrieve IP", 500)
+                                         .encode());
+                        });
+                } catch (NumberFormatException e)
+                {
+                    ctx.response()
+                        .setStatusCode(400)
+                        .end(ResponseBuilder.error("Invalid ID format", 400)
+                                 .encode());
+                }
+            });
+
         router.put("/ip/:id")
             .handler(this::validateIPRequestHandler)
             .handler(ctx -> {
@@ -156,11 +228,16 @@ public class Server
                     var ip = body.getString(IP);
                     var pollInterval = body.getInteger(POLL_INTERVAL);
 
-                    client.updateIP(id, ip, pollInterval)
-                        .onSuccess(data -> ctx.response()
-                            .setStatusCode(200)
-                            .end(ResponseBuilder.success("IP updated successfully", data, 200)
-                                     .encode()))
+                    client.updateIP(id, ip, pollInterval, body.getBoolean(ADAPTIVE, false), body.getInteger(MAX_POLL_INTERVAL),
+                                    probeType(body), probePort(body))
+                        .onSuccess(data -> {
+                            vertx.eventBus()
+                                .publish(IP_UPDATED, data);
+                            ctx.response()
+                                .setStatusCode(200)
+                                .end(ResponseBuilder.success("IP updated successfully", data, 200)
+                                         .encode());
+                        })
                         .onFailure(t -> {
                             LOG.error("Failed to update IP: id={}", id, t);
                             ctx.response()
@@ -192,11 +269,16 @@ public class Server
                 var ip = body.getString("ip");
                 var pollInterval = body.getInteger(POLL_INTERVAL);
 
-                client.addIP(ip, pollInterval)
-                    .onSuccess(data -> ctx.response()
-                        .setStatusCode(201)
-                        .end(ResponseBuilder.success("IP added successfully", data, 201)
-                                 .encode()))
+                client.addIP(ip, pollInterval, body.getBoolean(ADAPTIVE, false), body.getInteger(MAX_POLL_INTERVAL),
+                             probeType(body), probePort(body))
+                    .onSuccess(data -> {
+                        vertx.eventBus()
+                            .publish(IP_ADDED, data);
+                        ctx.response()
+                            .setStatusCode(201)
+                            .end(ResponseBuilder.success("IP added successfully", data, 201)
+                                     .encode());
+                    })
                     .onFailure(t -> {
                         // Check if it's a duplicate key violation (PostgreSQL error 23505)
                         var errorMsg = t.getMessage();
@@ -270,6 +352,94 @@ public class Server
                          .encode());
             return;
         }
+
+        // Optional adaptive settings: the effective interval floats between pollInterval and maxPollInterval
+        try
+        {
+            body.getBoolean(ADAPTIVE);
+            var maxPollInterval = body.getInteger(MAX_POLL_INTERVAL);
+            if (maxPollInterval != null && maxPollInterval < pollInterval)
+            {
+                ctx.response()
+                    .setStatusCode(400)
+                    .end(ResponseBuilder.error("maxPollInterval must not be smaller than pollInterval", 400)
+                             .encode());
+                return;
+            }
+        } catch (ClassCastException e)
+        {
+            ctx.response()
+                .setStatusCode(400)
+                .end(ResponseBuilder.error("adaptive must be a boolean and maxPollInterval a number", 400)
+                         .encode());
+            return;
+        }
+
+        // Optional probe settings: ICMP (default), a TCP connect to probePort, or an HTTP(S) GET of the URL in ip
+        try
+        {
+            var probeType = probeType(body);
+            var probePort = body.getInteger(PROBE_PORT);
+            if (!TcpProbeEngine.PROBE_TYPE_ICMP.equals(probeType) && !TcpProbeEngine.PROBE_TYPE_TCP.equals(probeType) &&
+                !HttpProbeEngine.PROBE_TYPE_HTTP.equals(probeType))
+            {
+                ctx.response()
+                    .setStatusCode(400)
+                    .end(ResponseBuilder.error("probeType must be icmp, tcp or http", 400)
+                             .encode());
+                return;
+            }
+            if (HttpProbeEngine.PROBE_TYPE_HTTP.equals(probeType) && !isHttpUrl(ip))
+            {
+                ctx.response()
+                    .setStatusCode(400)
+                    .end(ResponseBuilder.error("http probes need an absolute http:// or https:// URL as ip", 400)
+                             .encode());
+                return;
+            }
+            if (TcpProbeEngine.PROBE_TYPE_TCP.equals(probeType) && (probePort == null || probePort < 1 || probePort > 65535))
+            {
+                ctx.response()
+                    .setStatusCode(400)
+                    .end(ResponseBuilder.error("tcp probes need a probePort between 1 and 65535", 400)
+                             .encode());
+                return;
+            }
+        } catch (ClassCastException e)
+        {
+            ctx.response()
+                .setStatusCode(400)
+                .end(ResponseBuilder.error("probeType must be a string and probePort a number", 400)
+                         .encode());
+            return;
+        }
         ctx.next();
     }
+
+    private static boolean isHttpUrl(String url)
+    {
+        try
+        {
+            var uri = URI.create(url);
+            return ("http".equalsIgnoreCase(uri.getScheme()) || "https".equalsIgnoreCase(uri.getScheme())) &&
+                uri.getHost() != null;
+        } catch (IllegalArgumentException e)
+        {
+            return false;
+        }
+    }
+
+    private static String probeType(JsonObject body)
+    {
+        return body.getString(PROBE_TYPE, TcpProbeEngine.PROBE_TYPE_ICMP)
+            .toLowerCase();
+    }
+
+    /**
+     * The port only means something for TCP probes; ICMP targets store none.
+     */
+    private static Integer probePort(JsonObject body)
+    {
+        return TcpProbeEngine.PROBE_TYPE_TCP.equals(probeType(body)) ? body.getInteger(PROBE_PORT) : null;
+    }
 }
@@ -0,0 +1,228 @@
+package com.practice.urlPoller;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.net.NetClient;
+import io.vertx.core.net.NetClientOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Port-level health check: TCP connect probes on the Vert.x NetClient (probe_type = 'tcp').
+ * <p>
+ * Every target gets {@code ATTEMPTS} connects in a row (same shape as fping -c 3); each connect
+ * has its own deadline (-Dtcp.connect.timeout.ms) and its RTT is the time until the handshake
+ * completed. The socket is closed right away with SO_LINGER 0 (RST, no TIME_WAIT), so tens of
+ * thousands of checks per second do not exhaust ephemeral ports.
+ * <p>
+ * Connects are non-blocking on the owning event loop; at most -Dtcp.max.concurrent are open at
+ * once, the rest wait in a FIFO. Refused or timed-out connects count as lost packets.
+ * Results are published on PROCESS_RESULTS exactly like fping results (one batch per target, as each completes).
+ * <p>
+ * NOT thread-safe - owned by one Distributor shard, all callbacks run on its event loop.
+ */
+public class TcpProbeEngine
+{
+    public static final String PROBE_TYPE_ICMP = "icmp";
+    public static final String PROBE_TYPE_TCP = "tcp";
+    public static final String CONNECT_TIMEOUT_MS = "tcp.connect.timeout.ms";
+    public static final String MAX_CONCURRENT = "tcp.max.concurrent";
+    private static final Logger logger = LoggerFactory.getLogger(TcpProbeEngine.class);
+    private static final int ATTEMPTS = Integer.parseInt(FpingWorker.COUNT_ICMP);
+    private static final int DEFAULT_CONNECT_TIMEOUT_MS = 1_000;
+    private static final int DEFAULT_MAX_CONCURRENT = 1_024;
+    private static final LongAdder connectCounter = Metrics.counter("tcp.probe.connects");
+    private static final LongAdder failedCounter = Metrics.counter("tcp.probe.failed");
+    private final Vertx vertx;
+    private final NetClient client;
+    private final int maxConcurrent;
+    // Attempts waiting for a free connect slot
+    private final ArrayDeque<Target> queued = new ArrayDeque<>();
+    private int connecting;
+
+    /**
+     * Must be created on the owning verticle's context.
+     */
+    public TcpProbeEngine(Vertx vertx)
+    {
+        this.vertx = vertx;
+        this.maxConcurrent = Math.max(1, Integer.getInteger(MAX_CONCURRENT, DEFAULT_MAX_CONCURRENT));
+        this.client = vertx.createNetClient(new NetClientOptions()
+                                                .setConnectTimeout(Math.max(1, Integer.getInteger(CONNECT_TIMEOUT_MS,
+                                                                                                  DEFAULT_CONNECT_TIMEOUT_MS
+                                                )))
+                                                .setSoLinger(0)
+                                                .setTcpNoDelay(true));
+    }
+
+    /**
+     * Probe a set of targets. The future completes once every target has its result;
+     * results are also published on the event bus.
+     *
+     * @param portByIp target host -> TCP port
+     */
+    public Future<Map<String, PingResult>> probe(Map<String, Integer> portByIp)
+    {
+        Map<String, PingResult> results = new HashMap<>(portByIp.size());
+        if (portByIp.isEmpty())
+        {
+            return Future.succeededFuture(results);
+        }
+
+        Promise<Map<String, PingResult>> promise = Promise.promise();
+        var batch = new Batch(portByIp.size(), results, promise);
+        portByIp.forEach((ip, port) -> queued.add(new Target(batch, ip, port)));
+        drain();
+        return promise.future();
+    }
+
+    /**
+     * @return connects currently in progress
+     */
+    public int connecting()
+    {
+        return connecting;
+    }
+
+    public Future<Void> close()
+    {
+        queued.clear();
+        return client.close();
+    }
+
+    /**
+     * Start queued attempts while connect slots are free.
+     */
+    private void drain()
+    {
+        while (connecting < maxConcurrent && !queued.isEmpty())
+        {
+            connect(queued.poll());
+        }
+    }
+
+    private void connect(Target target)
+    {
+        connecting++;
+        connectCounter.increment();
+        var startNs = System.nanoTime();
+        client.connect(target.port, target.ip)
+            .onComplete(ar -> {
+                connecting--;
+                if (ar.succeeded())
+                {
+                    target.recordRtt((System.nanoTime() - startNs) / 1_000_000.0);
+                    ar.result()
+                        .close();
+                } else
+                {
+                    failedCounter.increment();
+                    if (LogConfig.shouldLogIp(target.ip))
+                    {
+                        logger.trace("[IP:{}] TCP connect to port {} failed: {}", target.ip, target.port,
+                                     ar.cause().getMessage()
+                        );
+                    }
+                }
+
+                if (++target.attempts < ATTEMPTS)
+                {
+                    // Back of the queue - other targets get their first attempt in first
+                    queued.add(target);
+                } else
+                {
+                    complete(target);
+                }
+                drain();
+            });
+    }
+
+    private void complete(Target target)
+    {
+        PingResult result;
+        if (target.received == 0)
+        {
+            result = PingResultUtil.createUnreachableResult(target.ip);
+        } else
+        {
+            result = PingResultUtil.createSuccessResult(target.ip, target.minRtt, target.sumRtt / target.received,
+                                                        target.maxRtt, (ATTEMPTS - target.received) * 100 / ATTEMPTS
+            );
+        }
+        if (target.rtts != null)
+        {
+            result = result.withRtts(target.rtts);
+        }
+        FpingWorker.publishResult(vertx, result);
+
+        var batch = target.batch;
+        batch.results.put(target.ip, result);
+        if (--batch.remaining == 0)
+        {
+            batch.promise.complete(batch.results);
+        }
+    }
+
+    private static final class Batch
+    {
+        private final Map<String, PingResult> results;
+        private final Promise<Map<String, PingResult>> promise;
+        private int remaining;
+
+        private Batch(int size, Map<String, PingResult> results, Promise<Map<String, PingResult>> promise)
+        {
+            this.remaining = size;
+            this.results = results;
+            this.promise = promise;
+        }
+    }
+
+    private static final class Target
+    {
+        private final Batch batch;
+        private final String ip;
+        private final int port;
+        // Connect time per attempt (-1 = failed), null unless -Drtt.stats=true
+        private final double[] rtts;
+        private int attempts;
+        private int received;
+        private double minRtt = Double.MAX_VALUE;
+        private double maxRtt;
+        private double sumRtt;
+
+        private Target(Batch batch, String ip, int port)
+        {
+            this.batch = batch;
+            this.ip = ip;
+            this.port = port;
+            if (RttStats.enabled())
+            {
+                this.rtts = new double[ATTEMPTS];
+                Arrays.fill(rtts, -1);
+            } else
+            {
+                this.rtts = null;
+            }
+        }
+
+        private void recordRtt(double rttMs)
+        {
+            if (rtts != null)
+            {
+                rtts[attempts] = rttMs;
+            }
+            received++;
+            minRtt = Math.min(minRtt, rttMs);
+            maxRtt = Math.max(maxRtt, rttMs);
+            sumRtt += rttMs;
+        }
+    }
+
+}
@@ -0,0 +1,343 @@
+package com.practice.urlPoller;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel for in-memory poll scheduling.
+ * <p>
+ * Level 0 has {@code wheelSize} slots of one tick each, level 1 has slots of
+ * {@code wheelSize} ticks, and so on. Deadlines further out than level 0 can hold
+ * are parked in a coarser level and cascaded down when their slot comes around,
+ * so insert, cancel and expiry are all O(1) regardless of target count.
+ * <p>
+ * Accuracy: an entry never fires early and fires at most one tick late.
+ * <p>
+ * NOT thread-safe - owned and driven by a single verticle (event loop confined).
+ *
+ * @param <T> payload carried by each scheduled entry
+ */
+public class TimingWheel<T>
+{
+    private final long tickMs;
+    private final int wheelSize;
+    private final long[] ticksPerSlot;
+    private final List<List<List<Timeout<T>>>> levels;
+    // One bit per non-empty slot, per level
+    private final long[][] occupied;
+    // Last processed tick number (epoch millis / tickMs)
+    private long currentTick;
+    private int size;
+
+    public TimingWheel(long tickMs, int wheelSize, int levelCount, long startMs)
+    {
+        if (tickMs <= 0 || wheelSize < 2 || levelCount < 1)
+        {
+            throw new IllegalArgumentException("Invalid timing wheel geometry: tick=" + tickMs +
+                                                   "ms, size=" + wheelSize + ", levels=" + levelCount);
+        }
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.ticksPerSlot = new long[levelCount];
+        this.levels = new ArrayList<>(levelCount);
+        this.occupied = new long[levelCount][(wheelSize + Long.SIZE - 1) / Long.SIZE];
+
+        long span = 1;
+        for (var level = 0; level < levelCount; level++)
+        {
+            ticksPerSlot[level] = span;
+            span *= wheelSize;
+
+            var slots = new ArrayList<List<Timeout<T>>>(wheelSize);
+            for (var i = 0; i < wheelSize; i++)
+            {
+                slots.add(new ArrayList<>());
+            }
+            levels.add(slots);
+        }
+        this.currentTick = startMs / tickMs;
+    }
+
+    /**
+     * Schedule a payload at an absolute deadline.
+     *
+     * @return handle used to cancel the entry, or {@code null} if the deadline is already due
+     * (the caller should dispatch it right away)
+     */
+    public Timeout<T> schedule(T payload, long deadlineMs)
+    {
+        var timeout = new Timeout<>(payload, deadlineMs);
+        if (!place(timeout))
+        {
+            return null;
+        }
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Cancel a scheduled entry (no-op if already cancelled or expired).
+     * Cancelled entries are dropped lazily when their slot is visited.
+     */
+    public void cancel(Timeout<T> timeout)
+    {
+        if (timeout != null && timeout.live)
+        {
+            timeout.live = false;
+            size--;
+        }
+    }
+
+    /**
+     * Advance the wheel up to {@code nowMs}, handing every expired payload to {@code expired}.
+     * Catches up on all missed ticks if the event loop was delayed.
+     *
+     * @return number of payloads expired
+     */
+    public int advance(long nowMs, Consumer<T> expired)
+    {
+        var targetTick = nowMs / tickMs;
+        var fired = 0;
+
+        while (currentTick < targetTick)
+        {
+            currentTick++;
+
+            // Cascade coarser levels first so entries due on this tick land in level 0
+            for (var level = levels.size() - 1; level >= 1; level--)
+            {
+                if (currentTick % ticksPerSlot[level] == 0)
+                {
+                    fired += cascade(level, expired);
+                }
+            }
+
+            fired += drain((int) (currentTick % wheelSize), expired);
+        }
+
+        return fired;
+    }
+
+    /**
+     * Earliest time at which {@link #advance} has work to do: expire a live entry or cascade a
+     * coarser slot, rounded up to the tick. Used to arm a single one-shot timer instead of ticking
+     * periodically; after that advance the caller asks again.
+     * <p>
+     * Level 0 yields the earliest live deadline of its first slot holding one. Levels 1+ yield the
+     * start of their first occupied slot - the tick it is cascaded on - without looking at its
+     * entries. Levels are not ordered against each other, so the minimum over all levels wins.
+     * Empty slots are skipped via the occupancy bitmap.
+     *
+     * @return epoch millis, or {@link Long#MAX_VALUE} if the wheel is empty
+     */
+    public long nextExpiryMs()
+    {
+        if (size == 0)
+        {
+            return Long.MAX_VALUE;
+        }
+
+        // Level 0: the current slot is drained already, look ahead for a slot with a live entry
+        var earliestTick = Long.MAX_VALUE;
+        var tick = currentTick + 1;
+        var remaining = wheelSize - 1;
+        while (earliestTick == Long.MAX_VALUE && remaining > 0)
+        {
+            var distance = nextOccupied(0, tick, remaining);
+            if (distance < 0)
+            {
+                break;
+            }
+            for (var timeout : levels.get(0).get((int) ((tick + distance) % wheelSize)))
+            {
+                if (timeout.live)
+                {
+                    earliestTick = Math.min(earliestTick, (timeout.deadlineMs + tickMs - 1) / tickMs);
+                }
+            }
+            tick += distance + 1;
+            remaining -= distance + 1;
+        }
+
+        // Levels 1+: a slot is cascaded on its first tick; the current slot holds nothing
+        for (var level = 1; level < levels.size(); level++)
+        {
+            var span = ticksPerSlot[level];
+            var nextSlot = currentTick / span + 1;
+            var distance = nextOccupied(level, nextSlot, wheelSize - 1);
+            if (distance >= 0)
+            {
+                earliestTick = Math.min(earliestTick, (nextSlot + distance) * span);
+            }
+        }
+
+        return earliestTick == Long.MAX_VALUE ? Long.MAX_VALUE : earliestTick * tickMs;
+    }
+
+    /**
+     * @return number of live (not cancelled, not expired) entries
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    public long tickMs()
+    {
+        return tickMs;
+    }
+
+    private int cascade(int level, Consumer<T> expired)
+    {
+        var index = (int) ((currentTick / ticksPerSlot[level]) % wheelSize);
+        var slot = levels.get(level).get(index);
+        if (slot.isEmpty())
+        {
+            return 0;
+        }
+
+        var entries = new ArrayList<>(slot);
+        slot.clear();
+        occupied[level][index >>> 6] &= ~(1L << index);
+
+        var fired = 0;
+        for (var timeout : entries)
+        {
+            if (!timeout.live)
+            {
+                continue;
+            }
+            if (!place(timeout))
+            {
+                timeout.live = false;
+                size--;
+                expired.accept(timeout.payload);
+                fired++;
+            }
+        }
+        return fired;
+    }
+
+    private int drain(int index, Consumer<T> expired)
+    {
+        var slot = levels.get(0).get(index);
+        if (slot.isEmpty())
+        {
+            return 0;
+        }
+
+        var entries = new ArrayList<>(slot);
+        slot.clear();
+        occupied[0][index >>> 6] &= ~(1L << index);
+
+        var fired = 0;
+        for (var timeout : entries)
+        {
+            if (!timeout.live)
+            {
+                continue;
+            }
+            timeout.live = false;
+            size--;
+            expired.accept(timeout.payload);
+            fired++;
+        }
+        return fired;
+    }
+
+    /**
+     * Put an entry into the finest level that can hold its deadline.
+     *
+     * @return false if the entry is already due
+     */
+    private boolean place(Timeout<T> timeout)
+    {
+        // Tick on which the entry fires (rounded up so it never fires early)
+        var dueTick = (timeout.deadlineMs + tickMs - 1) / tickMs;
+        if (dueTick <= currentTick)
+        {
+            return false;
+        }
+
+        for (var level = 0; level < levels.size(); level++)
+        {
+            var span = ticksPerSlot[level];
+            if (dueTick / span - currentTick / span < wheelSize)
+            {
+                add(level, (int) ((dueTick / span) % wheelSize), timeout);
+                return true;
+            }
+        }
+
+        // Beyond the top level - park in the furthest top-level slot, re-placed on cascade
+        var top = levels.size() - 1;
+        var span = ticksPerSlot[top];
+        add(top, (int) ((currentTick / span + wheelSize - 1) % wheelSize), timeout);
+        return true;
+    }
+
+    private void add(int level, int index, Timeout<T> timeout)
+    {
+        levels.get(level).get(index)
+            .add(timeout);
+        occupied[level][index >>> 6] |= 1L << index;
+    }
+
+    /**
+     * Distance from slot number {@code from} to the first non-empty slot of a level, looking at
+     * {@code count} slots at most.
+     *
+     * @return 0..count-1, or -1 if all of them are empty
+     */
+    private int nextOccupied(int level, long from, int count)
+    {
+        var bits = occupied[level];
+        var distance = 0;
+        while (distance < count)
+        {
+            var index = (int) ((from + distance) % wheelSize);
+            var word = bits[index >>> 6] >>> index;
+            if (word != 0)
+            {
+                distance += Long.numberOfTrailingZeros(word);
+                return distance < count ? distance : -1;
+            }
+            // Rest of the word is empty (bits past wheelSize are never set)
+            distance += Math.min(Long.SIZE - (index & (Long.SIZE - 1)), wheelSize - index);
+        }
+        return -1;
+    }
+
+    /**
+     * Handle for a scheduled entry.
+     */
+    public static final class Timeout<T>
+    {
+        private final T payload;
+        private final long deadlineMs;
+        // false once cancelled or expired
+        private boolean live = true;
+
+        private Timeout(T payload, long deadlineMs)
+        {
+            this.payload = payload;
+            this.deadlineMs = deadlineMs;
+        }
+
+        public T payload()
+        {
+            return payload;
+        }
+
+        public long deadlineMs()
+        {
+            return deadlineMs;
+        }
+
+        public boolean isLive()
+        {
+            return live;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.practice.urlPoller;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drop-in for the fping WorkerExecutor that runs every task on its own virtual thread
+ * (-Dfping.executor=virtual).
+ * <p>
+ * - one virtual thread per task - a batch chunk writes its targets and reads its output on it
+ * - at most -Dfping.virtual.max.concurrent tasks run at once (fair semaphore); the rest park
+ *   on the semaphore instead of queueing in a fixed-size platform pool
+ * - the result completes on the context that submitted the task, like executeBlocking
+ * <p>
+ * Pipe reads from fping still occupy a carrier thread while blocked (the scheduler compensates
+ * up to jdk.virtualThreadScheduler.maxPoolSize, 256 by default), which is why the default limit
+ * matches that size.
+ * <p>
+ * {@code ordered} is ignored: tasks always run concurrently (every caller passes false).
+ */
+public class VirtualThreadWorkerExecutor implements WorkerExecutor
+{
+    public static final String FPING_EXECUTOR = "fping.executor";
+    public static final String EXECUTOR_VIRTUAL = "virtual";
+    public static final String MAX_CONCURRENT = "fping.virtual.max.concurrent";
+    public static final int DEFAULT_MAX_CONCURRENT = 256;
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadWorkerExecutor.class);
+    private static final LongAdder submittedCounter = Metrics.counter("fping.virtual.tasks");
+    private final Vertx vertx;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final int maxConcurrent;
+
+    public VirtualThreadWorkerExecutor(Vertx vertx, String name, int maxConcurrent)
+    {
+        this.vertx = vertx;
+        this.maxConcurrent = maxConcurrent;
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual()
+                                                               .name(name + "-", 0)
+                                                               .factory());
+        Metrics.gauge("fping.virtual.running", () -> maxConcurrent - permits.availablePermits());
+        Metrics.gauge("fping.virtual.waiting", permits::getQueueLength);
+    }
+
+    /**
+     * @return maximum number of tasks running at once
+     */
+    public int maxConcurrent()
+    {
+        return maxConcurrent;
+    }
+
+    @Override
+    public <T> Future<T> executeBlocking(Callable<T> blockingCodeHandler, boolean ordered)
+    {
+        var context = vertx.getOrCreateContext();
+        Promise<T> promise = Promise.promise();
+        submittedCounter.increment();
+        try
+        {
+            executor.execute(() -> {
+                try
+                {
+                    permits.acquire();
+                } catch (InterruptedException e)
+                {
+                    context.runOnContext(v -> promise.fail(e));
+                    return;
+                }
+                try
+                {
+                    var result = blockingCodeHandler.call();
+                    context.runOnContext(v -> promise.complete(result));
+                } catch (Throwable t)
+                {
+                    context.runOnContext(v -> promise.fail(t));
+                } finally
+                {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e)
+        {
+            logger.warn("Virtual thread executor closed, task rejected");
+            return Future.failedFuture(e);
+        }
+        return promise.future();
+    }
+
+    @Override
+    public Future<Void> close()
+    {
+        // Running tasks are bounded by the fping watchdog; don't wait for them
+        executor.shutdown();
+        return Future.succeededFuture();
+    }
+
+}
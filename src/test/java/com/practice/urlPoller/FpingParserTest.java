@@ -0,0 +1,237 @@
+package com.practice.urlPoller;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * FpingOutputParser (FpingParser.parse / FpingParser.Collector) against the regex parser it
+ * replaced (RegexFpingParser, src/jmh) - both must produce the same results for the same output.
+ */
+class FpingParserTest
+{
+    private static final int COUNT = 3;
+    // Longer than FpingOutputParser's 8 KiB read buffer
+    private static final String LONG_NAME = "host-" + "a".repeat(9_000) + ".example.com";
+    private static final String LONG_NOISE = "ICMP Host Unreachable " + "x".repeat(20_000);
+
+    @Test
+    void parseMatchesRegexParser()
+    {
+        var output = String.join("\n",
+                                 "8.8.8.8     : xmt/rcv/%loss = 1/1/0%, min/avg/max = 15.2/15.2/15.2",
+                                 "192.168.1.1 : xmt/rcv/%loss = 1/0/100%",
+                                 "1.1.1.1 : xmt/rcv/%loss = 3/2/33%, min/avg/max = 0.045/10.5/21.003",
+                                 // Duplicate line
+                                 "1.1.1.1 : xmt/rcv/%loss = 3/2/33%, min/avg/max = 0.045/10.5/21.003",
+                                 LONG_NOISE,
+                                 "   10.0.0.1 :   xmt/rcv/%loss = 3/3/0%,   min/avg/max = 1.00/2.50/1234.5678",
+                                 "ICMP Host Unreachable from 10.0.0.254 for ICMP Echo sent to 10.0.0.9",
+                                 "",
+                                 LONG_NAME + " : xmt/rcv/%loss = 1/1/0%, min/avg/max = 7.7/7.7/7.7",
+                                 // Last line without a trailing newline
+                                 "unknown.example.org : xmt/rcv/%loss = 2/0/100%"
+        );
+
+        var expected = RegexFpingParser.parse(output);
+        var actual = FpingParser.parse(output);
+
+        assertEquals(6, expected.size());
+        assertEquals(expected.keySet(), actual.keySet());
+        expected.forEach((target, result) -> assertSameResult(result, actual.get(target)));
+    }
+
+    @Test
+    void parseMatchesRegexParserOnGeneratedOutput()
+    {
+        var output = new StringBuilder();
+        for (var i = 0; i < 10_000; i++)
+        {
+            output.append("10.").append(i >> 8 & 0xff).append('.').append(i & 0xff).append(".1");
+            if (i % 10 == 9)
+            {
+                output.append(" : xmt/rcv/%loss = 3/0/100%\n");
+            } else
+            {
+                output.append(" : xmt/rcv/%loss = 3/").append(3 - i % 3).append('/').append(i % 3 * 33)
+                    .append("%, min/avg/max = ").append(millis(i % 1000)).append('/').append(millis(i * 7))
+                    .append('/').append(millis(i * 1_001)).append('\n');
+            }
+        }
+
+        var expected = RegexFpingParser.parse(output.toString());
+        var actual = FpingParser.parse(output.toString());
+
+        assertEquals(10_000, expected.size());
+        assertEquals(expected.keySet(), actual.keySet());
+        expected.forEach((target, result) -> assertSameResult(result, actual.get(target)));
+    }
+
+    @Test
+    void collectorMatchesRegexCollector() throws IOException
+    {
+        var output = String.join("\n",
+                                 "8.8.8.8 : [0], 64 bytes, 15.2 ms (15.2 avg, 0% loss)",
+                                 "192.168.1.1 : [0], timed out (NaN avg, 100% loss)",
+                                 "8.8.8.8 : [1], 64 bytes, 14.8 ms (15.0 avg, 0% loss)",
+                                 // Duplicate reply, not a new probe
+                                 "8.8.8.8 : duplicate for [1], 64 bytes, 16.1 ms",
+                                 LONG_NOISE,
+                                 "192.168.1.1 : [1], timed out (NaN avg, 100% loss)",
+                                 // Not among the targets fping was given
+                                 "unknown.example.org : [0], 64 bytes, 3.25 ms (3.25 avg, 0% loss)",
+                                 LONG_NAME + " : [0], 64 bytes, 7.7 ms (7.7 avg, 0% loss)",
+                                 "8.8.8.8 : [2], timed out (15.0 avg, 33% loss)",
+                                 "192.168.1.1 : [2], timed out (NaN avg, 100% loss)",
+                                 LONG_NAME + " : [1], 64 bytes, 7.9 ms (7.8 avg, 0% loss)",
+                                 LONG_NAME + " : [2], 64 bytes, 8.1 ms (7.9 avg, 0% loss)",
+                                 "",
+                                 // Summary block: completes 10.0.0.1, already complete targets stay so
+                                 "8.8.8.8 : xmt/rcv/%loss = 3/2/33%, min/avg/max = 14.8/15.0/15.2",
+                                 "10.0.0.1 : xmt/rcv/%loss = 3/3/0%, min/avg/max = 1.1/1.2/1.3",
+                                 // Last line without a trailing newline
+                                 "unknown.example.org : [1], 64 bytes, 3.5 ms (3.37 avg, 0% loss)"
+        );
+        var targets = List.of("8.8.8.8", "192.168.1.1", "10.0.0.1", LONG_NAME);
+
+        var expected = regexCollect(output);
+        var actual = collect(output, targets);
+
+        assertEquals(4, expected.size());
+        assertEquals(expected.size(), actual.size());
+        for (var i = 0; i < expected.size(); i++)
+        {
+            assertSameResult(expected.get(i), actual.get(i));
+        }
+    }
+
+    @Test
+    void collectorMatchesRegexCollectorOnGeneratedOutput() throws IOException
+    {
+        List<String> targets = new ArrayList<>();
+        var output = new StringBuilder();
+        for (var i = 0; i < 3_000; i++)
+        {
+            targets.add("10.1." + (i >> 8 & 0xff) + "." + (i & 0xff));
+        }
+        for (var probe = 0; probe < COUNT; probe++)
+        {
+            for (var i = 0; i < targets.size(); i++)
+            {
+                output.append(targets.get(i)).append(" : [").append(probe).append("], ");
+                if ((i + probe) % 7 == 0)
+                {
+                    output.append("timed out (NaN avg, 100% loss)\n");
+                } else
+                {
+                    output.append("64 bytes, ").append(millis((i * 31 + probe) % 50_000)).append(" ms (1.0 avg, 0% loss)\n");
+                }
+            }
+        }
+
+        var expected = regexCollect(output.toString());
+        var actual = collect(output.toString(), targets);
+
+        assertEquals(targets.size(), expected.size());
+        assertEquals(expected.size(), actual.size());
+        for (var i = 0; i < expected.size(); i++)
+        {
+            assertSameResult(expected.get(i), actual.get(i));
+        }
+    }
+
+    /**
+     * RTT as fping prints it, e.g. 12.345
+     */
+    private static String millis(int micros)
+    {
+        return micros / 1_000 + "." + String.valueOf(1_000 + micros % 1_000).substring(1);
+    }
+
+    private static List<PingResult> regexCollect(String output) throws IOException
+    {
+        var collector = new RegexFpingParser.Collector(COUNT);
+        List<PingResult> results = new ArrayList<>();
+        var reader = new BufferedReader(new StringReader(output));
+        String line;
+        while ((line = reader.readLine()) != null)
+        {
+            var result = collector.accept(line);
+            if (result != null)
+            {
+                results.add(result);
+            }
+        }
+        return results;
+    }
+
+    private static List<PingResult> collect(String output, List<String> targets) throws IOException
+    {
+        var parser = new FpingOutputParser(new TrickleInputStream(output.getBytes(StandardCharsets.UTF_8)), targets);
+        var collector = new FpingParser.Collector(parser, COUNT);
+        List<PingResult> results = new ArrayList<>();
+        while (parser.next())
+        {
+            var result = collector.accept();
+            if (result != null)
+            {
+                results.add(result);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Same result apart from probedAtMs (the time each parser built it).
+     */
+    private static void assertSameResult(PingResult expected, PingResult actual)
+    {
+        assertNotNull(actual, "missing result for " + expected.target());
+        var target = expected.target();
+        assertEquals(target, actual.target());
+        assertEquals(expected.status(), actual.status(), target);
+        assertEquals(expected.packetLoss(), actual.packetLoss(), target);
+        assertEquals(expected.minRtt(), actual.minRtt(), target);
+        assertEquals(expected.avgRtt(), actual.avgRtt(), target);
+        assertEquals(expected.maxRtt(), actual.maxRtt(), target);
+        assertEquals(expected.httpStatus(), actual.httpStatus(), target);
+        assertTrue(actual.probedAtMs() > 0, target);
+    }
+
+    /**
+     * Hands out a few bytes per read, like a pipe from a process that is still writing.
+     */
+    private static final class TrickleInputStream extends InputStream
+    {
+        private final InputStream in;
+
+        private TrickleInputStream(byte[] bytes)
+        {
+            this.in = new ByteArrayInputStream(bytes);
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            return in.read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException
+        {
+            return in.read(buffer, offset, Math.min(length, 7));
+        }
+    }
+
+}
@@ -0,0 +1,221 @@
+package com.practice.urlPoller;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Small geometry so every level is reachable: 100ms ticks, 8 slots, 3 levels -
+ * level 0 covers 800ms, level 1 6.4s, level 2 51.2s.
+ */
+class TimingWheelTest
+{
+    private static final long TICK_MS = 100;
+    private static final int WHEEL_SIZE = 8;
+    private static final int LEVELS = 3;
+
+    private final TimingWheel<String> wheel = new TimingWheel<>(TICK_MS, WHEEL_SIZE, LEVELS, 0);
+    // "payload@ms" in firing order
+    private final List<String> fired = new ArrayList<>();
+    // Time of the last advance
+    private long lastMs;
+
+    @Test
+    void firesEntriesOfEveryLevelOnTheirTick()
+    {
+        wheel.schedule("level0", 300);
+        wheel.schedule("level1", 2_000);
+        wheel.schedule("level2", 20_000);
+        assertEquals(3, wheel.size());
+
+        stepTo(25_000);
+
+        assertEquals(List.of("level0@300", "level1@2000", "level2@20000"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void roundsDeadlinesUpToTheTick()
+    {
+        wheel.schedule("early", 101);
+        wheel.schedule("exact", 200);
+
+        stepTo(100);
+        assertTrue(fired.isEmpty());
+        stepTo(200);
+
+        assertEquals(List.of("early@200", "exact@200"), fired);
+    }
+
+    @Test
+    void cascadesEntriesBeyondTheHorizon()
+    {
+        // 3 levels reach 51.2s; later deadlines are parked in the top level and re-placed
+        wheel.schedule("overflow", 200_000);
+
+        stepTo(199_900);
+        assertTrue(fired.isEmpty());
+        assertEquals(1, wheel.size());
+        stepTo(200_000);
+
+        assertEquals(List.of("overflow@200000"), fired);
+    }
+
+    @Test
+    void returnsNullForDueDeadlines()
+    {
+        stepTo(1_000);
+
+        assertNull(wheel.schedule("past", 500));
+        assertNull(wheel.schedule("now", 1_000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cancelledEntriesNeverFire()
+    {
+        var kept = wheel.schedule("kept", 300);
+        var cancelled0 = wheel.schedule("cancelled0", 300);
+        var cancelled1 = wheel.schedule("cancelled1", 3_000);
+
+        wheel.cancel(cancelled0);
+        wheel.cancel(cancelled1);
+        // No-ops
+        wheel.cancel(cancelled1);
+        wheel.cancel(null);
+
+        assertEquals(1, wheel.size());
+        assertFalse(cancelled0.isLive());
+        assertTrue(kept.isLive());
+
+        stepTo(5_000);
+
+        assertEquals(List.of("kept@300"), fired);
+        assertFalse(kept.isLive());
+        assertEquals(Long.MAX_VALUE, wheel.nextExpiryMs());
+    }
+
+    @Test
+    void catchesUpOnMissedTicksInDeadlineOrder()
+    {
+        wheel.schedule("c", 20_000);
+        wheel.schedule("a", 300);
+        wheel.schedule("b", 2_000);
+
+        // One late advance covers all three levels
+        var count = wheel.advance(30_000, payload -> fired.add(payload));
+
+        assertEquals(3, count);
+        assertEquals(List.of("a", "b", "c"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void nextExpiryCoversEntriesDueEarlierOnACoarserLevel()
+    {
+        // Placed in level 1 at tick 0 (9 ticks out) ...
+        wheel.schedule("level1", 900);
+        stepTo(300);
+        // ... and due before this one, placed in level 0 at tick 3
+        wheel.schedule("level0", 1_000);
+
+        var next = wheel.nextExpiryMs();
+        assertTrue(next > 300 && next <= 900, "next expiry " + next);
+
+        driveByNextExpiry();
+
+        assertEquals(List.of("level1@900", "level0@1000"), fired);
+    }
+
+    @Test
+    void nextExpiryIsEmptyWheelSentinel()
+    {
+        assertEquals(Long.MAX_VALUE, wheel.nextExpiryMs());
+        wheel.schedule("a", 250);
+
+        assertEquals(300, wheel.nextExpiryMs());
+    }
+
+    @Test
+    void wakingOnlyAtNextExpiryFiresEveryEntryOnItsTick()
+    {
+        var random = new Random(42);
+        for (var round = 0; round < 200; round++)
+        {
+            var start = 1_000_000L + random.nextInt(100_000);
+            var roundWheel = new TimingWheel<Long>(TICK_MS, WHEEL_SIZE, LEVELS, start);
+            Map<TimingWheel.Timeout<Long>, Long> live = new HashMap<>();
+            for (var i = 0; i < 40; i++)
+            {
+                var deadline = start + 1 + random.nextInt(random.nextBoolean() ? 5_000 : 300_000);
+                var timeout = roundWheel.schedule(deadline, deadline);
+                live.put(timeout, deadline);
+                if (random.nextInt(5) == 0)
+                {
+                    roundWheel.cancel(timeout);
+                    live.remove(timeout);
+                }
+            }
+
+            var now = start;
+            for (var next = roundWheel.nextExpiryMs(); next != Long.MAX_VALUE; next = roundWheel.nextExpiryMs())
+            {
+                var earliest = live.values()
+                    .stream()
+                    .mapToLong(TimingWheelTest::dueMs)
+                    .min()
+                    .orElseThrow();
+                assertTrue(next > now && next <= earliest, "next expiry " + next + " after " + now + ", due " + earliest);
+                now = next;
+                var at = now;
+                roundWheel.advance(now, deadline -> assertEquals(dueMs(deadline), at));
+                live.keySet()
+                    .removeIf(timeout -> !timeout.isLive());
+            }
+            assertTrue(live.isEmpty());
+        }
+    }
+
+    private static long dueMs(long deadlineMs)
+    {
+        return (deadlineMs + TICK_MS - 1) / TICK_MS * TICK_MS;
+    }
+
+    /**
+     * Advance one tick at a time, like a periodic timer would.
+     */
+    private void stepTo(long endMs)
+    {
+        for (var now = lastMs + TICK_MS; now <= endMs; now += TICK_MS)
+        {
+            lastMs = now;
+            wheel.advance(now, this::record);
+        }
+    }
+
+    /**
+     * Advance only to the times {@link TimingWheel#nextExpiryMs} asks for.
+     */
+    private void driveByNextExpiry()
+    {
+        for (var next = wheel.nextExpiryMs(); next != Long.MAX_VALUE; next = wheel.nextExpiryMs())
+        {
+            lastMs = next;
+            wheel.advance(next, this::record);
+        }
+    }
+
+    private void record(String payload)
+    {
+        fired.add(payload + "@" + lastMs);
+    }
+}